@@ -0,0 +1,87 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.alarms.Alarm;
+import android.gameengine.icadroids.alarms.IAlarm;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+
+/**
+ * One cycle of the game loop with N alarms that restart themselves when
+ * they go off, most of them set far ahead.
+ * <br />
+ * The setup first checks that the alarms go off in the same cycles as they
+ * did when every alarm counted every cycle, see AlarmModelCheck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlarmBenchmark
+{
+
+	@Param({ "100", "1000", "10000" })
+	public int alarmCount;
+
+	/**
+	 * Number of random games played by the check against the per-cycle
+	 * model
+	 */
+	private static final int CHECKED_GAMES = 200;
+
+	/**
+	 * Highest time of an alarm
+	 */
+	private static final int MAX_TIME = 500;
+
+	private HeadlessRunner runner;
+
+	private Alarm[] alarms;
+
+	private long alarmsOff = 0;
+
+	@Setup
+	public void setUp()
+	{
+		AlarmModelCheck.check(CHECKED_GAMES);
+		runner = new BenchmarkGame(0, 64).start();
+		Random random = new Random(BenchmarkGame.SEED);
+		IAlarm restarter = new IAlarm()
+		{
+			public void triggerAlarm(int alarmID)
+			{
+				alarmsOff++;
+				alarms[alarmID].restartAlarm();
+			}
+		};
+		alarms = new Alarm[alarmCount];
+		for (int i = 0; i < alarmCount; i++)
+		{
+			alarms[i] = new Alarm(i, 1 + random.nextInt(MAX_TIME), restarter);
+			alarms[i].startAlarm();
+		}
+		runner.run(10);
+	}
+
+	@Benchmark
+	public long updateGame()
+	{
+		runner.tick();
+		return alarmsOff;
+	}
+}
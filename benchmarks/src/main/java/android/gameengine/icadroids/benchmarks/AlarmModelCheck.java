@@ -0,0 +1,300 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import android.gameengine.icadroids.alarms.Alarm;
+import android.gameengine.icadroids.alarms.IAlarm;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+
+/**
+ * Checks that the alarms of the GameEngine go off in the same cycles and the
+ * same order as they did when every alarm counted every cycle. Random games
+ * of alarms that start, pause, restart, change and create alarms (also from
+ * triggerAlarm) are played by the GameEngine and by a model of the old
+ * per-cycle alarms, and the alarms that went off are compared.
+ */
+final class AlarmModelCheck
+{
+
+	/**
+	 * Number of alarms a game starts with
+	 */
+	private static final int ALARMS = 8;
+
+	/**
+	 * Number of cycles of a game
+	 */
+	private static final int TICKS = 100;
+
+	/**
+	 * Highest time of an alarm
+	 */
+	private static final int MAX_TIME = 5;
+
+	private AlarmModelCheck()
+	{
+	}
+
+	/**
+	 * Play random games with the GameEngine and with the model
+	 *
+	 * @param games
+	 *            number of games, every game has its own seed
+	 * @throws IllegalStateException
+	 *             if the alarms of a game went off differently
+	 */
+	static void check(int games)
+	{
+		for (int seed = 0; seed < games; seed++)
+		{
+			String expected = new ModelGame(seed).play();
+			String actual = new EngineGame(seed).play();
+			if (!expected.equals(actual))
+			{
+				throw new IllegalStateException("alarms of game " + seed
+						+ " differ from the per-cycle model:\n" + expected
+						+ "\n" + actual);
+			}
+		}
+	}
+
+	/**
+	 * A game of alarms. The same random choices are made for both kinds of
+	 * alarm, as long as they go off in the same order.
+	 */
+	private abstract static class AlarmGame implements IAlarm
+	{
+		private final Random random;
+
+		private final StringBuilder log = new StringBuilder();
+
+		/**
+		 * Number of the cycle being played
+		 */
+		int tick = 0;
+
+		AlarmGame(int seed)
+		{
+			random = new Random(seed);
+		}
+
+		/**
+		 * Play the game
+		 *
+		 * @return the cycle and id of every alarm that went off
+		 */
+		String play()
+		{
+			for (int i = 0; i < ALARMS; i++)
+			{
+				create();
+				if (random.nextBoolean())
+				{
+					act(0, i);
+				}
+			}
+			for (tick = 1; tick <= TICKS; tick++)
+			{
+				if (random.nextInt(4) == 0)
+				{
+					actRandomly();
+				}
+				runCycle();
+			}
+			return log.toString();
+		}
+
+		public void triggerAlarm(int alarmID)
+		{
+			log.append(tick).append(':').append(alarmID).append(' ');
+			int actions = random.nextInt(3);
+			for (int i = 0; i < actions; i++)
+			{
+				actRandomly();
+			}
+		}
+
+		private void actRandomly()
+		{
+			int action = random.nextInt(5);
+			if (action == 4 && count() < 4 * ALARMS)
+			{
+				create();
+			} else
+			{
+				act(action, random.nextInt(count()));
+			}
+		}
+
+		/**
+		 * Do something with an alarm: 0 start, 1 pause, 2 restart, 3 set a
+		 * new time
+		 */
+		private void act(int action, int index)
+		{
+			switch (action)
+			{
+			case 0:
+				start(index);
+				break;
+			case 1:
+				pause(index);
+				break;
+			case 2:
+				restart(index);
+				break;
+			default:
+				setTime(index, random.nextInt(MAX_TIME + 1));
+				break;
+			}
+		}
+
+		private void create()
+		{
+			create(count(), random.nextInt(MAX_TIME + 1));
+		}
+
+		abstract int count();
+
+		abstract void create(int id, int time);
+
+		abstract void start(int index);
+
+		abstract void pause(int index);
+
+		abstract void restart(int index);
+
+		abstract void setTime(int index, int time);
+
+		abstract void runCycle();
+	}
+
+	/**
+	 * The game played with the alarms of the GameEngine
+	 */
+	private static class EngineGame extends AlarmGame
+	{
+		private final HeadlessRunner runner = new BenchmarkGame(0, 4).start();
+
+		private final List<Alarm> alarms = new ArrayList<Alarm>();
+
+		EngineGame(int seed)
+		{
+			super(seed);
+		}
+
+		int count()
+		{
+			return alarms.size();
+		}
+
+		void create(int id, int time)
+		{
+			alarms.add(new Alarm(id, time, this));
+		}
+
+		void start(int index)
+		{
+			alarms.get(index).startAlarm();
+		}
+
+		void pause(int index)
+		{
+			alarms.get(index).pauseAlarm();
+		}
+
+		void restart(int index)
+		{
+			alarms.get(index).restartAlarm();
+		}
+
+		void setTime(int index, int time)
+		{
+			alarms.get(index).setTime(time);
+		}
+
+		void runCycle()
+		{
+			runner.tick();
+		}
+	}
+
+	/**
+	 * The game played with the model: every alarm counts every cycle, in
+	 * order of creation
+	 */
+	private static class ModelGame extends AlarmGame
+	{
+		private final List<ModelAlarm> alarms = new ArrayList<ModelAlarm>();
+
+		ModelGame(int seed)
+		{
+			super(seed);
+		}
+
+		int count()
+		{
+			return alarms.size();
+		}
+
+		void create(int id, int time)
+		{
+			ModelAlarm a = new ModelAlarm();
+			a.id = id;
+			a.time = time;
+			alarms.add(a);
+		}
+
+		void start(int index)
+		{
+			alarms.get(index).running = true;
+		}
+
+		void pause(int index)
+		{
+			alarms.get(index).running = false;
+		}
+
+		void restart(int index)
+		{
+			alarms.get(index).counter = 0;
+			alarms.get(index).running = true;
+		}
+
+		void setTime(int index, int time)
+		{
+			alarms.get(index).time = time;
+		}
+
+		void runCycle()
+		{
+			// alarms created in triggerAlarm count in this cycle as well
+			for (int i = 0; i < alarms.size(); i++)
+			{
+				ModelAlarm a = alarms.get(i);
+				if (a.running)
+				{
+					if (a.counter >= a.time)
+					{
+						a.running = false;
+						triggerAlarm(a.id);
+					}
+					a.counter++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * An alarm as it was updated every cycle
+	 */
+	private static class ModelAlarm
+	{
+		int id;
+		int time;
+		int counter = 0;
+		boolean running = false;
+	}
+}
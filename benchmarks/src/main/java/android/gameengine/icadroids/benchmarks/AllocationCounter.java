@@ -0,0 +1,108 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread, to check that code that
+ * should not create garbage really doesn't. Uses the allocation counter of
+ * the HotSpot ThreadMXBean; on other virtual machines the checks are
+ * skipped.
+ */
+final class AllocationCounter
+{
+
+	/**
+	 * Number of times the runs are measured before the check fails
+	 */
+	private static final int ATTEMPTS = 3;
+
+	private static final com.sun.management.ThreadMXBean BEAN = findBean();
+
+	private AllocationCounter()
+	{
+	}
+
+	private static com.sun.management.ThreadMXBean findBean()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory
+				.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) bean;
+			if (hotspotBean.isThreadAllocatedMemorySupported())
+			{
+				hotspotBean.setThreadAllocatedMemoryEnabled(true);
+				return hotspotBean;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Check whether allocations can be counted on this virtual machine
+	 *
+	 * @return true if allocatedBytes works
+	 */
+	static boolean isSupported()
+	{
+		return BEAN != null;
+	}
+
+	/**
+	 * Get the number of bytes allocated by the current thread so far
+	 *
+	 * @return the number of bytes, or -1 if not supported
+	 */
+	static long allocatedBytes()
+	{
+		if (BEAN == null)
+		{
+			return -1;
+		}
+		return BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Run some code a number of times and check that it allocates nothing.
+	 * Run it often enough before to fill its caches and pools.
+	 * <br />
+	 * When the JIT compiler throws away compiled code (a deoptimization), the
+	 * virtual machine may allocate a few bytes on the thread once. Therefore
+	 * the runs are measured up to ATTEMPTS times; code that creates garbage
+	 * allocates in every attempt.
+	 *
+	 * @param code
+	 *            the code to check
+	 * @param times
+	 *            the number of runs per attempt
+	 * @param description
+	 *            what the code does, for the message
+	 * @throws IllegalStateException
+	 *             if the code allocated memory in every attempt
+	 */
+	static void checkNoAllocation(Runnable code, int times, String description)
+	{
+		if (!isSupported())
+		{
+			return;
+		}
+		// the first call may load classes of the counter itself
+		allocatedBytes();
+		long bytes = 0;
+		for (int attempt = 0; attempt < ATTEMPTS; attempt++)
+		{
+			long before = allocatedBytes();
+			for (int i = 0; i < times; i++)
+			{
+				code.run();
+			}
+			bytes = allocatedBytes() - before;
+			if (bytes <= 0)
+			{
+				return;
+			}
+		}
+		throw new IllegalStateException(description + " allocated " + bytes
+				+ " bytes in " + times + " runs");
+	}
+}
@@ -0,0 +1,252 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.IParallelUpdate;
+import android.gameengine.icadroids.objects.MoveableGameObject;
+import android.gameengine.icadroids.objects.collisions.ICollision;
+import android.gameengine.icadroids.objects.collisions.TileCollision;
+import android.gameengine.icadroids.platform.HeadlessBitmapLoader;
+import android.gameengine.icadroids.tiles.GameTiles;
+
+/**
+ * The game used by the benchmarks: a square tile map of mapSize x mapSize
+ * tiles with walls around it and scattered blocks in it, and objectCount
+ * balls bouncing through it. The world is filled with a fixed seed, so every
+ * run of a benchmark gets the same world.
+ * <br />
+ * The game runs headless, see start().
+ */
+class BenchmarkGame extends GameEngine
+{
+
+	/**
+	 * Width and height of a tile, in pixels
+	 */
+	static final int TILE_SIZE = 32;
+
+	/**
+	 * Width and height of the sprites (set by the benchmarks on the
+	 * HeadlessBitmapLoader), in pixels
+	 */
+	static final int SPRITE_SIZE = 16;
+
+	/**
+	 * Part of the tiles inside the walls that is a block
+	 */
+	static final double BLOCK_DENSITY = 0.05;
+
+	/**
+	 * Seed of the random numbers used to fill the world
+	 */
+	static final long SEED = 20121;
+
+	/**
+	 * The kinds of objects the game can be filled with
+	 */
+	static final int BALLS = 0;
+	static final int PARALLEL_BALLS = 1;
+	static final int BLOCKS = 2;
+
+	private final int objectCount;
+	private final int mapSize;
+	private final int kind;
+	private final boolean compactMap;
+
+	/**
+	 * Random numbers for placing objects, also used by the games that add
+	 * objects while running
+	 */
+	final Random random = new Random(SEED);
+
+	/**
+	 * Make a game with bouncing balls
+	 *
+	 * @param objectCount
+	 *            number of balls
+	 * @param mapSize
+	 *            number of tiles of a side of the map
+	 */
+	BenchmarkGame(int objectCount, int mapSize)
+	{
+		this(objectCount, mapSize, BALLS, false);
+	}
+
+	/**
+	 * Make a game
+	 *
+	 * @param objectCount
+	 *            number of objects
+	 * @param mapSize
+	 *            number of tiles of a side of the map
+	 * @param kind
+	 *            BALLS, PARALLEL_BALLS or BLOCKS
+	 * @param compactMap
+	 *            true to store the tile map compactly
+	 */
+	BenchmarkGame(int objectCount, int mapSize, int kind, boolean compactMap)
+	{
+		this.objectCount = objectCount;
+		this.mapSize = mapSize;
+		this.kind = kind;
+		this.compactMap = compactMap;
+	}
+
+	/**
+	 * Initialize the game on a HeadlessRunner with a 800x480 screen
+	 *
+	 * @return the runner
+	 */
+	HeadlessRunner start()
+	{
+		return new HeadlessRunner(this, 800, 480, new HeadlessBitmapLoader(
+				SPRITE_SIZE, SPRITE_SIZE));
+	}
+
+	@Override
+	protected void initialize()
+	{
+		setTileMap(new GameTiles(new String[] { "wall" }, createMap(mapSize,
+				new Random(SEED)), TILE_SIZE, compactMap));
+		setMapDimensions(getWorldSize(), getWorldSize());
+		for (int i = 0; i < objectCount; i++)
+		{
+			addObject(0);
+		}
+	}
+
+	/**
+	 * Add an object of the kind of the game at a random position
+	 *
+	 * @param depth
+	 *            the layer position of the object
+	 * @return the object
+	 */
+	GameObject addObject(float depth)
+	{
+		GameObject go;
+		if (kind == BLOCKS)
+		{
+			go = new Block();
+		} else
+		{
+			MoveableGameObject ball = kind == PARALLEL_BALLS ? new ParallelBall(
+					getWorldSize()) : new Ball();
+			ball.setDirectionSpeed(random.nextInt(360),
+					1 + random.nextInt(4));
+			go = ball;
+		}
+		addGameObject(go, randomPosition(), randomPosition(), depth);
+		return go;
+	}
+
+	/**
+	 * Get a random position inside the walls
+	 *
+	 * @return a x or y position
+	 */
+	int randomPosition()
+	{
+		return TILE_SIZE + random.nextInt(getWorldSize() - 2 * TILE_SIZE
+				- SPRITE_SIZE);
+	}
+
+	/**
+	 * Get the width and height of the world
+	 *
+	 * @return the size in pixels
+	 */
+	int getWorldSize()
+	{
+		return mapSize * TILE_SIZE;
+	}
+
+	/**
+	 * Make a square map with walls around it and random blocks in it
+	 *
+	 * @param size
+	 *            number of tiles of a side
+	 * @param random
+	 *            where the blocks are placed
+	 * @return the map, 0 is a wall, -1 is empty
+	 */
+	static int[][] createMap(int size, Random random)
+	{
+		int[][] map = new int[size][size];
+		for (int row = 0; row < size; row++)
+		{
+			for (int column = 0; column < size; column++)
+			{
+				boolean wall = row == 0 || column == 0 || row == size - 1
+						|| column == size - 1;
+				map[row][column] = wall
+						|| random.nextDouble() < BLOCK_DENSITY ? 0 : -1;
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * A ball that bounces against the tiles
+	 */
+	static class Ball extends MoveableGameObject implements ICollision
+	{
+		Ball()
+		{
+			setSprite("ball");
+		}
+
+		public void collisionOccurred(List<TileCollision> collidedTiles)
+		{
+			bounce(collidedTiles.get(0));
+		}
+	}
+
+	/**
+	 * A ball that may be updated in parallel: it does not collide with tiles,
+	 * it turns around at the walls itself.
+	 */
+	static class ParallelBall extends MoveableGameObject implements
+			IParallelUpdate
+	{
+		private final int worldSize;
+
+		ParallelBall(int worldSize)
+		{
+			this.worldSize = worldSize;
+			setSprite("ball");
+		}
+
+		@Override
+		public void update()
+		{
+			super.update();
+			int end = worldSize - TILE_SIZE - getFrameWidth();
+			if ((getX() < TILE_SIZE && movesLeft())
+					|| (getX() > end && movesRight()))
+			{
+				reverseHorizontalDirection();
+			}
+			if ((getY() < TILE_SIZE && movesUp())
+					|| (getY() > end && movesDown()))
+			{
+				reverseVerticalDirection();
+			}
+		}
+	}
+
+	/**
+	 * An object that stands still
+	 */
+	static class Block extends GameObject
+	{
+		Block()
+		{
+			setSprite("block");
+		}
+	}
+}
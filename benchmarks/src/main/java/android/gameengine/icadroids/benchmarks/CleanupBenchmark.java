@@ -0,0 +1,107 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+import android.gameengine.icadroids.objects.GameObject;
+
+/**
+ * Cleaning up the object lists (cleanupObjectlists) under churn: every cycle
+ * about a percentage of the objects is deleted and as many new objects are
+ * added, at random depths. The objects stand still, so the time of a cycle is
+ * mostly the time of removing, adding and sorting objects and of bringing the
+ * broadphase up to date.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CleanupBenchmark
+{
+
+	@Param({ "1000", "10000" })
+	public int objectCount;
+
+	/**
+	 * Percentage of the objects replaced every cycle
+	 */
+	@Param({ "1", "10", "50" })
+	public int churn;
+
+	@Param({ "0", "1", "2" })
+	public int broadphase;
+
+	private HeadlessRunner runner;
+
+	/**
+	 * Replaces objects in its update(), which is called before the cleanup
+	 */
+	static class ChurnGame extends BenchmarkGame
+	{
+		private final int replaced;
+
+		ChurnGame(int objectCount, int mapSize, int churn)
+		{
+			super(objectCount, mapSize, BLOCKS, false);
+			replaced = objectCount * churn / 100;
+		}
+
+		@Override
+		public void update()
+		{
+			int n = items.size();
+			if (n == 0)
+			{
+				// the first objects are added at the end of the first cycle
+				return;
+			}
+			for (int i = 0; i < replaced; i++)
+			{
+				GameObject go = items.get(random.nextInt(n));
+				// the number of objects stays the same
+				if (go.isActive())
+				{
+					deleteGameObject(go);
+					addObject(random.nextInt(10));
+				}
+			}
+		}
+	}
+
+	@Setup
+	public void setUp()
+	{
+		GameEngine.collisionBroadphase = broadphase;
+		runner = new ChurnGame(objectCount, 256, churn).start();
+		runner.run(10);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		GameEngine.collisionBroadphase = GameEngine.BROADPHASE_NONE;
+	}
+
+	@Benchmark
+	public long updateGame()
+	{
+		runner.tick();
+		return runner.getTicks();
+	}
+}
@@ -0,0 +1,85 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.MoveableGameObject;
+
+/**
+ * getCollidedObjects() for every object, with the objects spread over a
+ * number of collision categories: every object only collides with objects
+ * of its own category. With 1 category every pair is tested, with 8
+ * categories only one pair in eight gets past the masks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionFilterBenchmark
+{
+
+	@Param({ "1000", "5000" })
+	public int objectCount;
+
+	@Param({ "0", "1", "2" })
+	public int broadphase;
+
+	@Param({ "1", "8" })
+	public int categories;
+
+	private MoveableGameObject[] movers;
+
+	@Setup
+	public void setUp()
+	{
+		GameEngine.collisionBroadphase = broadphase;
+		// a small map, so there are many collisions
+		new BenchmarkGame(objectCount, 64).start().run(10);
+		movers = new MoveableGameObject[GameEngine.items.size()];
+		for (int i = 0; i < movers.length; i++)
+		{
+			movers[i] = (MoveableGameObject) GameEngine.items.get(i);
+			int category = 1 << (i % categories);
+			movers[i].setCollisionCategory(category);
+			movers[i].setCollisionMask(category);
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		GameEngine.collisionBroadphase = GameEngine.BROADPHASE_NONE;
+	}
+
+	@Benchmark
+	public int getCollidedObjects()
+	{
+		int collisions = 0;
+		for (int i = 0; i < movers.length; i++)
+		{
+			ArrayList<GameObject> collided = movers[i].getCollidedObjects();
+			if (collided != null)
+			{
+				collisions += collided.size();
+			}
+		}
+		return collisions;
+	}
+}
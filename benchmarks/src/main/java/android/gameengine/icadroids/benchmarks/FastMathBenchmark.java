@@ -0,0 +1,154 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.objects.FastMath;
+
+/**
+ * Sine, cosine and arc tangent of FastMath against java.lang.Math, for
+ * angles in the range MoveableGameObject uses.
+ * <br />
+ * The setup also checks that FastMath stays within its error bounds
+ * (getSinErrorBound and getAtan2ErrorBound) at the precision of the run, and
+ * fails the benchmark if it doesn't.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastMathBenchmark
+{
+
+	/**
+	 * Number of values per operation
+	 */
+	private static final int COUNT = 1000;
+
+	/**
+	 * Number of values checked against java.lang.Math in the setup
+	 */
+	private static final int CHECKED = 1000000;
+
+	@Param({ "8", "12", "16" })
+	public int precision;
+
+	private double[] angles = new double[COUNT];
+	private double[] xs = new double[COUNT];
+	private double[] ys = new double[COUNT];
+
+	@Setup
+	public void setUp()
+	{
+		FastMath.setPrecision(precision);
+		Random random = new Random(BenchmarkGame.SEED);
+		for (int i = 0; i < COUNT; i++)
+		{
+			// the radians of setDirection: -pi/2 to 3pi/2
+			angles[i] = (random.nextDouble() * 2 - 0.5) * Math.PI;
+			// the x and y speeds of setxSpeed and setySpeed
+			xs[i] = (random.nextDouble() - 0.5) * 20;
+			ys[i] = (random.nextDouble() - 0.5) * 20;
+		}
+		checkAccuracy(random);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		FastMath.setPrecision(FastMath.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Compare FastMath to java.lang.Math for many random values, including
+	 * large and negative angles and speeds of 0
+	 *
+	 * @throws IllegalStateException
+	 *             if an error bound is exceeded
+	 */
+	private void checkAccuracy(Random random)
+	{
+		double sinBound = FastMath.getSinErrorBound();
+		double atan2Bound = FastMath.getAtan2ErrorBound();
+		for (int i = 0; i < CHECKED; i++)
+		{
+			double angle = (random.nextDouble() - 0.5)
+					* (i % 2 == 0 ? 4 * Math.PI : 10000);
+			double sinError = Math.abs(FastMath.sin(angle) - Math.sin(angle));
+			double cosError = Math.abs(FastMath.cos(angle) - Math.cos(angle));
+			if (sinError > sinBound || cosError > sinBound)
+			{
+				throw new IllegalStateException("sin or cos of " + angle
+						+ " exceeds the error bound " + sinBound);
+			}
+			double x = i % 5 == 0 ? 0 : (random.nextDouble() - 0.5) * 20;
+			double y = i % 7 == 0 ? 0 : (random.nextDouble() - 0.5) * 20;
+			double atan2Error = Math.abs(FastMath.atan2(y, x)
+					- Math.atan2(y, x));
+			if (atan2Error > atan2Bound)
+			{
+				throw new IllegalStateException("atan2 of " + y + ", " + x
+						+ " exceeds the error bound " + atan2Bound);
+			}
+		}
+	}
+
+	@Benchmark
+	public double mathSinCos()
+	{
+		double sum = 0;
+		for (int i = 0; i < COUNT; i++)
+		{
+			sum += Math.sin(angles[i]) + Math.cos(angles[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double fastSinCos()
+	{
+		double sum = 0;
+		for (int i = 0; i < COUNT; i++)
+		{
+			sum += FastMath.sin(angles[i]) + FastMath.cos(angles[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double mathAtan2()
+	{
+		double sum = 0;
+		for (int i = 0; i < COUNT; i++)
+		{
+			sum += Math.atan2(ys[i], xs[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double fastAtan2()
+	{
+		double sum = 0;
+		for (int i = 0; i < COUNT; i++)
+		{
+			sum += FastMath.atan2(ys[i], xs[i]);
+		}
+		return sum;
+	}
+}
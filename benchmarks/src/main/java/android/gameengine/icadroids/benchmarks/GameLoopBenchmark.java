@@ -0,0 +1,83 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+import android.gameengine.icadroids.engine.Viewport;
+
+/**
+ * One cycle of the game loop (GameEngine.updateGame) with N bouncing balls,
+ * in the ways the engine can update objects.
+ * <br />
+ * Run with -prof gc to see the allocations per cycle: in the steady state a
+ * cycle should allocate (almost) nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLoopBenchmark
+{
+
+	@Param({ "100", "1000", "10000" })
+	public int objectCount;
+
+	@Param({ "64", "256" })
+	public int mapSize;
+
+	/**
+	 * plain: every object moves in its own update()<br />
+	 * batchTiles: GameEngine.batchTileCollisions<br />
+	 * dataOriented: GameEngine.dataOrientedMovement<br />
+	 * lod: GameEngine.simulationLOD, with the viewport in the top left corner
+	 * of the map
+	 */
+	@Param({ "plain", "batchTiles", "dataOriented", "lod" })
+	public String mode;
+
+	private HeadlessRunner runner;
+
+	@Setup
+	public void setUp()
+	{
+		GameEngine.batchTileCollisions = mode.equals("batchTiles");
+		GameEngine.dataOrientedMovement = mode.equals("dataOriented");
+		GameEngine.simulationLOD = mode.equals("lod");
+		Viewport.useViewport = GameEngine.simulationLOD;
+		runner = new BenchmarkGame(objectCount, mapSize).start();
+		// let the world settle, the first cycles add the objects
+		runner.run(10);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		GameEngine.batchTileCollisions = false;
+		GameEngine.dataOrientedMovement = false;
+		GameEngine.simulationLOD = false;
+		Viewport.useViewport = false;
+	}
+
+	@Benchmark
+	public long updateGame()
+	{
+		runner.tick();
+		return runner.getTicks();
+	}
+}
@@ -0,0 +1,116 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.MoveableGameObject;
+import android.gameengine.icadroids.objects.collisions.ObjectCollision;
+
+/**
+ * Collisions between objects: every object of the game asks
+ * getCollidedObjects() (or collidedWith(), or getSweptCollisions()), with
+ * every broadphase of the GameEngine. The time is for all objects together,
+ * so without a broadphase it grows with the square of the number of objects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectCollisionBenchmark
+{
+
+	@Param({ "100", "1000", "5000", "10000" })
+	public int objectCount;
+
+	@Param({ "64", "256" })
+	public int mapSize;
+
+	/**
+	 * GameEngine.BROADPHASE_NONE, BROADPHASE_SPATIAL_HASH or
+	 * BROADPHASE_AABB_TREE
+	 */
+	@Param({ "0", "1", "2" })
+	public int broadphase;
+
+	private MoveableGameObject[] movers;
+
+	@Setup
+	public void setUp()
+	{
+		GameEngine.collisionBroadphase = broadphase;
+		new BenchmarkGame(objectCount, mapSize).start().run(10);
+		movers = new MoveableGameObject[GameEngine.items.size()];
+		for (int i = 0; i < movers.length; i++)
+		{
+			movers[i] = (MoveableGameObject) GameEngine.items.get(i);
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		GameEngine.collisionBroadphase = GameEngine.BROADPHASE_NONE;
+	}
+
+	@Benchmark
+	public int getCollidedObjects()
+	{
+		int collisions = 0;
+		for (int i = 0; i < movers.length; i++)
+		{
+			ArrayList<GameObject> collided = movers[i].getCollidedObjects();
+			if (collided != null)
+			{
+				collisions += collided.size();
+			}
+		}
+		return collisions;
+	}
+
+	@Benchmark
+	public int collidedWith()
+	{
+		int collisions = 0;
+		for (int i = 0; i < movers.length; i++)
+		{
+			if (movers[i].collidedWith(BenchmarkGame.Ball.class))
+			{
+				collisions++;
+			}
+		}
+		return collisions;
+	}
+
+	@Benchmark
+	public int getSweptCollisions()
+	{
+		int collisions = 0;
+		for (int i = 0; i < movers.length; i++)
+		{
+			List<ObjectCollision> collided = movers[i].getSweptCollisions();
+			if (collided != null)
+			{
+				collisions += collided.size();
+			}
+		}
+		return collisions;
+	}
+}
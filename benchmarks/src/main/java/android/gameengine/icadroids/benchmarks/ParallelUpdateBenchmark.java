@@ -0,0 +1,67 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+
+/**
+ * Scaling of GameEngine.parallelUpdate: one cycle of the game loop with N
+ * objects that implement IParallelUpdate, on 1 (parallel update switched
+ * off) up to 8 threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelUpdateBenchmark
+{
+
+	@Param({ "1000", "10000", "50000" })
+	public int objectCount;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	private HeadlessRunner runner;
+
+	@Setup
+	public void setUp()
+	{
+		GameEngine.parallelUpdate = threads > 1;
+		GameEngine.parallelUpdateThreads = threads;
+		runner = new BenchmarkGame(objectCount, 256,
+				BenchmarkGame.PARALLEL_BALLS, false).start();
+		runner.run(10);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		GameEngine.parallelUpdate = false;
+		GameEngine.parallelUpdateThreads = Runtime.getRuntime()
+				.availableProcessors();
+	}
+
+	@Benchmark
+	public long updateGame()
+	{
+		runner.tick();
+		return runner.getTicks();
+	}
+}
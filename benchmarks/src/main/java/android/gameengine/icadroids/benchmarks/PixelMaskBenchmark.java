@@ -0,0 +1,191 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.graphics.AnimatedSprite;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * Pixel perfect collision of two round sprites at many positions where their
+ * rectangles overlap: with the cached PixelMasks of the sprites
+ * (GameObject.pixelsOverlap), and by comparing the alpha of the pixels with
+ * Bitmap.getPixel, as games did before.
+ * <br />
+ * Note: the bitmap of this benchmark reads its pixels from an array. On a
+ * device Bitmap.getPixel is a native call, which is much slower.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelMaskBenchmark
+{
+
+	/**
+	 * Number of positions checked per operation
+	 */
+	private static final int COUNT = 1000;
+
+	/**
+	 * Width and height of the sprites
+	 */
+	@Param({ "32", "64", "128" })
+	public int size;
+
+	private CircleBitmap bitmap;
+	private GameObject first = new GameObject();
+	private GameObject second = new GameObject();
+
+	/**
+	 * Positions of the second object, relative to the first
+	 */
+	private int[] dx = new int[COUNT];
+	private int[] dy = new int[COUNT];
+
+	/**
+	 * A bitmap with a filled circle in it, everything around it transparent
+	 */
+	static class CircleBitmap extends Bitmap
+	{
+		private final int size;
+		private final int[] pixels;
+
+		CircleBitmap(int size)
+		{
+			this.size = size;
+			pixels = new int[size * size];
+			int radius = size / 2;
+			for (int y = 0; y < size; y++)
+			{
+				for (int x = 0; x < size; x++)
+				{
+					int cx = x - radius;
+					int cy = y - radius;
+					if (cx * cx + cy * cy < radius * radius)
+					{
+						pixels[y * size + x] = 0xFFFF0000;
+					}
+				}
+			}
+		}
+
+		@Override
+		public int getWidth()
+		{
+			return size;
+		}
+
+		@Override
+		public int getHeight()
+		{
+			return size;
+		}
+
+		@Override
+		public int getPixel(int x, int y)
+		{
+			return pixels[y * size + x];
+		}
+
+		@Override
+		public void getPixels(int[] p, int off, int stride, int x, int y,
+				int w, int h)
+		{
+			for (int row = 0; row < h; row++)
+			{
+				System.arraycopy(pixels, (y + row) * size + x, p, off + row
+						* stride, w);
+			}
+		}
+	}
+
+	@Setup
+	public void setUp()
+	{
+		bitmap = new CircleBitmap(size);
+		AnimatedSprite sprite = new AnimatedSprite();
+		sprite.setSprite(bitmap);
+		first.setSprite(sprite);
+		second.setSprite(sprite);
+		first.position.set(0, 0, size, size);
+		Random random = new Random(BenchmarkGame.SEED);
+		for (int i = 0; i < COUNT; i++)
+		{
+			// the rectangles always overlap
+			dx[i] = random.nextInt(2 * size - 1) - size + 1;
+			dy[i] = random.nextInt(2 * size - 1) - size + 1;
+		}
+	}
+
+	@Benchmark
+	public int pixelMasks()
+	{
+		int collisions = 0;
+		for (int i = 0; i < COUNT; i++)
+		{
+			second.position.set(dx[i], dy[i], dx[i] + size, dy[i] + size);
+			if (first.pixelsOverlap(second))
+			{
+				collisions++;
+			}
+		}
+		return collisions;
+	}
+
+	@Benchmark
+	public int getPixel()
+	{
+		int collisions = 0;
+		Rect a = first.position;
+		for (int i = 0; i < COUNT; i++)
+		{
+			second.position.set(dx[i], dy[i], dx[i] + size, dy[i] + size);
+			Rect b = second.position;
+			if (pixelsOverlap(a, b))
+			{
+				collisions++;
+			}
+		}
+		return collisions;
+	}
+
+	/**
+	 * Compare the pixels of the overlap of the rectangles one by one
+	 */
+	private boolean pixelsOverlap(Rect a, Rect b)
+	{
+		int left = Math.max(a.left, b.left);
+		int right = Math.min(a.right, b.right);
+		int top = Math.max(a.top, b.top);
+		int bottom = Math.min(a.bottom, b.bottom);
+		for (int y = top; y < bottom; y++)
+		{
+			for (int x = left; x < right; x++)
+			{
+				if ((bitmap.getPixel(x - a.left, y - a.top) >>> 24) >= 128
+						&& (bitmap.getPixel(x - b.left, y - b.top) >>> 24) >= 128)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
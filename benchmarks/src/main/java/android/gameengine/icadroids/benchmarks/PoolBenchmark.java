@@ -0,0 +1,166 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.HeadlessRunner;
+import android.gameengine.icadroids.objects.IGameObjectFactory;
+import android.gameengine.icadroids.objects.MoveableGameObject;
+
+/**
+ * Steady-state shooting: every cycle a number of bullets is fired, every
+ * bullet lives 30 cycles. The bullets are made with new, or taken from a
+ * GameObjectPool.
+ * <br />
+ * With the pool a cycle should allocate nothing; the setup checks this. Run
+ * with -prof gc to compare the garbage of both ways.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark
+{
+
+	/**
+	 * Number of bullets fired every cycle
+	 */
+	@Param({ "10", "100" })
+	public int rate;
+
+	@Param({ "false", "true" })
+	public boolean pooled;
+
+	private HeadlessRunner runner;
+
+	/**
+	 * A bullet that deletes itself after 30 cycles
+	 */
+	static class Bullet extends MoveableGameObject
+	{
+		private int age = 0;
+
+		Bullet()
+		{
+			setSprite("bullet");
+		}
+
+		@Override
+		public void update()
+		{
+			super.update();
+			age++;
+			if (age == 30)
+			{
+				deleteThisGameObject();
+			}
+		}
+
+		@Override
+		public void reset()
+		{
+			age = 0;
+		}
+	}
+
+	/**
+	 * Fires the bullets
+	 */
+	static class ShootingGame extends BenchmarkGame
+	{
+		private final int rate;
+		private final boolean pooled;
+
+		ShootingGame(int rate, boolean pooled)
+		{
+			super(0, 64);
+			this.rate = rate;
+			this.pooled = pooled;
+		}
+
+		@Override
+		protected void initialize()
+		{
+			super.initialize();
+			if (pooled)
+			{
+				registerPool(Bullet.class, new IGameObjectFactory<Bullet>()
+				{
+					public Bullet create()
+					{
+						return new Bullet();
+					}
+				});
+			}
+		}
+
+		@Override
+		public void update()
+		{
+			for (int i = 0; i < rate; i++)
+			{
+				int x = randomPosition();
+				int y = randomPosition();
+				Bullet bullet;
+				if (pooled)
+				{
+					bullet = acquireGameObject(Bullet.class, x, y);
+				} else
+				{
+					bullet = new Bullet();
+					addGameObject(bullet, x, y);
+				}
+				bullet.setDirectionSpeed(random.nextInt(360), 4);
+			}
+		}
+	}
+
+	@Setup
+	public void setUp()
+	{
+		runner = new ShootingGame(rate, pooled).start();
+		// fill the pool
+		runner.run(100);
+		if (pooled)
+		{
+			checkNoAllocation();
+		}
+	}
+
+	/**
+	 * Check that a cycle with pooled bullets doesn't create garbage
+	 *
+	 * @throws IllegalStateException
+	 *             if a cycle allocated memory
+	 */
+	private void checkNoAllocation()
+	{
+		AllocationCounter.checkNoAllocation(new Runnable()
+		{
+			public void run()
+			{
+				runner.tick();
+			}
+		}, 100, "a cycle firing " + rate + " pooled bullets");
+	}
+
+	@Benchmark
+	public long updateGame()
+	{
+		runner.tick();
+		return runner.getTicks();
+	}
+}
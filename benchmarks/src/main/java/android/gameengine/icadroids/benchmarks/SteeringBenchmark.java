@@ -0,0 +1,127 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.MoveableGameObject;
+
+/**
+ * One cycle of the game loop with N steering objects: every cycle every
+ * object turns towards a moving target, and turns around when it comes too
+ * close. This changes the direction and the x and y speed of every object
+ * every cycle, with or without GameEngine.fastMath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SteeringBenchmark
+{
+
+	@Param({ "1000", "10000" })
+	public int objectCount;
+
+	@Param({ "false", "true" })
+	public boolean fastMath;
+
+	private HeadlessRunner runner;
+
+	/**
+	 * Turns towards the target of the game every cycle
+	 */
+	static class Seeker extends MoveableGameObject
+	{
+		private final SteeringGame game;
+
+		Seeker(SteeringGame game)
+		{
+			this.game = game;
+			setSprite("seeker");
+		}
+
+		@Override
+		public void update()
+		{
+			super.update();
+			moveTowardsAPoint(game.targetX, game.targetY);
+			if (Math.abs(getX() - game.targetX) < BenchmarkGame.TILE_SIZE
+					&& Math.abs(getY() - game.targetY) < BenchmarkGame.TILE_SIZE)
+			{
+				reverseHorizontalDirection();
+				reverseVerticalDirection();
+			}
+		}
+	}
+
+	/**
+	 * Moves the target in a circle around the middle of the world
+	 */
+	static class SteeringGame extends BenchmarkGame
+	{
+		double targetX;
+		double targetY;
+		private int cycle = 0;
+
+		SteeringGame(int objectCount)
+		{
+			super(objectCount, 64, BLOCKS, false);
+		}
+
+		@Override
+		GameObject addObject(float depth)
+		{
+			Seeker seeker = new Seeker(this);
+			seeker.setDirectionSpeed(random.nextInt(360),
+					1 + random.nextInt(4));
+			addGameObject(seeker, randomPosition(), randomPosition(), depth);
+			return seeker;
+		}
+
+		@Override
+		public void update()
+		{
+			double middle = getWorldSize() / 2;
+			double angle = cycle++ * 0.01;
+			targetX = middle + middle / 2 * Math.cos(angle);
+			targetY = middle + middle / 2 * Math.sin(angle);
+		}
+	}
+
+	@Setup
+	public void setUp()
+	{
+		GameEngine.fastMath = fastMath;
+		runner = new SteeringGame(objectCount).start();
+		runner.run(10);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		GameEngine.fastMath = false;
+	}
+
+	@Benchmark
+	public long updateGame()
+	{
+		runner.tick();
+		return runner.getTicks();
+	}
+}
@@ -0,0 +1,162 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.objects.collisions.CollidingObject;
+import android.gameengine.icadroids.objects.collisions.ICollision;
+import android.gameengine.icadroids.objects.collisions.TileCollision;
+import android.gameengine.icadroids.objects.graphics.Sprite;
+import android.gameengine.icadroids.platform.HeadlessBitmapLoader;
+import android.gameengine.icadroids.platform.Platform;
+import android.gameengine.icadroids.tiles.GameTiles;
+import android.gameengine.icadroids.tiles.Tile;
+
+/**
+ * The tile map: finding the tile collisions of moves
+ * (CollidingObject.calculateCollision) and finding tiles on positions
+ * (GameTiles.getTileOnPosition), for a map stored as Tile objects and for a
+ * compact map.
+ * <br />
+ * The setup checks that calculateCollision allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileBenchmark
+{
+
+	/**
+	 * Number of moves and positions checked per operation
+	 */
+	@Param({ "100", "1000", "10000" })
+	public int objectCount;
+
+	@Param({ "64", "256", "1024" })
+	public int mapSize;
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	private GameTiles gameTiles;
+	private Sprite sprite;
+	private CollidingObject collidingObject = new CollidingObject();
+
+	/**
+	 * Start and end positions of the moves, also used as the positions of
+	 * getTileOnPosition
+	 */
+	private double[] startX;
+	private double[] startY;
+	private double[] endX;
+	private double[] endY;
+
+	/**
+	 * Counts the collisions, so they can't be optimized away
+	 */
+	private int collisions = 0;
+
+	private ICollision counter = new ICollision()
+	{
+		public void collisionOccurred(List<TileCollision> collidedTiles)
+		{
+			collisions += collidedTiles.size();
+		}
+	};
+
+	@Setup
+	public void setUp()
+	{
+		Platform.setHeadless(true);
+		Platform.setBitmapLoader(new HeadlessBitmapLoader(
+				BenchmarkGame.SPRITE_SIZE, BenchmarkGame.SPRITE_SIZE));
+		sprite = new Sprite("ball");
+		gameTiles = new GameTiles(new String[] { "wall" },
+				BenchmarkGame.createMap(mapSize, new Random(BenchmarkGame.SEED)),
+				BenchmarkGame.TILE_SIZE, compact);
+		Random random = new Random(BenchmarkGame.SEED);
+		int worldSize = mapSize * BenchmarkGame.TILE_SIZE;
+		startX = new double[objectCount];
+		startY = new double[objectCount];
+		endX = new double[objectCount];
+		endY = new double[objectCount];
+		for (int i = 0; i < objectCount; i++)
+		{
+			startX[i] = random.nextDouble() * worldSize;
+			startY[i] = random.nextDouble() * worldSize;
+			// the speeds of the balls of the other benchmarks
+			double angle = random.nextDouble() * 2 * Math.PI;
+			double speed = 1 + random.nextInt(4);
+			endX[i] = startX[i] + speed * Math.cos(angle);
+			endY[i] = startY[i] + speed * Math.sin(angle);
+		}
+		checkNoAllocation();
+	}
+
+	/**
+	 * Check that calculateCollision doesn't create garbage once its
+	 * collision list and the Tile objects of a compact map are filled
+	 *
+	 * @throws IllegalStateException
+	 *             if calculateCollision allocated memory
+	 */
+	private void checkNoAllocation()
+	{
+		Runnable moves = new Runnable()
+		{
+			public void run()
+			{
+				calculateCollision();
+			}
+		};
+		for (int i = 0; i < 10; i++)
+		{
+			moves.run();
+		}
+		AllocationCounter.checkNoAllocation(moves, 10,
+				"calculateCollision of " + objectCount + " moves");
+	}
+
+	@Benchmark
+	public int calculateCollision()
+	{
+		for (int i = 0; i < objectCount; i++)
+		{
+			collidingObject.calculateCollision(endX[i], endY[i], startX[i],
+					startY[i], sprite, gameTiles, counter);
+		}
+		return collisions;
+	}
+
+	@Benchmark
+	public int getTileOnPosition()
+	{
+		int found = 0;
+		for (int i = 0; i < objectCount; i++)
+		{
+			Tile tile = gameTiles.getTileOnPosition((int) startX[i],
+					(int) startY[i]);
+			if (tile != null)
+			{
+				found++;
+			}
+		}
+		return found;
+	}
+}
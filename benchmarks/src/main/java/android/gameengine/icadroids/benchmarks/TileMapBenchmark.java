@@ -0,0 +1,60 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.platform.HeadlessBitmapLoader;
+import android.gameengine.icadroids.platform.Platform;
+import android.gameengine.icadroids.tiles.GameTiles;
+
+/**
+ * Making a tile map, stored as Tile objects or compactly.
+ * <br />
+ * Run with -prof gc: the allocations per operation (gc.alloc.rate.norm) are
+ * about the memory used by a map of the size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileMapBenchmark
+{
+
+	@Param({ "64", "256", "1024" })
+	public int mapSize;
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	private int[][] map;
+
+	@Setup
+	public void setUp()
+	{
+		Platform.setHeadless(true);
+		Platform.setBitmapLoader(new HeadlessBitmapLoader(
+				BenchmarkGame.SPRITE_SIZE, BenchmarkGame.SPRITE_SIZE));
+		map = BenchmarkGame.createMap(mapSize, new Random(BenchmarkGame.SEED));
+	}
+
+	@Benchmark
+	public GameTiles createMap()
+	{
+		return new GameTiles(new String[] { "wall" }, map,
+				BenchmarkGame.TILE_SIZE, compact);
+	}
+}
@@ -0,0 +1,77 @@
+package android.gameengine.icadroids.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.engine.HeadlessRunner;
+import android.gameengine.icadroids.engine.Viewport;
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.MoveableGameObject;
+
+/**
+ * Viewport.isInViewport for all objects of the game, with the viewport
+ * following one of the balls. The bigger the map, the fewer objects are
+ * visible.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewportBenchmark
+{
+
+	@Param({ "100", "1000", "10000" })
+	public int objectCount;
+
+	@Param({ "64", "256" })
+	public int mapSize;
+
+	private Viewport viewport;
+
+	@Setup
+	public void setUp()
+	{
+		Viewport.useViewport = true;
+		HeadlessRunner runner = new BenchmarkGame(objectCount, mapSize).start();
+		runner.tick();
+		runner.getGame().setPlayer((MoveableGameObject) GameEngine.items.get(0));
+		runner.run(10);
+		viewport = Viewport.getInstance();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		Viewport.useViewport = false;
+	}
+
+	@Benchmark
+	public int isInViewport()
+	{
+		int visible = 0;
+		for (int i = 0; i < GameEngine.items.size(); i++)
+		{
+			GameObject item = GameEngine.items.get(i);
+			if (viewport.isInViewport(item))
+			{
+				visible++;
+			}
+		}
+		return visible;
+	}
+}
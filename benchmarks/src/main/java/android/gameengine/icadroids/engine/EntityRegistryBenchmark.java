@@ -0,0 +1,148 @@
+package android.gameengine.icadroids.engine;
+
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The EntityRegistry that holds the objects of the GameEngine, compared with
+ * the Vector it replaced: looping through all objects, and removing a
+ * percentage of the objects and adding as many (the way the GameEngine did
+ * with the Vector, one removeElement per object).
+ * <br />
+ * This benchmark is in the package of the engine, because the registry
+ * changes only through package methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityRegistryBenchmark
+{
+
+	@Param({ "1000", "10000", "100000" })
+	public int objectCount;
+
+	/**
+	 * Percentage of the objects replaced by the churn benchmarks
+	 */
+	@Param({ "1", "10" })
+	public int churn;
+
+	private Vector<Integer> vector;
+	private EntityRegistry<Integer> registry;
+
+	/**
+	 * For every index: true if the object there is replaced
+	 */
+	private boolean[] marked;
+
+	/**
+	 * The objects that are replaced
+	 */
+	private Integer[] replaced;
+
+	@Setup
+	public void setUp()
+	{
+		vector = new Vector<Integer>();
+		registry = new EntityRegistry<Integer>();
+		for (int i = 0; i < objectCount; i++)
+		{
+			Integer value = Integer.valueOf(i);
+			vector.addElement(value);
+			registry.addElement(value);
+		}
+		Random random = new Random(objectCount);
+		marked = new boolean[objectCount];
+		int n = 0;
+		for (int i = 0; i < objectCount; i++)
+		{
+			if (random.nextInt(100) < churn)
+			{
+				marked[i] = true;
+				n++;
+			}
+		}
+		replaced = new Integer[n];
+	}
+
+	@Benchmark
+	public long iterateVector()
+	{
+		long sum = 0;
+		for (int i = 0; i < vector.size(); i++)
+		{
+			sum += vector.get(i).intValue();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long iterateRegistry()
+	{
+		long sum = 0;
+		for (int i = 0; i < registry.size(); i++)
+		{
+			sum += registry.get(i).intValue();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int churnVector()
+	{
+		// other objects are at the marked indices every call, the amount of
+		// work stays the same
+		int n = 0;
+		for (int i = 0; i < objectCount; i++)
+		{
+			if (marked[i])
+			{
+				replaced[n++] = vector.get(i);
+			}
+		}
+		for (int i = 0; i < n; i++)
+		{
+			vector.removeElement(replaced[i]);
+		}
+		for (int i = 0; i < n; i++)
+		{
+			vector.addElement(replaced[i]);
+		}
+		return vector.size();
+	}
+
+	@Benchmark
+	public int churnRegistry()
+	{
+		int n = 0;
+		for (int i = 0; i < objectCount; i++)
+		{
+			if (marked[i])
+			{
+				replaced[n++] = registry.get(i);
+			}
+		}
+		registry.removeMarked(marked);
+		for (int i = 0; i < n; i++)
+		{
+			registry.addElement(replaced[i]);
+		}
+		return registry.size();
+	}
+}
@@ -0,0 +1,22 @@
+package android.GameAPI.ICA_DROID;
+
+public final class R {
+
+	public static final class id {
+		public static final int buttonA = 0x7f050000;
+		public static final int buttonB = 0x7f050001;
+		public static final int buttonX = 0x7f050002;
+		public static final int buttonY = 0x7f050003;
+		public static final int dpadUp = 0x7f050004;
+		public static final int dpadDown = 0x7f050005;
+		public static final int dpadLeft = 0x7f050006;
+		public static final int dpadRight = 0x7f050007;
+		public static final int dpadCenter = 0x7f050008;
+		public static final int buttonSelect = 0x7f050009;
+		public static final int buttonStart = 0x7f05000a;
+	}
+
+	public static final class layout {
+		public static final int onscreenbuttons = 0x7f030000;
+	}
+}
@@ -0,0 +1,63 @@
+package android.app;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.Window;
+
+public class Activity extends Context {
+
+	protected void onCreate(Bundle b) {
+	}
+
+	protected void onResume() {
+	}
+
+	protected void onPause() {
+	}
+
+	protected void onDestroy() {
+	}
+
+	protected void onStart() {
+	}
+
+	protected void onStop() {
+	}
+
+	public boolean requestWindowFeature(int f) {
+		return true;
+	}
+
+	public Window getWindow() {
+		return null;
+	}
+
+	public void setContentView(View v) {
+	}
+
+	public void setContentView(int i) {
+	}
+
+	public void finish() {
+	}
+
+	public void setRequestedOrientation(int o) {
+	}
+
+	public void runOnUiThread(Runnable r) {
+	}
+
+	public LayoutInflater getLayoutInflater() {
+		return null;
+	}
+
+	public View findViewById(int i) {
+		return null;
+	}
+
+	public void addContentView(View v, ViewGroup.LayoutParams p) {
+	}
+}
@@ -0,0 +1,47 @@
+package android.content;
+
+public abstract class Context {
+
+	public static final int MODE_PRIVATE = 0, MODE_APPEND = 32768;
+
+	public static final String VIBRATOR_SERVICE="vibrator", INPUT_METHOD_SERVICE="input_method", AUDIO_SERVICE="audio", SENSOR_SERVICE="sensor";
+
+	public java.io.File getFilesDir() {
+		return null;
+	}
+
+	public android.content.res.Resources getResources() {
+		return null;
+	}
+
+	public String getPackageName() {
+		return null;
+	}
+
+	public Object getSystemService(String s) {
+		return null;
+	}
+
+	public Context getApplicationContext() {
+		return null;
+	}
+
+	public SharedPreferences getSharedPreferences(String s, int m) {
+		return null;
+	}
+
+	public java.io.FileOutputStream openFileOutput(String n, int m) throws java.io.FileNotFoundException {
+		return null;
+	}
+
+	public java.io.FileInputStream openFileInput(String n) throws java.io.FileNotFoundException {
+		return null;
+	}
+
+	public void startActivity(Intent i) {
+	}
+
+	public String getString(int i) {
+		return null;
+	}
+}
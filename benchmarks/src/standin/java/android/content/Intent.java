@@ -0,0 +1,13 @@
+package android.content;
+
+public class Intent {
+
+	public Intent() {
+	}
+
+	public Intent(Context c, Class<?> k) {
+	}
+
+	public Intent(String a, android.net.Uri u) {
+	}
+}
@@ -0,0 +1,6 @@
+package android.content.pm;
+
+public class ActivityInfo {
+
+	public static final int SCREEN_ORIENTATION_LANDSCAPE = 0, SCREEN_ORIENTATION_PORTRAIT = 1;
+}
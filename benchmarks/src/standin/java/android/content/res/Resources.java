@@ -0,0 +1,12 @@
+package android.content.res;
+
+public class Resources {
+
+	public int getIdentifier(String a, String b, String c) {
+		return 0;
+	}
+
+	public String getResourceEntryName(int i) {
+		return null;
+	}
+}
@@ -0,0 +1,57 @@
+package android.graphics;
+
+public class Bitmap {
+
+	public static enum Config {
+		ARGB_8888, RGB_565, ARGB_4444, ALPHA_8
+	}
+
+	public int getWidth() {
+		return 0;
+	}
+
+	public int getHeight() {
+		return 0;
+	}
+
+	public int getPixel(int x, int y) {
+		return 0;
+	}
+
+	public void getPixels(int[] p, int off, int stride, int x, int y, int w, int h) {
+	}
+
+	public static Bitmap createBitmap(int w, int h, Config c) {
+		return new Bitmap();
+	}
+
+	public static Bitmap createBitmap(Bitmap b, int x, int y, int w, int h) {
+		return new Bitmap();
+	}
+
+	public void recycle() {
+	}
+
+	public boolean isRecycled() {
+		return false;
+	}
+
+	public int getRowBytes() {
+		return 0;
+	}
+
+	public int getByteCount() {
+		return 0;
+	}
+
+	public void eraseColor(int c) {
+	}
+
+	public boolean hasAlpha() {
+		return true;
+	}
+
+	public Config getConfig() {
+		return Config.ARGB_8888;
+	}
+}
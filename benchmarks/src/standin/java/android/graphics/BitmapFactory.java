@@ -0,0 +1,18 @@
+package android.graphics;
+
+public class BitmapFactory {
+
+	public static Bitmap decodeResource(android.content.res.Resources r, int id) {
+		return null;
+	}
+
+	public static Bitmap decodeResource(android.content.res.Resources r, int id, Options o) {
+		return null;
+	}
+
+	public static class Options {
+		public boolean inScaled;
+
+		public Bitmap.Config inPreferredConfig;
+	}
+}
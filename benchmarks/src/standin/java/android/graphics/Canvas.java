@@ -0,0 +1,75 @@
+package android.graphics;
+
+public class Canvas {
+
+	public Canvas() {
+	}
+
+	public Canvas(Bitmap b) {
+	}
+
+	public void drawBitmap(Bitmap b, Rect s, Rect d, Paint p) {
+	}
+
+	public void drawBitmap(Bitmap b, Rect s, RectF d, Paint p) {
+	}
+
+	public void drawBitmap(Bitmap b, float x, float y, Paint p) {
+	}
+
+	public void drawBitmap(Bitmap b, Matrix m, Paint p) {
+	}
+
+	public void drawColor(int c) {
+	}
+
+	public void drawRect(float a, float b, float c, float d, Paint p) {
+	}
+
+	public void drawRect(Rect r, Paint p) {
+	}
+
+	public void drawText(String s, float x, float y, Paint p) {
+	}
+
+	public void drawCircle(float x, float y, float r, Paint p) {
+	}
+
+	public void drawLine(float a, float b, float c, float d, Paint p) {
+	}
+
+	public void setMatrix(Matrix m) {
+	}
+
+	public void translate(float x, float y) {
+	}
+
+	public void scale(float x, float y) {
+	}
+
+	public int save() {
+		return 0;
+	}
+
+	public void restore() {
+	}
+
+	public boolean clipRect(Rect r) {
+		return true;
+	}
+
+	public void setBitmap(Bitmap b) {
+	}
+
+	public boolean getClipBounds(Rect r) {
+		return true;
+	}
+
+	public int getWidth() {
+		return 0;
+	}
+
+	public int getHeight() {
+		return 0;
+	}
+}
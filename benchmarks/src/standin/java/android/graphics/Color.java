@@ -0,0 +1,18 @@
+package android.graphics;
+
+public class Color {
+
+	public static final int LTGRAY = 0, RED = 1, BLUE = 2, BLACK = 3, WHITE = 4, TRANSPARENT = 0, GREEN = 5, YELLOW = 6, GRAY = 7, CYAN = 8, MAGENTA = 9, DKGRAY = 10;
+
+	public static int argb(int a, int r, int g, int b) {
+		return 0;
+	}
+
+	public static int rgb(int r, int g, int b) {
+		return 0;
+	}
+
+	public static int alpha(int c) {
+		return c >>> 24;
+	}
+}
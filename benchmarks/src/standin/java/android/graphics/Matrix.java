@@ -0,0 +1,15 @@
+package android.graphics;
+
+public class Matrix {
+
+	public void reset() {
+	}
+
+	public boolean postScale(float a, float b) {
+		return true;
+	}
+
+	public boolean postTranslate(float a, float b) {
+		return true;
+	}
+}
@@ -0,0 +1,43 @@
+package android.graphics;
+
+public class Paint {
+
+	public static enum Style {
+		STROKE, FILL
+	}
+
+	public Paint() {
+	}
+
+	public Paint(int f) {
+	}
+
+	public static final int ANTI_ALIAS_FLAG = 1, FILTER_BITMAP_FLAG = 2;
+
+	public void setARGB(int a, int r, int g, int b) {
+	}
+
+	public void setStrokeWidth(float f) {
+	}
+
+	public void setStrokeMiter(float f) {
+	}
+
+	public void setColor(int c) {
+	}
+
+	public void setStyle(Style s) {
+	}
+
+	public void setTextSize(float f) {
+	}
+
+	public void setAlpha(int a) {
+	}
+
+	public void setFilterBitmap(boolean b) {
+	}
+
+	public void setAntiAlias(boolean b) {
+	}
+}
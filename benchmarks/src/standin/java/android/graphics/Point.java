@@ -0,0 +1,14 @@
+package android.graphics;
+
+public class Point {
+
+	public int x, y;
+
+	public Point() {
+	}
+
+	public Point(int x, int y) {
+		this.x = x;
+		this.y = y;
+	}
+}
@@ -0,0 +1,123 @@
+package android.graphics;
+
+public class Rect {
+
+	public int left, top, right, bottom;
+
+	public Rect() {
+	}
+
+	public Rect(int l, int t, int r, int b) {
+		left = l;
+		top = t;
+		right = r;
+		bottom = b;
+	}
+
+	public Rect(Rect r) {
+		set(r.left, r.top, r.right, r.bottom);
+	}
+
+	public void set(int l, int t, int r, int b) {
+		left = l;
+		top = t;
+		right = r;
+		bottom = b;
+	}
+
+	public void set(Rect r) {
+		set(r.left, r.top, r.right, r.bottom);
+	}
+
+	public int width() {
+		return right - left;
+	}
+
+	public int height() {
+		return bottom - top;
+	}
+
+	public boolean isEmpty() {
+		return left >= right || top >= bottom;
+	}
+
+	public void offset(int dx, int dy) {
+		left += dx;
+		right += dx;
+		top += dy;
+		bottom += dy;
+	}
+
+	public void offsetTo(int x, int y) {
+		right += x - left;
+		bottom += y - top;
+		left = x;
+		top = y;
+	}
+
+	public boolean contains(int x, int y) {
+		return left < right && top < bottom && x >= left && x < right && y >= top && y < bottom;
+	}
+
+	public void union(Rect r) {
+		if (r.left < left) {
+			left = r.left;
+		}
+		if (r.top < top) {
+			top = r.top;
+		}
+		if (r.right > right) {
+			right = r.right;
+		}
+		if (r.bottom > bottom) {
+			bottom = r.bottom;
+		}
+	}
+
+	public void union(int l, int t, int r, int b) {
+		union(new Rect(l, t, r, b));
+	}
+
+	public boolean contains(Rect r) {
+		return left < right && top < bottom && left <= r.left && top <= r.top && right >= r.right && bottom >= r.bottom;
+	}
+
+	public boolean intersect(Rect r) {
+		if (!intersects(this, r)) {
+			return false;
+		}
+		if (left < r.left) {
+			left = r.left;
+		}
+		if (top < r.top) {
+			top = r.top;
+		}
+		if (right > r.right) {
+			right = r.right;
+		}
+		if (bottom > r.bottom) {
+			bottom = r.bottom;
+		}
+		return true;
+	}
+
+	public void setEmpty() {
+		left = top = right = bottom = 0;
+	}
+
+	public static boolean intersects(Rect a, Rect b) {
+		return a.left < b.right && b.left < a.right && a.top < b.bottom && b.top < a.bottom;
+	}
+
+	public boolean intersects(int l, int t, int r, int b) {
+		return left < r && l < right && top < b && t < bottom;
+	}
+
+	public int centerX() {
+		return (left + right) >> 1;
+	}
+
+	public int centerY() {
+		return (top + bottom) >> 1;
+	}
+}
@@ -0,0 +1,12 @@
+package android.graphics;
+
+public class RectF {
+
+	public float left, top, right, bottom;
+
+	public RectF() {
+	}
+
+	public RectF(float l, float t, float r, float b) {
+	}
+}
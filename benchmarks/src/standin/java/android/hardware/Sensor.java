@@ -0,0 +1,10 @@
+package android.hardware;
+
+public class Sensor {
+
+	public static final int TYPE_ACCELEROMETER = 1, TYPE_ORIENTATION = 3, TYPE_MAGNETIC_FIELD = 2;
+
+	public int getType() {
+		return 0;
+	}
+}
@@ -0,0 +1,10 @@
+package android.hardware;
+
+public class SensorEvent {
+
+	public float[] values;
+
+	public Sensor sensor;
+
+	public long timestamp;
+}
@@ -0,0 +1,8 @@
+package android.hardware;
+
+public interface SensorEventListener {
+
+	void onAccuracyChanged(Sensor s, int a);
+
+	void onSensorChanged(SensorEvent e);
+}
@@ -0,0 +1,34 @@
+package android.hardware;
+
+public class SensorManager {
+
+	public static final int SENSOR_DELAY_GAME = 1, SENSOR_DELAY_NORMAL = 3, SENSOR_DELAY_UI = 2, SENSOR_DELAY_FASTEST = 0;
+
+	public static final float GRAVITY_EARTH = 9.8f;
+
+	public Sensor getDefaultSensor(int t) {
+		return null;
+	}
+
+	public java.util.List<Sensor> getSensorList(int t) {
+		return null;
+	}
+
+	public boolean registerListener(SensorEventListener l, Sensor s, int r) {
+		return true;
+	}
+
+	public void unregisterListener(SensorEventListener l) {
+	}
+
+	public void unregisterListener(SensorEventListener l, Sensor s) {
+	}
+
+	public static boolean getRotationMatrix(float[] a, float[] b, float[] c, float[] d) {
+		return true;
+	}
+
+	public static float[] getOrientation(float[] a, float[] b) {
+		return b;
+	}
+}
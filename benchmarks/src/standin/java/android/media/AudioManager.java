@@ -0,0 +1,23 @@
+package android.media;
+
+public class AudioManager {
+
+	public static final int STREAM_MUSIC = 3;
+
+	public int getStreamVolume(int s) {
+		return 0;
+	}
+
+	public int getStreamMaxVolume(int s) {
+		return 0;
+	}
+
+	public void unloadSoundEffects() {
+	}
+
+	public void loadSoundEffects() {
+	}
+
+	public void setStreamVolume(int a, int b, int c) {
+	}
+}
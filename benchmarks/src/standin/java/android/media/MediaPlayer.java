@@ -0,0 +1,62 @@
+package android.media;
+
+import android.content.Context;
+
+public class MediaPlayer {
+
+	public static MediaPlayer create(Context c, int r) {
+		return null;
+	}
+
+	public void start() {
+	}
+
+	public void pause() {
+	}
+
+	public void stop() {
+	}
+
+	public void release() {
+	}
+
+	public void setLooping(boolean b) {
+	}
+
+	public boolean isPlaying() {
+		return false;
+	}
+
+	public void setVolume(float a, float b) {
+	}
+
+	public void prepare() {
+	}
+
+	public void seekTo(int i) {
+	}
+
+	public void reset() {
+	}
+
+	public void setAudioStreamType(int i) {
+	}
+
+	public void setOnCompletionListener(OnCompletionListener l) {
+	}
+
+	public interface OnCompletionListener {
+		void onCompletion(MediaPlayer m);
+	}
+
+	public void setDataSource(Context c, android.net.Uri u) {
+	}
+
+	public int getDuration() {
+		return 0;
+	}
+
+	public int getCurrentPosition() {
+		return 0;
+	}
+}
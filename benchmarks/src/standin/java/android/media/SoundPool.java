@@ -0,0 +1,48 @@
+package android.media;
+
+import android.content.Context;
+
+public class SoundPool {
+
+	public SoundPool(int a, int b, int c) {
+	}
+
+	public int load(Context c, int r, int p) {
+		return 0;
+	}
+
+	public int play(int a, float b, float c, int d, int e, float f) {
+		return 0;
+	}
+
+	public void pause(int a) {
+	}
+
+	public void resume(int a) {
+	}
+
+	public void stop(int a) {
+	}
+
+	public void release() {
+	}
+
+	public void autoPause() {
+	}
+
+	public void autoResume() {
+	}
+
+	public boolean unload(int i) {
+		return true;
+	}
+
+	public void setVolume(int id, float l, float r) {
+	}
+
+	public void setLoop(int id, int l) {
+	}
+
+	public void setRate(int id, float r) {
+	}
+}
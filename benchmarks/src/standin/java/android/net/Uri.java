@@ -0,0 +1,8 @@
+package android.net;
+
+public class Uri {
+
+	public static Uri parse(String s) {
+		return null;
+	}
+}
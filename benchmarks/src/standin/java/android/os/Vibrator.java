@@ -0,0 +1,10 @@
+package android.os;
+
+public class Vibrator {
+
+	public void vibrate(long[] p, int r) {
+	}
+
+	public void vibrate(long ms) {
+	}
+}
@@ -0,0 +1,16 @@
+package android.util;
+
+public class FloatMath {
+
+	public static float sqrt(float f) {
+		return 0;
+	}
+
+	public static float sin(float f) {
+		return 0;
+	}
+
+	public static float cos(float f) {
+		return 0;
+	}
+}
@@ -0,0 +1,36 @@
+package android.util;
+
+public class Log {
+
+	public static int d(String a, String b) {
+		return 0;
+	}
+
+	public static int i(String a, String b) {
+		return 0;
+	}
+
+	public static int w(String a, String b) {
+		return 0;
+	}
+
+	public static int e(String a, String b) {
+		return 0;
+	}
+
+	public static int e(String a, String b, Throwable t) {
+		return 0;
+	}
+
+	public static int wtf(String a, String b, Throwable t) {
+		return 0;
+	}
+
+	public static int wtf(String a, String b) {
+		return 0;
+	}
+
+	public static int v(String a, String b) {
+		return 0;
+	}
+}
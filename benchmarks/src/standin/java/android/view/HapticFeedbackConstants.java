@@ -0,0 +1,6 @@
+package android.view;
+
+public class HapticFeedbackConstants {
+
+	public static final int VIRTUAL_KEY = 1, LONG_PRESS = 0, KEYBOARD_TAP = 3;
+}
@@ -0,0 +1,12 @@
+package android.view;
+
+public class LayoutInflater {
+
+	public View inflate(int r, ViewGroup g) {
+		return null;
+	}
+
+	public View inflate(int r, ViewGroup g, boolean b) {
+		return null;
+	}
+}
@@ -0,0 +1,54 @@
+package android.view;
+
+public class MotionEvent {
+
+	public static final int ACTION_DOWN = 0, ACTION_UP = 1, ACTION_MOVE = 2, ACTION_CANCEL = 3, ACTION_POINTER_DOWN = 5, ACTION_POINTER_UP = 6, ACTION_MASK = 255, ACTION_POINTER_ID_MASK = 65280, ACTION_POINTER_ID_SHIFT = 8, ACTION_POINTER_INDEX_MASK = 65280, ACTION_POINTER_INDEX_SHIFT = 8;
+
+	public int getAction() {
+		return 0;
+	}
+
+	public float getX() {
+		return 0;
+	}
+
+	public float getY() {
+		return 0;
+	}
+
+	public float getX(int i) {
+		return 0;
+	}
+
+	public float getY(int i) {
+		return 0;
+	}
+
+	public int getPointerCount() {
+		return 0;
+	}
+
+	public int getPointerId(int i) {
+		return 0;
+	}
+
+	public int findPointerIndex(int i) {
+		return 0;
+	}
+
+	public int getActionMasked() {
+		return 0;
+	}
+
+	public int getActionIndex() {
+		return 0;
+	}
+
+	public float getRawX() {
+		return 0;
+	}
+
+	public float getRawY() {
+		return 0;
+	}
+}
@@ -0,0 +1,23 @@
+package android.view;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+public interface SurfaceHolder {
+
+	public Canvas lockCanvas();
+
+	public Canvas lockCanvas(Rect r);
+
+	public void unlockCanvasAndPost(Canvas c);
+
+	public void addCallback(Callback c);
+
+	public interface Callback {
+		void surfaceCreated(SurfaceHolder h);
+
+		void surfaceChanged(SurfaceHolder h, int f, int w, int hh);
+
+		void surfaceDestroyed(SurfaceHolder h);
+	}
+}
@@ -0,0 +1,14 @@
+package android.view;
+
+import android.content.Context;
+
+public class SurfaceView extends View {
+
+	public SurfaceView(Context c) {
+		super(c);
+	}
+
+	public SurfaceHolder getHolder() {
+		return null;
+	}
+}
@@ -0,0 +1,159 @@
+package android.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+
+public class View {
+
+	public View(Context c) {
+	}
+
+	public View(Context c, AttributeSet a) {
+	}
+
+	public static final int VISIBLE = 0, INVISIBLE = 4, GONE = 8;
+
+	public interface OnTouchListener {
+		boolean onTouch(View v, MotionEvent e);
+	}
+
+	public interface OnClickListener {
+		void onClick(View v);
+	}
+
+	public void setOnTouchListener(OnTouchListener l) {
+	}
+
+	public void setOnClickListener(OnClickListener l) {
+	}
+
+	public void setFocusable(boolean b) {
+	}
+
+	public void setKeepScreenOn(boolean b) {
+	}
+
+	public void setVisibility(int v) {
+	}
+
+	public int getWidth() {
+		return 0;
+	}
+
+	public int getHeight() {
+		return 0;
+	}
+
+	public boolean performHapticFeedback(int i) {
+		return true;
+	}
+
+	public void setBackgroundColor(int c) {
+	}
+
+	public void setPadding(int a, int b, int c, int d) {
+	}
+
+	public void setLayoutParams(ViewGroup.LayoutParams p) {
+	}
+
+	public ViewGroup.LayoutParams getLayoutParams() {
+		return null;
+	}
+
+	public void invalidate() {
+	}
+
+	public void postInvalidate() {
+	}
+
+	public Context getContext() {
+		return null;
+	}
+
+	public void setId(int i) {
+	}
+
+	public int getId() {
+		return 0;
+	}
+
+	public View findViewById(int i) {
+		return null;
+	}
+
+	public android.view.ViewParent getParent() {
+		return null;
+	}
+
+	public void setMinimumWidth(int w) {
+	}
+
+	public void setMinimumHeight(int h) {
+	}
+
+	public void setBackgroundResource(int r) {
+	}
+
+	public void setX(float x) {
+	}
+
+	public void setY(float y) {
+	}
+
+	public boolean post(Runnable r) {
+		return true;
+	}
+
+	public void bringToFront() {
+	}
+
+	public void setEnabled(boolean b) {
+	}
+
+	public void setHapticFeedbackEnabled(boolean b) {
+	}
+
+	public void requestLayout() {
+	}
+
+	public void setAlpha(float a) {
+	}
+
+	public void setTag(Object o) {
+	}
+
+	public Object getTag() {
+		return null;
+	}
+
+	public boolean requestFocus() {
+		return true;
+	}
+
+	public void setFocusableInTouchMode(boolean b) {
+	}
+
+	public int getVisibility() {
+		return 0;
+	}
+
+	public void setBackgroundDrawable(Object d) {
+	}
+
+	public android.content.res.Resources getResources() {
+		return null;
+	}
+
+	protected void onDraw(Canvas c) {
+	}
+
+	public boolean onTouchEvent(MotionEvent e) {
+		return false;
+	}
+
+	public java.util.ArrayList<View> getTouchables() {
+		return null;
+	}
+}
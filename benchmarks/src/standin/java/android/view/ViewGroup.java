@@ -0,0 +1,58 @@
+package android.view;
+
+import android.content.Context;
+
+public class ViewGroup extends View implements ViewManager {
+
+	public ViewGroup(Context c) {
+		super(c);
+	}
+
+	public static class LayoutParams {
+		public static final int MATCH_PARENT = -1, FILL_PARENT = -1, WRAP_CONTENT = -2;
+
+		public int width, height;
+
+		public LayoutParams(int w, int h) {
+			width = w;
+			height = h;
+		}
+	}
+
+	public static class MarginLayoutParams extends LayoutParams {
+		public int leftMargin, topMargin, rightMargin, bottomMargin;
+
+		public MarginLayoutParams(int w, int h) {
+			super(w, h);
+		}
+
+		public void setMargins(int a, int b, int c, int d) {
+		}
+	}
+
+	public void addView(View v) {
+	}
+
+	public void addView(View v, LayoutParams p) {
+	}
+
+	public void addView(View v, int i) {
+	}
+
+	public void removeView(View v) {
+	}
+
+	public void removeAllViews() {
+	}
+
+	public void updateViewLayout(View v, LayoutParams p) {
+	}
+
+	public int getChildCount() {
+		return 0;
+	}
+
+	public View getChildAt(int i) {
+		return null;
+	}
+}
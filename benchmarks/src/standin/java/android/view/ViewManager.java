@@ -0,0 +1,10 @@
+package android.view;
+
+public interface ViewManager {
+
+	public void addView(View v, ViewGroup.LayoutParams p);
+
+	public void updateViewLayout(View v, ViewGroup.LayoutParams p);
+
+	public void removeView(View v);
+}
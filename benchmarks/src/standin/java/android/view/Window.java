@@ -0,0 +1,16 @@
+package android.view;
+
+public class Window {
+
+	public static final int FEATURE_NO_TITLE = 1;
+
+	public void setFlags(int a, int b) {
+	}
+
+	public WindowManager getWindowManager() {
+		return null;
+	}
+
+	public void addContentView(View v, ViewGroup.LayoutParams p) {
+	}
+}
@@ -0,0 +1,14 @@
+package android.view;
+
+public interface WindowManager extends ViewManager {
+
+	public Display getDefaultDisplay();
+
+	public static class LayoutParams extends ViewGroup.LayoutParams {
+		public LayoutParams() {
+			super(0, 0);
+		}
+
+		public static final int FLAG_FULLSCREEN = 1, SOFT_INPUT_ADJUST_UNSPECIFIED = 0, SOFT_INPUT_ADJUST_PAN = 32;
+	}
+}
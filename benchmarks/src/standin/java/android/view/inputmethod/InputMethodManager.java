@@ -0,0 +1,9 @@
+package android.view.inputmethod;
+
+public class InputMethodManager {
+
+	public static final int SHOW_FORCED = 2, HIDE_IMPLICIT_ONLY = 1;
+
+	public void toggleSoftInput(int a, int b) {
+	}
+}
@@ -0,0 +1,14 @@
+package android.widget;
+
+import android.content.Context;
+
+public class EditText extends TextView {
+
+	public EditText(Context c) {
+		super(c);
+	}
+
+	public android.text.Editable getText() {
+		return null;
+	}
+}
@@ -0,0 +1,34 @@
+package android.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.view.View;
+
+public class ImageView extends View {
+
+	public ImageView(Context c) {
+		super(c);
+	}
+
+	public void setImageBitmap(Bitmap b) {
+	}
+
+	public void setImageResource(int r) {
+	}
+
+	public void setScaleType(ScaleType t) {
+	}
+
+	public void setAdjustViewBounds(boolean b) {
+	}
+
+	public void setMaxWidth(int w) {
+	}
+
+	public void setMaxHeight(int h) {
+	}
+
+	public static enum ScaleType {
+		FIT_XY, CENTER, FIT_CENTER, CENTER_INSIDE, FIT_START, FIT_END, CENTER_CROP, MATRIX
+	}
+}
@@ -0,0 +1,33 @@
+package android.widget;
+
+import android.content.Context;
+import android.view.ViewGroup;
+
+public class LinearLayout extends ViewGroup {
+
+	public static final int HORIZONTAL = 0, VERTICAL = 1;
+
+	public LinearLayout(Context c) {
+		super(c);
+	}
+
+	public void setOrientation(int o) {
+	}
+
+	public void setGravity(int g) {
+	}
+
+	public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+		public int gravity;
+
+		public float weight;
+
+		public LayoutParams(int w, int h) {
+			super(w, h);
+		}
+
+		public LayoutParams(int w, int h, float f) {
+			super(w, h);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package android.widget;
+
+import android.content.Context;
+import android.view.View;
+
+public class TextView extends View {
+
+	public TextView(Context c) {
+		super(c);
+	}
+
+	public void setText(CharSequence s) {
+	}
+
+	public void setTextSize(float f) {
+	}
+
+	public void setTextSize(int u, float f) {
+	}
+
+	public void setTextColor(int c) {
+	}
+
+	public CharSequence getText() {
+		return null;
+	}
+
+	public void setGravity(int g) {
+	}
+
+	public void setTypeface(Object t) {
+	}
+
+	public void setSingleLine(boolean b) {
+	}
+
+	public void setHint(CharSequence s) {
+	}
+
+	public void setWidth(int w) {
+	}
+
+	public void setHeight(int h) {
+	}
+
+	public void setInputType(int t) {
+	}
+}
@@ -0,0 +1,15 @@
+package android.widget;
+
+import android.content.Context;
+
+public class Toast {
+
+	public static final int LENGTH_SHORT = 0, LENGTH_LONG = 1;
+
+	public static Toast makeText(Context c, CharSequence s, int d) {
+		return null;
+	}
+
+	public void show() {
+	}
+}
@@ -38,6 +38,40 @@ public class Alarm {
 	 */
 	private boolean running = false;
 
+	/**
+	 * The scheduler that lets the alarm go off, null when the alarm has been
+	 * removed from the game
+	 */
+	AlarmScheduler scheduler = null;
+
+	/**
+	 * While running: the value of the counter at the start of cycle baseTick.
+	 * The counter is not updated every cycle, but calculated from these.
+	 */
+	private int baseCounter = 0;
+	private long baseTick = 0;
+
+	/**
+	 * The cycle in which the alarm goes off, when it is running
+	 */
+	long fireTick = 0;
+
+	/**
+	 * Position in the queue of the scheduler, -1 if not in the queue
+	 */
+	int heapIndex = -1;
+
+	/**
+	 * Order of creation, alarms going off in the same cycle go off in this
+	 * order
+	 */
+	long sequence = 0;
+
+	/**
+	 * Handle of the alarm in the list of alarms of the GameEngine
+	 */
+	private int registryHandle = -1;
+
 	/**
 	 * Create a new Alarm with the given time. The alarm will start immediately.
 	 * 
@@ -56,18 +90,13 @@ public class Alarm {
 	}
 
 	/**
-	 * Update will be triggered <b>by the GameEngine</b> every update.
-	 * The update does the counting, so <b>don't call this update yourself!</b>
-	 *  
+	 * Alarms used to be updated by the GameEngine every cycle, now the
+	 * GameEngine only touches alarms that go off. This method does nothing.
+	 * 
+	 * @deprecated alarms are handled by the AlarmScheduler of the GameEngine
 	 */
+	@Deprecated
 	public final void update() {
-		if (running) {
-			if (counter >= time) {
-				running = false;
-				alarmedObject.triggerAlarm(alarmID);
-			}
-			counter++;
-		}
 	}
 
 	/**
@@ -75,7 +104,11 @@ public class Alarm {
 	 * You can restart the alarm with startAlarm().
 	 */
 	public final void pauseAlarm() {
-		running = false;
+		if (running) {
+			counter = getCounter();
+			running = false;
+			reschedule();
+		}
 	}
 
 	/**
@@ -83,7 +116,10 @@ public class Alarm {
 	 * Use this method when an alarm has been paused.
 	 */
 	public final void startAlarm() {
-		running = true;
+		if (!running) {
+			running = true;
+			reschedule();
+		}
 	}
 
 	/**
@@ -92,6 +128,7 @@ public class Alarm {
 	public final void restartAlarm() {
 		counter = 0;
 		running = true;
+		reschedule();
 	}
 
 	/**
@@ -103,9 +140,102 @@ public class Alarm {
 	 *            The time
 	 */
 	public final void setTime(int time) {
+		counter = getCounter();
 		this.time = time;
+		reschedule();
 	}
-	
+
+	/**
+	 * Get the number of cycles the alarm has been ticking since it was
+	 * (re)started
+	 * 
+	 * @return the value of the clock
+	 */
+	private int getCounter() {
+		if (running && scheduler != null) {
+			return (int) (baseCounter + (scheduler.nextTick(this) - baseTick));
+		}
+		return counter;
+	}
+
+	/**
+	 * Calculate when the alarm goes off and tell the scheduler. The counter
+	 * must be up to date.
+	 */
+	void reschedule() {
+		if (scheduler == null) {
+			return;
+		}
+		if (!running) {
+			scheduler.unschedule(this);
+			return;
+		}
+		baseCounter = counter;
+		baseTick = scheduler.nextTick(this);
+		fireTick = baseTick + Math.max(0, time - baseCounter);
+		scheduler.schedule(this);
+	}
+
+	/**
+	 * Called by the scheduler when the alarm goes off. Stops the alarm and
+	 * calls triggerAlarm.
+	 * 
+	 * @param tick
+	 *            the current cycle
+	 */
+	void goOff(long tick) {
+		counter = (int) (baseCounter + (tick - baseTick));
+		running = false;
+		alarmedObject.triggerAlarm(alarmID);
+		// the clock also ticks in the cycle the alarm goes off, even when the
+		// alarm has been restarted in triggerAlarm
+		if (running && scheduler != null) {
+			baseCounter++;
+			fireTick = baseTick + Math.max(0, time - baseCounter);
+			scheduler.schedule(this);
+		} else {
+			counter++;
+		}
+	}
+
+	/**
+	 * Called when the alarm is removed from the game: the clock stops.
+	 */
+	void detach() {
+		counter = getCounter();
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Used by the GameEngine to find the alarm
+	 * in its list of alarms.
+	 * 
+	 * @return the handle of the alarm in GameEngine.gameAlarms
+	 */
+	public final int getRegistryHandle() {
+		return registryHandle;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Used by the GameEngine to find the alarm
+	 * in its list of alarms.
+	 * 
+	 * @param handle
+	 *            the handle of the alarm in GameEngine.gameAlarms
+	 */
+	public final void setRegistryHandle(int handle) {
+		registryHandle = handle;
+	}
+
+	/**
+	 * Get the object this alarm is set for
+	 * 
+	 * @return the object that will be informed when the alarm goes off
+	 */
+	public IAlarm getAlarmedObject()
+	{
+		return alarmedObject;
+	}
+
 	/**
 	 * Test if this alarm targets the specified Object (that must implement IAlarm)
 	 * 
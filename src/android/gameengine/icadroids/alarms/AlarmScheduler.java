@@ -0,0 +1,259 @@
+package android.gameengine.icadroids.alarms;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * AlarmScheduler keeps the running alarms in a priority queue, ordered on the
+ * cycle of the game loop in which they go off. Every cycle only the alarms
+ * that go off are touched; alarms that are paused or still far away cost
+ * nothing. Alarms that go off in the same cycle go off in the order in which
+ * they were created, like they did when every alarm was updated every cycle.
+ * <br />
+ * The scheduler also keeps, for every IAlarm, the list of alarms set for it,
+ * so the alarms of a removed GameObject can be found without looking at all
+ * alarms.
+ * <br />
+ * <b>This is a utility class for the GameEngine. Game programmers will have no
+ * need of this class!</b> Use the methods of Alarm.
+ */
+public class AlarmScheduler {
+
+	/**
+	 * Number of cycles that have started
+	 */
+	private long tick = 0;
+
+	/**
+	 * Number of alarms added, used to order alarms that go off in the same
+	 * cycle
+	 */
+	private long created = 0;
+
+	/**
+	 * Sequence number of the alarm that is going off, -1 when no alarm is
+	 * going off
+	 */
+	private long goingOff = -1;
+
+	/**
+	 * The running alarms, as a binary heap on (fireTick, sequence)
+	 */
+	private Alarm[] heap = new Alarm[16];
+
+	/**
+	 * Number of alarms in the heap
+	 */
+	private int size = 0;
+
+	/**
+	 * The alarms of every IAlarm
+	 */
+	private IdentityHashMap<IAlarm, ArrayList<Alarm>> alarmsByTarget = new IdentityHashMap<IAlarm, ArrayList<Alarm>>();
+
+	/**
+	 * Get the number of the next cycle in which an alarm will be handled.
+	 * While an alarm goes off, the alarms created after it are still handled
+	 * in the current cycle, like they were when every alarm was updated in
+	 * order of creation.
+	 *
+	 * @param a
+	 *            the alarm
+	 * @return the number of the next cycle for that alarm
+	 */
+	long nextTick(Alarm a) {
+		if (goingOff >= 0 && a.sequence > goingOff) {
+			return tick;
+		}
+		return tick + 1;
+	}
+
+	/**
+	 * Register an alarm: add it to the list of alarms of its IAlarm and, if
+	 * it is running, to the queue.
+	 *
+	 * @param a
+	 *            the alarm
+	 */
+	public void add(Alarm a) {
+		IAlarm target = a.getAlarmedObject();
+		ArrayList<Alarm> list = alarmsByTarget.get(target);
+		if (list == null) {
+			list = new ArrayList<Alarm>(2);
+			alarmsByTarget.put(target, list);
+		}
+		list.add(a);
+		a.sequence = created++;
+		a.scheduler = this;
+		a.reschedule();
+	}
+
+	/**
+	 * Unregister an alarm, it will not go off anymore
+	 *
+	 * @param a
+	 *            the alarm
+	 */
+	public void remove(Alarm a) {
+		if (a.scheduler != this) {
+			return;
+		}
+		a.detach();
+		unschedule(a);
+		a.scheduler = null;
+		ArrayList<Alarm> list = alarmsByTarget.get(a.getAlarmedObject());
+		if (list != null) {
+			list.remove(a);
+			if (list.isEmpty()) {
+				alarmsByTarget.remove(a.getAlarmedObject());
+			}
+		}
+	}
+
+	/**
+	 * Get the alarms set for an object
+	 *
+	 * @param target
+	 *            the object
+	 * @return the list of alarms, or null if there are none. Don't change
+	 *         this list.
+	 */
+	public ArrayList<Alarm> getAlarms(IAlarm target) {
+		return alarmsByTarget.get(target);
+	}
+
+	/**
+	 * Unregister all alarms
+	 */
+	public void clear() {
+		for (ArrayList<Alarm> list : alarmsByTarget.values()) {
+			for (int i = 0; i < list.size(); i++) {
+				Alarm a = list.get(i);
+				a.detach();
+				a.heapIndex = -1;
+				a.scheduler = null;
+			}
+		}
+		alarmsByTarget.clear();
+		for (int i = 0; i < size; i++) {
+			heap[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Start a new cycle: let all alarms go off whose time has come.
+	 */
+	public void update() {
+		tick++;
+		try {
+			while (size > 0 && heap[0].fireTick <= tick) {
+				Alarm a = heap[0];
+				unschedule(a);
+				goingOff = a.sequence;
+				a.goOff(tick);
+			}
+		} finally {
+			goingOff = -1;
+		}
+	}
+
+	/**
+	 * Put the alarm in the queue, or move it to its new place
+	 *
+	 * @param a
+	 *            the alarm, with fireTick set
+	 */
+	void schedule(Alarm a) {
+		if (a.heapIndex >= 0) {
+			int i = a.heapIndex;
+			siftUp(i);
+			if (heap[i] == a) {
+				siftDown(i);
+			}
+			return;
+		}
+		if (size == heap.length) {
+			Alarm[] bigger = new Alarm[size * 2];
+			System.arraycopy(heap, 0, bigger, 0, size);
+			heap = bigger;
+		}
+		heap[size] = a;
+		a.heapIndex = size;
+		size++;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Take the alarm out of the queue, if it is in it
+	 *
+	 * @param a
+	 *            the alarm
+	 */
+	void unschedule(Alarm a) {
+		int i = a.heapIndex;
+		if (i < 0) {
+			return;
+		}
+		a.heapIndex = -1;
+		size--;
+		if (i == size) {
+			heap[size] = null;
+			return;
+		}
+		Alarm last = heap[size];
+		heap[size] = null;
+		heap[i] = last;
+		last.heapIndex = i;
+		siftUp(i);
+		if (heap[i] == last) {
+			siftDown(i);
+		}
+	}
+
+	private void siftUp(int i) {
+		Alarm a = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(a, heap[parent])) {
+				break;
+			}
+			heap[i] = heap[parent];
+			heap[i].heapIndex = i;
+			i = parent;
+		}
+		heap[i] = a;
+		a.heapIndex = i;
+	}
+
+	private void siftDown(int i) {
+		Alarm a = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && before(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!before(heap[child], a)) {
+				break;
+			}
+			heap[i] = heap[child];
+			heap[i].heapIndex = i;
+			i = child;
+		}
+		heap[i] = a;
+		a.heapIndex = i;
+	}
+
+	/**
+	 * Check if alarm a goes off before alarm b
+	 */
+	private static boolean before(Alarm a, Alarm b) {
+		if (a.fireTick != b.fireTick) {
+			return a.fireTick < b.fireTick;
+		}
+		return a.sequence < b.sequence;
+	}
+}
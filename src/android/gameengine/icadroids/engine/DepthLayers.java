@@ -0,0 +1,321 @@
+package android.gameengine.icadroids.engine;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import android.gameengine.icadroids.objects.GameObject;
+
+/**
+ * DepthLayers puts new GameObjects, and GameObjects whose depth has changed,
+ * at their place in the list of items. The list is ordered on depth, highest
+ * depth first; objects with the same depth form a layer, in the order in which
+ * they were added. (GameView paints the list from back to front.)
+ * <br />
+ * Objects are first collected in a bucket per layer, which takes constant
+ * time per object. At the end of the cycle of the game loop all buckets are
+ * merged into the list in one pass, instead of searching and shifting the
+ * list for every object. When the new objects all go to the end of the list
+ * (for instance bullets in the lowest layer), they are simply appended.
+ * <br />
+ * Game programmers will not be accessing this class directly, it is a utility
+ * class used by the GameEngine.
+ */
+class DepthLayers
+{
+
+	/**
+	 * Depth of every layer that has a bucket, highest first
+	 */
+	private float[] layerDepths = new float[8];
+
+	/**
+	 * The objects waiting to be put in every layer
+	 */
+	private GameObject[][] buckets = new GameObject[8][];
+
+	/**
+	 * Number of objects in every bucket
+	 */
+	private int[] bucketSizes = new int[8];
+
+	/**
+	 * Number of layers that have a bucket
+	 */
+	private int layerCount = 0;
+
+	/**
+	 * Objects in the list whose depth has changed
+	 */
+	private ArrayList<GameObject> moved = new ArrayList<GameObject>();
+
+	/**
+	 * The objects of moved during a merge, reused
+	 */
+	private IdentityHashMap<GameObject, Boolean> movedItems = new IdentityHashMap<GameObject, Boolean>();
+
+	/**
+	 * The objects taken out of the buckets during a merge, reused
+	 */
+	private ArrayList<GameObject> added = new ArrayList<GameObject>();
+
+	/**
+	 * The new order of the list, filled by merge
+	 */
+	private Object[] order = new Object[0];
+
+	/**
+	 * The current index of every object in order, -1 for new objects
+	 */
+	private int[] oldIndex = new int[0];
+
+	/**
+	 * Get the layer of a depth. Objects with depth 0 or less are all in the
+	 * lowest layer, like they have always been.
+	 *
+	 * @param depth
+	 *            the depth of an object
+	 * @return the depth of its layer
+	 */
+	static float layerOf(float depth)
+	{
+		return depth > 0 ? depth : 0;
+	}
+
+	/**
+	 * Add a new object, it will be put at the end of its layer
+	 *
+	 * @param item
+	 *            the new GameObject
+	 */
+	void add(GameObject item)
+	{
+		int layer = findLayer(layerOf(item.getDepth()));
+		if (bucketSizes[layer] == buckets[layer].length)
+		{
+			GameObject[] bigger = new GameObject[bucketSizes[layer] * 2];
+			System.arraycopy(buckets[layer], 0, bigger, 0, bucketSizes[layer]);
+			buckets[layer] = bigger;
+		}
+		buckets[layer][bucketSizes[layer]++] = item;
+	}
+
+	/**
+	 * Remember that the depth of an object has changed. If it is in the list,
+	 * it will be moved to the end of its new layer.
+	 *
+	 * @param item
+	 *            the GameObject
+	 */
+	void depthChanged(GameObject item)
+	{
+		synchronized (moved)
+		{
+			moved.add(item);
+		}
+	}
+
+	/**
+	 * Check if there is anything to merge into the list
+	 *
+	 * @return true if objects have been added or have changed depth
+	 */
+	boolean hasChanges()
+	{
+		return layerCount > 0 || !moved.isEmpty();
+	}
+
+	/**
+	 * Put all added and moved objects in the list, in one pass. The order of
+	 * the other objects doesn't change.
+	 *
+	 * @param items
+	 *            the list of items, ordered on depth
+	 */
+	void merge(EntityRegistry<GameObject> items)
+	{
+		if (moved.isEmpty() && appendsToList(items))
+		{
+			for (int b = 0; b < layerCount; b++)
+			{
+				GameObject[] bucket = buckets[b];
+				for (int j = 0; j < bucketSizes[b]; j++)
+				{
+					bucket[j].setRegistryHandle(items.addElement(bucket[j]));
+					bucket[j] = null;
+				}
+				bucketSizes[b] = 0;
+			}
+			layerCount = 0;
+			return;
+		}
+		boolean hasMoved = !moved.isEmpty();
+		for (int i = 0; i < moved.size(); i++)
+		{
+			movedItems.put(moved.get(i), Boolean.TRUE);
+		}
+		moved.clear();
+		int capacity = items.size();
+		if (hasMoved)
+		{
+			// moved objects go to their new layer, in the order of the list,
+			// before the objects added in this cycle
+			takeBuckets();
+			for (int i = 0; i < items.size(); i++)
+			{
+				GameObject item = items.get(i);
+				if (movedItems.containsKey(item))
+				{
+					add(item);
+				}
+			}
+			for (int i = 0; i < added.size(); i++)
+			{
+				add(added.get(i));
+			}
+			added.clear();
+		}
+		for (int b = 0; b < layerCount; b++)
+		{
+			capacity += bucketSizes[b];
+		}
+		if (order.length < capacity)
+		{
+			order = new Object[capacity];
+			oldIndex = new int[capacity];
+		}
+		int n = 0;
+		int b = 0;
+		for (int i = 0; i < items.size(); i++)
+		{
+			GameObject item = items.get(i);
+			if (hasMoved && movedItems.containsKey(item))
+			{
+				continue;
+			}
+			float layer = layerOf(item.getDepth());
+			// buckets of higher layers come before this object, the bucket of
+			// its own layer after the last object of the layer
+			while (b < layerCount && layerDepths[b] > layer)
+			{
+				n = emptyBucket(b++, n);
+			}
+			order[n] = item;
+			oldIndex[n] = i;
+			n++;
+		}
+		while (b < layerCount)
+		{
+			n = emptyBucket(b++, n);
+		}
+		layerCount = 0;
+		items.reorder(order, oldIndex, n);
+		for (int i = 0; i < n; i++)
+		{
+			if (oldIndex[i] < 0)
+			{
+				((GameObject) order[i]).setRegistryHandle(items.getHandle(i));
+			}
+			order[i] = null;
+		}
+		movedItems.clear();
+	}
+
+	/**
+	 * Check if all objects in the buckets go after the last object of the
+	 * list
+	 */
+	private boolean appendsToList(EntityRegistry<GameObject> items)
+	{
+		int size = items.size();
+		// the highest layer with new objects comes first
+		return size == 0 || layerCount == 0
+				|| layerDepths[0] <= layerOf(items.get(size - 1).getDepth());
+	}
+
+	/**
+	 * Move the objects of a bucket to the new order
+	 *
+	 * @return the new number of objects in order
+	 */
+	private int emptyBucket(int b, int n)
+	{
+		GameObject[] bucket = buckets[b];
+		for (int j = 0; j < bucketSizes[b]; j++)
+		{
+			order[n] = bucket[j];
+			oldIndex[n] = -1;
+			bucket[j] = null;
+			n++;
+		}
+		bucketSizes[b] = 0;
+		return n;
+	}
+
+	/**
+	 * Move all objects out of the buckets to added, in the order they would be
+	 * merged
+	 */
+	private void takeBuckets()
+	{
+		for (int b = 0; b < layerCount; b++)
+		{
+			for (int j = 0; j < bucketSizes[b]; j++)
+			{
+				added.add(buckets[b][j]);
+				buckets[b][j] = null;
+			}
+			bucketSizes[b] = 0;
+		}
+		layerCount = 0;
+	}
+
+	/**
+	 * Find the bucket of a layer, creating it if necessary
+	 *
+	 * @return the index of the bucket
+	 */
+	private int findLayer(float depth)
+	{
+		int low = 0;
+		int high = layerCount - 1;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			if (layerDepths[mid] > depth)
+			{
+				low = mid + 1;
+			} else if (layerDepths[mid] < depth)
+			{
+				high = mid - 1;
+			} else
+			{
+				return mid;
+			}
+		}
+		// not found: insert a layer at 'low'
+		if (layerCount == layerDepths.length)
+		{
+			float[] newDepths = new float[layerCount * 2];
+			GameObject[][] newBuckets = new GameObject[layerCount * 2][];
+			int[] newSizes = new int[layerCount * 2];
+			System.arraycopy(layerDepths, 0, newDepths, 0, layerCount);
+			System.arraycopy(buckets, 0, newBuckets, 0, layerCount);
+			System.arraycopy(bucketSizes, 0, newSizes, 0, layerCount);
+			layerDepths = newDepths;
+			buckets = newBuckets;
+			bucketSizes = newSizes;
+		}
+		// keep the (empty) array of the bucket that falls off for reuse
+		GameObject[] spare = buckets[layerCount];
+		System.arraycopy(layerDepths, low, layerDepths, low + 1, layerCount
+				- low);
+		System.arraycopy(buckets, low, buckets, low + 1, layerCount - low);
+		System.arraycopy(bucketSizes, low, bucketSizes, low + 1, layerCount
+				- low);
+		layerDepths[low] = depth;
+		buckets[low] = spare != null ? spare : new GameObject[16];
+		bucketSizes[low] = 0;
+		layerCount++;
+		return low;
+	}
+}
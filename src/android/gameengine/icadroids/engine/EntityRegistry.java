@@ -0,0 +1,450 @@
+package android.gameengine.icadroids.engine;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * EntityRegistry holds the GameObjects (or Alarms) of the game in one array,
+ * in the order in which they are updated and drawn. Unlike a Vector, reading
+ * from it takes no locks, so looping through it with size() and get(i) is as
+ * cheap as looping through an array.
+ * <br />
+ * The registry is written by the game thread only. For game programmers it
+ * is read-only: the List methods that change it (add, remove, set, clear)
+ * throw an UnsupportedOperationException. Use the methods of the GameEngine
+ * to add or delete objects.
+ * <br />
+ * Every element gets a handle when it is added. The handle doesn't change
+ * when other elements are added or removed, so it can be used to find the
+ * element back quickly. Handles of removed elements become invalid.
+ * <br />
+ * Threads other than the game thread should not read the registry directly,
+ * but take a copy with snapshotTo (the GameView does this with a
+ * SceneSnapshot when drawing on a separate thread).
+ *
+ * @param <T>
+ *            the type of the elements
+ */
+public class EntityRegistry<T> extends AbstractList<T> implements RandomAccess
+{
+
+	/**
+	 * Number of bits of a handle used for the slot, the other bits hold the
+	 * generation of the slot
+	 */
+	private static final int SLOT_BITS = 22;
+
+	/**
+	 * Mask for the slot bits of a handle
+	 */
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+	/**
+	 * The elements, the first 'size' are in use
+	 */
+	private Object[] elements = new Object[16];
+
+	/**
+	 * The handle of every element
+	 */
+	private int[] handles = new int[16];
+
+	/**
+	 * Arrays of the previous order, kept for reuse by reorder
+	 */
+	private Object[] spareElements = new Object[0];
+	private int[] spareHandles = new int[0];
+
+	/**
+	 * Number of elements
+	 */
+	private int size = 0;
+
+	/**
+	 * For every slot: the index of its element, or -1 if the slot is free
+	 */
+	private int[] slotIndex = new int[16];
+
+	/**
+	 * For every slot: how many times it has been used, to recognize handles
+	 * of removed elements
+	 */
+	private int[] slotGeneration = new int[16];
+
+	/**
+	 * Number of slots ever used
+	 */
+	private int slots = 0;
+
+	/**
+	 * Free slots (a stack)
+	 */
+	private int[] freeSlots = new int[16];
+
+	/**
+	 * Number of free slots
+	 */
+	private int freeCount = 0;
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		if (index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+		return (T) elements[index];
+	}
+
+	/**
+	 * Get the handle of the element at the given index
+	 *
+	 * @param index
+	 *            the index of the element
+	 * @return the handle of the element
+	 */
+	public int getHandle(int index)
+	{
+		if (index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+		return handles[index];
+	}
+
+	/**
+	 * Get the index of the element with the given handle
+	 *
+	 * @param handle
+	 *            the handle of the element
+	 * @return the index of the element, or -1 if there is no such element
+	 *         (anymore)
+	 */
+	public int indexOfHandle(int handle)
+	{
+		int slot = handle & SLOT_MASK;
+		if (slot >= slots || slotGeneration[slot] != handle >>> SLOT_BITS)
+		{
+			return -1;
+		}
+		return slotIndex[slot];
+	}
+
+	/**
+	 * Get the element with the given handle
+	 *
+	 * @param handle
+	 *            the handle of the element
+	 * @return the element, or null if there is no such element (anymore)
+	 */
+	public T getByHandle(int handle)
+	{
+		int index = indexOfHandle(handle);
+		return index < 0 ? null : get(index);
+	}
+
+	/**
+	 * Copy all elements into the given list, replacing its contents. Use this
+	 * to look at the registry from another thread than the game thread.
+	 *
+	 * @param target
+	 *            the list that will hold the elements
+	 */
+	public void snapshotTo(List<? super T> target)
+	{
+		target.clear();
+		for (int i = 0; i < size; i++)
+		{
+			target.add(get(i));
+		}
+	}
+
+	/**
+	 * Add an element at the end
+	 *
+	 * @param element
+	 *            the element to add
+	 * @return the handle of the element
+	 */
+	int addElement(T element)
+	{
+		return insertElementAt(element, size);
+	}
+
+	/**
+	 * Insert an element, moving the elements from the index on one place up
+	 *
+	 * @param element
+	 *            the element to add
+	 * @param index
+	 *            the index it will have
+	 * @return the handle of the element
+	 */
+	int insertElementAt(T element, int index)
+	{
+		if (index < 0 || index > size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+		if (size == elements.length)
+		{
+			growElements();
+		}
+		System.arraycopy(elements, index, elements, index + 1, size - index);
+		System.arraycopy(handles, index, handles, index + 1, size - index);
+		size++;
+		for (int i = index + 1; i < size; i++)
+		{
+			slotIndex[handles[i] & SLOT_MASK] = i;
+		}
+		int slot = allocateSlot();
+		int handle = (slotGeneration[slot] << SLOT_BITS) | slot;
+		elements[index] = element;
+		handles[index] = handle;
+		slotIndex[slot] = index;
+		modCount++;
+		return handle;
+	}
+
+	/**
+	 * Remove the element at the index, moving the elements after it one place
+	 * down
+	 *
+	 * @param index
+	 *            the index of the element
+	 * @return the removed element
+	 */
+	T removeElementAt(int index)
+	{
+		T element = get(index);
+		freeSlot(handles[index] & SLOT_MASK);
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		System.arraycopy(handles, index + 1, handles, index, size - index - 1);
+		size--;
+		elements[size] = null;
+		for (int i = index; i < size; i++)
+		{
+			slotIndex[handles[i] & SLOT_MASK] = i;
+		}
+		modCount++;
+		return element;
+	}
+
+	/**
+	 * Remove the element at the index by putting the last element in its
+	 * place. This takes constant time, but changes the order.
+	 *
+	 * @param index
+	 *            the index of the element
+	 * @return the removed element
+	 */
+	T removeElementSwap(int index)
+	{
+		T element = get(index);
+		freeSlot(handles[index] & SLOT_MASK);
+		size--;
+		if (index < size)
+		{
+			elements[index] = elements[size];
+			handles[index] = handles[size];
+			slotIndex[handles[index] & SLOT_MASK] = index;
+		}
+		elements[size] = null;
+		modCount++;
+		return element;
+	}
+
+	/**
+	 * Remove the first occurrence of the element
+	 *
+	 * @param element
+	 *            the element to remove
+	 * @return true if the element was found
+	 */
+	boolean removeElement(Object element)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			if (elements[i] == element)
+			{
+				removeElementAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove all marked elements in one pass, keeping the order of the other
+	 * elements.
+	 *
+	 * @param marked
+	 *            for every index true if the element must be removed
+	 * @return the number of elements removed
+	 */
+	int removeMarked(boolean[] marked)
+	{
+		int kept = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (marked[i])
+			{
+				freeSlot(handles[i] & SLOT_MASK);
+			} else
+			{
+				elements[kept] = elements[i];
+				handles[kept] = handles[i];
+				slotIndex[handles[kept] & SLOT_MASK] = kept;
+				kept++;
+			}
+		}
+		int removed = size - kept;
+		for (int i = kept; i < size; i++)
+		{
+			elements[i] = null;
+		}
+		size = kept;
+		if (removed > 0)
+		{
+			modCount++;
+		}
+		return removed;
+	}
+
+	/**
+	 * Put the elements in a new order in one pass, adding and removing
+	 * elements at the same time. Existing elements keep their handle,
+	 * existing elements that are not in the new order are removed.
+	 *
+	 * @param order
+	 *            the elements in their new order
+	 * @param oldIndex
+	 *            for every element in order its current index, or -1 for
+	 *            elements that are new
+	 * @param n
+	 *            the number of elements in order
+	 */
+	void reorder(Object[] order, int[] oldIndex, int n)
+	{
+		if (spareElements.length < n)
+		{
+			int capacity = Math.max(n, elements.length);
+			spareElements = new Object[capacity];
+			spareHandles = new int[capacity];
+		}
+		for (int i = 0; i < size; i++)
+		{
+			slotIndex[handles[i] & SLOT_MASK] = -2;
+		}
+		for (int i = 0; i < n; i++)
+		{
+			int handle;
+			if (oldIndex[i] >= 0)
+			{
+				handle = handles[oldIndex[i]];
+			} else
+			{
+				int slot = allocateSlot();
+				handle = (slotGeneration[slot] << SLOT_BITS) | slot;
+			}
+			spareElements[i] = order[i];
+			spareHandles[i] = handle;
+			slotIndex[handle & SLOT_MASK] = i;
+		}
+		for (int i = 0; i < size; i++)
+		{
+			int slot = handles[i] & SLOT_MASK;
+			if (slotIndex[slot] == -2)
+			{
+				freeSlot(slot);
+			}
+			elements[i] = null;
+		}
+		Object[] oldElements = elements;
+		int[] oldHandles = handles;
+		elements = spareElements;
+		handles = spareHandles;
+		spareElements = oldElements;
+		spareHandles = oldHandles;
+		size = n;
+		modCount++;
+	}
+
+	/**
+	 * Remove all elements
+	 */
+	void removeAllElements()
+	{
+		for (int i = 0; i < size; i++)
+		{
+			elements[i] = null;
+			freeSlot(handles[i] & SLOT_MASK);
+		}
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Get a free slot, creating one if necessary
+	 */
+	private int allocateSlot()
+	{
+		if (freeCount > 0)
+		{
+			return freeSlots[--freeCount];
+		}
+		if (slots == slotIndex.length)
+		{
+			int capacity = slots * 2;
+			int[] newIndex = new int[capacity];
+			int[] newGeneration = new int[capacity];
+			System.arraycopy(slotIndex, 0, newIndex, 0, slots);
+			System.arraycopy(slotGeneration, 0, newGeneration, 0, slots);
+			slotIndex = newIndex;
+			slotGeneration = newGeneration;
+		}
+		return slots++;
+	}
+
+	/**
+	 * Put a slot on the free list, invalidating the handles using it
+	 */
+	private void freeSlot(int slot)
+	{
+		slotIndex[slot] = -1;
+		slotGeneration[slot] = (slotGeneration[slot] + 1)
+				& (-1 >>> SLOT_BITS);
+		if (freeCount == freeSlots.length)
+		{
+			int[] newFree = new int[freeCount * 2];
+			System.arraycopy(freeSlots, 0, newFree, 0, freeCount);
+			freeSlots = newFree;
+		}
+		freeSlots[freeCount++] = slot;
+	}
+
+	/**
+	 * Make room for more elements
+	 */
+	private void growElements()
+	{
+		int capacity = Math.max(16, elements.length * 2);
+		Object[] newElements = new Object[capacity];
+		int[] newHandles = new int[capacity];
+		System.arraycopy(elements, 0, newElements, 0, size);
+		System.arraycopy(handles, 0, newHandles, 0, size);
+		elements = newElements;
+		handles = newHandles;
+	}
+}
@@ -0,0 +1,417 @@
+package android.gameengine.icadroids.engine;
+
+import java.util.Arrays;
+
+import android.util.Log;
+
+/**
+ * FrameProfiler measures how long the phases of every frame take: the
+ * update() of your game, the updates of the GameObjects, tile collisions,
+ * alarms, cleaning up the object lists, and drawing (waiting for the canvas,
+ * drawing, and posting the canvas). Use it to find out where frames go over
+ * budget on a real device.
+ * <br />
+ * The times (in nanoseconds) of the last SAMPLES frames are kept per phase.
+ * The profiler gives the minimum, mean, maximum and percentiles of these
+ * times, can write them to the log, and can export them, for instance to a
+ * file.
+ * <br />
+ * To use the profiler, set ENABLED to true, for instance in the constructor
+ * of your game. When it is not enabled, it costs almost nothing.
+ * <br />
+ * FrameProfiler is a Singleton: use FrameProfiler.getInstance().
+ */
+public class FrameProfiler
+{
+
+	/**
+	 * Set to true to measure the frames
+	 */
+	public static boolean ENABLED = false;
+
+	/**
+	 * The number of frames kept per phase. Set it before the game starts.
+	 */
+	public static int SAMPLES = 600;
+
+	/** Phase: the update() method of the game */
+	public static final int PHASE_USER_UPDATE = 0;
+	/** Phase: updating the GameObjects, moving them included */
+	public static final int PHASE_OBJECT_UPDATE = 1;
+	/**
+	 * Phase: batched tile collisions (only when
+	 * GameEngine.batchTileCollisions or GameEngine.dataOrientedMovement is
+	 * used, otherwise tile collisions are part of PHASE_OBJECT_UPDATE)
+	 */
+	public static final int PHASE_TILE_COLLISION = 2;
+	/** Phase: letting the alarms go off */
+	public static final int PHASE_ALARMS = 3;
+	/** Phase: removing and adding GameObjects at the end of a cycle */
+	public static final int PHASE_CLEANUP = 4;
+	/** Phase: waiting for the canvas (lockCanvas) */
+	public static final int PHASE_LOCK_CANVAS = 5;
+	/** Phase: drawing the game (onDraw) */
+	public static final int PHASE_DRAW = 6;
+	/** Phase: showing the canvas (unlockCanvasAndPost) */
+	public static final int PHASE_UNLOCK_AND_POST = 7;
+
+	/**
+	 * Number of phases
+	 */
+	public static final int PHASE_COUNT = 8;
+
+	/**
+	 * Names of the phases, for the log and export
+	 */
+	private static final String[] PHASE_NAMES = { "userUpdate",
+			"objectUpdate", "tileCollision", "alarms", "cleanup",
+			"lockCanvas", "onDraw", "unlockCanvasAndPost" };
+
+	private static volatile FrameProfiler instance;
+
+	/**
+	 * The samples of every phase, a ring buffer per phase
+	 */
+	private final long[][] samples;
+
+	/**
+	 * Index where the next sample of every phase goes
+	 */
+	private final int[] next;
+
+	/**
+	 * Number of samples of every phase, at most the capacity
+	 */
+	private final int[] count;
+
+	/**
+	 * Room for sorting the samples of a phase when calculating percentiles
+	 */
+	private final long[] sorted;
+
+	/**
+	 * For the frames per second written to the log
+	 */
+	private long fpsStart = System.nanoTime();
+	private int frames = 0;
+
+	/**
+	 * Make a profiler keeping the given number of samples per phase
+	 *
+	 * @param capacity
+	 *            number of samples per phase
+	 */
+	FrameProfiler(int capacity)
+	{
+		samples = new long[PHASE_COUNT][Math.max(1, capacity)];
+		next = new int[PHASE_COUNT];
+		count = new int[PHASE_COUNT];
+		sorted = new long[samples[0].length];
+	}
+
+	/**
+	 * Get the profiler
+	 *
+	 * @return the FrameProfiler
+	 */
+	public static FrameProfiler getInstance()
+	{
+		FrameProfiler profiler = instance;
+		if (profiler == null)
+		{
+			profiler = createInstance();
+		}
+		return profiler;
+	}
+
+	private static synchronized FrameProfiler createInstance()
+	{
+		if (instance == null)
+		{
+			instance = new FrameProfiler(SAMPLES);
+		}
+		return instance;
+	}
+
+	/**
+	 * Check if frames are measured
+	 *
+	 * @return true when ENABLED (or GameFPSCounter.USE_FPS_COUNTER) is true
+	 */
+	@SuppressWarnings("deprecation")
+	public static boolean isEnabled()
+	{
+		return ENABLED || GameFPSCounter.USE_FPS_COUNTER;
+	}
+
+	/**
+	 * Start measuring a phase
+	 *
+	 * @return the start time, to be passed to end; 0 when the profiler is not
+	 *         enabled
+	 */
+	public static long begin()
+	{
+		return isEnabled() ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Stop measuring a phase and record its time. Every phase must be measured
+	 * by one thread only.
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @param startTime
+	 *            the value returned by begin
+	 */
+	public static void end(int phase, long startTime)
+	{
+		if (startTime != 0)
+		{
+			getInstance().record(phase, System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Record a sample of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @param nanos
+	 *            the time of the phase, in nanoseconds
+	 */
+	public void record(int phase, long nanos)
+	{
+		long[] buffer = samples[phase];
+		buffer[next[phase]] = nanos;
+		next[phase] = (next[phase] + 1) % buffer.length;
+		if (count[phase] < buffer.length)
+		{
+			count[phase]++;
+		}
+	}
+
+	/**
+	 * Count a frame that has been drawn. When GameFPSCounter.USE_FPS_COUNTER
+	 * is true, the frames per second are written to the log.
+	 *
+	 * @param name
+	 *            name of the loop that draws, for the log
+	 */
+	@SuppressWarnings("deprecation")
+	public void frameDone(String name)
+	{
+		if (!GameFPSCounter.USE_FPS_COUNTER)
+		{
+			return;
+		}
+		frames++;
+		long now = System.nanoTime();
+		if (now - fpsStart >= 1000000000L)
+		{
+			Log.d("FrameProfiler", name + " FPS: " + frames);
+			frames = 0;
+			fpsStart = now;
+		}
+	}
+
+	/**
+	 * Get the name of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the name
+	 */
+	public static String getPhaseName(int phase)
+	{
+		return PHASE_NAMES[phase];
+	}
+
+	/**
+	 * Get the number of samples of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the number of samples kept
+	 */
+	public int getSampleCount(int phase)
+	{
+		return count[phase];
+	}
+
+	/**
+	 * Get the shortest time of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the time in nanoseconds, 0 if there are no samples
+	 */
+	public long getMin(int phase)
+	{
+		int n = count[phase];
+		if (n == 0)
+		{
+			return 0;
+		}
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < n; i++)
+		{
+			min = Math.min(min, samples[phase][i]);
+		}
+		return min;
+	}
+
+	/**
+	 * Get the longest time of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the time in nanoseconds, 0 if there are no samples
+	 */
+	public long getMax(int phase)
+	{
+		int n = count[phase];
+		long max = 0;
+		for (int i = 0; i < n; i++)
+		{
+			max = Math.max(max, samples[phase][i]);
+		}
+		return max;
+	}
+
+	/**
+	 * Get the mean time of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the time in nanoseconds, 0 if there are no samples
+	 */
+	public double getMean(int phase)
+	{
+		int n = count[phase];
+		if (n == 0)
+		{
+			return 0;
+		}
+		long sum = 0;
+		for (int i = 0; i < n; i++)
+		{
+			sum += samples[phase][i];
+		}
+		return (double) sum / n;
+	}
+
+	/**
+	 * Get a percentile of the times of a phase: the time within which the
+	 * given percentage of the samples fall.
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @param percentile
+	 *            the percentage, between 0 and 100
+	 * @return the time in nanoseconds, 0 if there are no samples
+	 */
+	public synchronized long getPercentile(int phase, double percentile)
+	{
+		int n = count[phase];
+		if (n == 0)
+		{
+			return 0;
+		}
+		System.arraycopy(samples[phase], 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		// nearest rank
+		int rank = (int) Math.ceil(percentile / 100 * n);
+		return sorted[Math.min(n, Math.max(1, rank)) - 1];
+	}
+
+	/**
+	 * Get the 95th percentile of the times of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the time in nanoseconds
+	 */
+	public long getP95(int phase)
+	{
+		return getPercentile(phase, 95);
+	}
+
+	/**
+	 * Get the 99th percentile of the times of a phase
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @return the time in nanoseconds
+	 */
+	public long getP99(int phase)
+	{
+		return getPercentile(phase, 99);
+	}
+
+	/**
+	 * Copy the samples of a phase, oldest first
+	 *
+	 * @param phase
+	 *            one of the PHASE_ constants
+	 * @param target
+	 *            the array that receives the samples, in nanoseconds
+	 * @return the number of samples copied
+	 */
+	public int exportSamples(int phase, long[] target)
+	{
+		int n = Math.min(count[phase], target.length);
+		long[] buffer = samples[phase];
+		// the oldest sample is at 'next' once the buffer is full
+		int start = count[phase] < buffer.length ? 0 : next[phase];
+		for (int i = 0; i < n; i++)
+		{
+			target[i] = buffer[(start + i) % buffer.length];
+		}
+		return n;
+	}
+
+	/**
+	 * Write the statistics of all phases as comma separated values, one line
+	 * per phase, times in microseconds.
+	 *
+	 * @param out
+	 *            where the lines are written
+	 */
+	public void exportStatistics(StringBuilder out)
+	{
+		out.append("phase,samples,min_us,mean_us,p95_us,p99_us,max_us\n");
+		for (int phase = 0; phase < PHASE_COUNT; phase++)
+		{
+			out.append(PHASE_NAMES[phase]).append(',');
+			out.append(count[phase]).append(',');
+			out.append(getMin(phase) / 1000).append(',');
+			out.append(Math.round(getMean(phase) / 1000)).append(',');
+			out.append(getP95(phase) / 1000).append(',');
+			out.append(getP99(phase) / 1000).append(',');
+			out.append(getMax(phase) / 1000).append('\n');
+		}
+	}
+
+	/**
+	 * Write the statistics of all phases to the log
+	 */
+	public void logStatistics()
+	{
+		StringBuilder text = new StringBuilder();
+		exportStatistics(text);
+		Log.d("FrameProfiler", text.toString());
+	}
+
+	/**
+	 * Remove all samples
+	 */
+	public void reset()
+	{
+		for (int phase = 0; phase < PHASE_COUNT; phase++)
+		{
+			count[phase] = 0;
+			next[phase] = 0;
+		}
+	}
+}
@@ -1,8 +1,10 @@
 package android.gameengine.icadroids.engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
 import java.util.Vector;
 
@@ -10,12 +12,21 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
 import android.gameengine.icadroids.alarms.Alarm;
+import android.gameengine.icadroids.alarms.AlarmScheduler;
 import android.gameengine.icadroids.alarms.IAlarm;
 import android.gameengine.icadroids.input.MotionSensor;
 import android.gameengine.icadroids.input.OnScreenButtons;
 import android.gameengine.icadroids.input.TouchInput;
 import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.GameObjectPool;
+import android.gameengine.icadroids.objects.IGameObjectFactory;
 import android.gameengine.icadroids.objects.MoveableGameObject;
+import android.gameengine.icadroids.objects.MovementStore;
+import android.gameengine.icadroids.objects.collisions.AABBTree;
+import android.gameengine.icadroids.objects.collisions.IBroadphase;
+import android.gameengine.icadroids.objects.collisions.SpatialHash;
+import android.gameengine.icadroids.objects.collisions.TileCollisionBatch;
+import android.gameengine.icadroids.objects.graphics.PixelMask;
 import android.gameengine.icadroids.objects.graphics.Sprite;
 import android.gameengine.icadroids.sound.GameSound;
 import android.gameengine.icadroids.sound.MusicPlayer;
@@ -92,22 +103,25 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 */
 	private Vibrator vibrator;
 	/**
-	 * A vectorlist that holds all the active GameObjects. Can be used if you
-	 * mannualy want to delete/change GameObjects. For instance, you could loop
-	 * through this list and remove health of every GameObject.
+	 * A list that holds all the active GameObjects. Can be used if you
+	 * want to look at or change GameObjects. For instance, you could loop
+	 * through this list and remove health of every GameObject.<br />
+	 * The list itself is read-only: use addGameObject and deleteGameObject to
+	 * add or remove objects.
 	 */
-	public static Vector<GameObject> items;
+	public static EntityRegistry<GameObject> items;
 	/**
-	 * A vectorlist that holds all the newly created GameObjects during this
+	 * A list that holds all the newly created GameObjects during this
 	 * cycle of the game loop. At the end of the cycle, all items in this list
 	 * will be moved to the items-list and the object become active
 	 */
-	public static Vector<GameObject> newItems;
+	public static EntityRegistry<GameObject> newItems;
 	/**
-	 * A vectorlist that holds all the active alarms. Can be used if you
-	 * manually want to delete/change alarms.
+	 * A list that holds all the active alarms. Can be used if you
+	 * want to look at alarms, use deleteAlarm to remove one. The alarms are
+	 * not in any particular order.
 	 */
-	public static Vector<Alarm> gameAlarms;
+	public static EntityRegistry<Alarm> gameAlarms;
 	/**
 	 * Holds context of the application
 	 */
@@ -128,6 +142,212 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 
 	public static GameTiles gameTiles;
 
+	/**
+	 * Constant for collisionBroadphase: find collisions between GameObjects
+	 * by testing every GameObject in the game.
+	 */
+	public static final int BROADPHASE_NONE = 0;
+
+	/**
+	 * Constant for collisionBroadphase: find collisions between GameObjects
+	 * using a grid of cells of spatialHashCellSize pixels.
+	 */
+	public static final int BROADPHASE_SPATIAL_HASH = 1;
+
+	/**
+	 * Constant for collisionBroadphase: find collisions between GameObjects
+	 * using a tree of bounding boxes. Use this when objects differ a lot in
+	 * size.
+	 */
+	public static final int BROADPHASE_AABB_TREE = 2;
+
+	/**
+	 * The way collisions between GameObjects are found. Default is
+	 * BROADPHASE_NONE, which is fine for games with a moderate number of
+	 * objects. If you have many objects that call getCollidedObjects(), use
+	 * BROADPHASE_SPATIAL_HASH, or BROADPHASE_AABB_TREE when your objects differ
+	 * a lot in size. Set it in the initialize() method of your game.
+	 * <br />
+	 * All broadphases give the same results, they only differ in speed.
+	 * Note: the broadphase is told about moves when the position rectangle is
+	 * updated (in update() and undoMove()). If you change the position
+	 * rectangle of an object yourself, collisions are found from the next
+	 * cycle of the game loop.
+	 */
+	public static int collisionBroadphase = BROADPHASE_NONE;
+
+	/**
+	 * Width and height in pixels of the cells used by BROADPHASE_SPATIAL_HASH.
+	 * A good value is about the size of the larger objects in your game.
+	 */
+	public static int spatialHashCellSize = 64;
+
+	/**
+	 * The current broadphase, null when collisionBroadphase is BROADPHASE_NONE
+	 */
+	private static IBroadphase broadphase;
+
+	/**
+	 * The type of the current broadphase (one of the BROADPHASE constants)
+	 */
+	private static int broadphaseType = BROADPHASE_NONE;
+
+	/**
+	 * True when the broadphase must be rebuilt from the items-list, for
+	 * instance after the broadphase has been replaced. Otherwise objects are
+	 * added to and removed from the broadphase one by one.
+	 */
+	private static boolean broadphaseDirty = true;
+
+	/**
+	 * When true, tile collisions are not checked while a MoveableGameObject
+	 * moves, but for all ICollision objects at once, after every object has
+	 * been updated. collisionOccurred is then called after all update()
+	 * methods, in the order the objects moved. This is faster when many
+	 * objects (for instance bullets) collide with tiles.<br />
+	 * Note: the positions of the objects are then already those at the end of
+	 * the update when collisionOccurred is called. Methods like undoMove and
+	 * moveUpToTileSide work as usual.
+	 */
+	public static boolean batchTileCollisions = false;
+
+	/**
+	 * When true, the speed, friction and previous position of
+	 * MoveableGameObjects are kept in a MovementStore, and all these objects
+	 * are moved in one loop at the start of the cycle of the game loop,
+	 * before any update() is called. Use this when you have thousands of
+	 * moving objects. Set it in the initialize() method of your game, it is
+	 * used for objects added after that.<br />
+	 * Note: objects then don't move in their own update() but before it, so in
+	 * update() other objects have already moved. Tile collisions of these
+	 * objects are always checked as with batchTileCollisions.
+	 */
+	public static boolean dataOrientedMovement = false;
+
+	/**
+	 * When true, MoveableGameObjects use the tables of FastMath instead of
+	 * java.lang.Math to calculate their x and y speed from a direction, and
+	 * their direction from the x and y speed. This is much faster when many
+	 * objects change direction every cycle, for instance steering enemies,
+	 * but the direction is a little less accurate: with the default precision
+	 * less than 0.05 degree. Use FastMath.setPrecision to change the
+	 * precision.
+	 * 
+	 * @see android.gameengine.icadroids.objects.FastMath
+	 */
+	public static boolean fastMath = false;
+
+	/**
+	 * When true (and the viewport is used), GameObjects far away from the
+	 * viewport are not updated every cycle of the game loop:
+	 * <ul>
+	 * <li>objects within lodMargin pixels of the viewport are updated every
+	 * cycle;</li>
+	 * <li>objects farther away are updated every lodFarInterval cycles.
+	 * GameObject.getElapsedTicks() tells how many cycles have passed,
+	 * MoveableGameObjects use it to move the right distance;</li>
+	 * <li>objects farther than lodDormantDistance pixels are not updated at
+	 * all, until they come closer (for instance because the viewport
+	 * moves).</li>
+	 * </ul>
+	 * Use this for large worlds with many objects that nobody can see. Alarms
+	 * still go off for objects that are not updated.
+	 */
+	public static boolean simulationLOD = false;
+
+	/**
+	 * Distance in pixels to the viewport within which objects are updated
+	 * every cycle, see simulationLOD
+	 */
+	public static int lodMargin = 200;
+
+	/**
+	 * Objects farther than lodMargin from the viewport are updated once every
+	 * lodFarInterval cycles, see simulationLOD
+	 */
+	public static int lodFarInterval = 4;
+
+	/**
+	 * Distance in pixels to the viewport beyond which objects are not updated
+	 * at all, see simulationLOD
+	 */
+	public static int lodDormantDistance = 2000;
+
+	/**
+	 * The moves of ICollision objects waiting for tile collision checking
+	 */
+	private static TileCollisionBatch tileCollisionBatch = new TileCollisionBatch();
+
+	/**
+	 * When true, GameObjects that implement IParallelUpdate are updated at the
+	 * same time on several threads, before the other objects are updated.
+	 * This makes use of all processor cores of the device when there are many
+	 * simple objects. Read the rules in IParallelUpdate before using it!
+	 * 
+	 * @see android.gameengine.icadroids.objects.IParallelUpdate
+	 */
+	public static boolean parallelUpdate = false;
+
+	/**
+	 * The number of threads used when parallelUpdate is true, including the
+	 * game thread. Default is the number of processors of the device.
+	 */
+	public static int parallelUpdateThreads = Runtime.getRuntime()
+			.availableProcessors();
+
+	/**
+	 * Marks the elements to remove from the items-list or the alarms, reused
+	 * every cycle
+	 */
+	private static boolean[] removeMarks = new boolean[64];
+
+	/**
+	 * Lets the alarms go off at the right time
+	 */
+	private static AlarmScheduler alarmScheduler = new AlarmScheduler();
+
+	/**
+	 * Puts new objects and objects that changed depth in the items-list
+	 */
+	private static DepthLayers depthLayers = new DepthLayers();
+
+	/**
+	 * The items of every class, for getObjectsOfType
+	 */
+	private static TypeIndex typeIndex = new TypeIndex();
+
+	/**
+	 * Moves the MoveableGameObjects when dataOrientedMovement is true
+	 */
+	private static MovementStore movementStore = new MovementStore();
+
+	/**
+	 * Selects the items to update when simulationLOD is true
+	 */
+	private static SimulationLOD simulationLevels = new SimulationLOD();
+
+	/**
+	 * Number of cycles in which elapsed ticks must still be reset after
+	 * simulationLOD has been switched off
+	 */
+	private static int lodReleaseTicks = 0;
+
+	/**
+	 * Updates the IParallelUpdate objects on several threads
+	 */
+	private static ParallelUpdater parallelUpdater = new ParallelUpdater();
+
+	/**
+	 * The pools of GameObjects, per type, see registerPool
+	 */
+	private static HashMap<Class<?>, GameObjectPool<?>> pools = new HashMap<Class<?>, GameObjectPool<?>>();
+
+	/**
+	 * True while objects are updated in parallel. Changes of position are
+	 * passed to the broadphase afterwards, and searching for objects doesn't
+	 * use the broadphase.
+	 */
+	private static volatile boolean updatingInParallel = false;
 
 	/**
 	 * The game dashboard. It's an Android LinearLayout (see:
@@ -170,10 +390,25 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 * @see android.gameengine.icadroids.engine.GameEngine#initialize()
 	 */
 	public GameEngine() {
-		items = new Vector<GameObject>();
-		newItems = new Vector<GameObject>();
-		gameAlarms = new Vector<Alarm>();
+		items = new EntityRegistry<GameObject>();
+		newItems = new EntityRegistry<GameObject>();
+		gameAlarms = new EntityRegistry<Alarm>();
+		alarmScheduler.clear();
+		alarmScheduler = new AlarmScheduler();
 		tileBasedMap = false;
+		broadphase = null;
+		broadphaseType = BROADPHASE_NONE;
+		broadphaseDirty = true;
+		tileCollisionBatch = new TileCollisionBatch();
+		parallelUpdater.shutdown();
+		parallelUpdater = new ParallelUpdater();
+		depthLayers = new DepthLayers();
+		typeIndex = new TypeIndex();
+		movementStore = new MovementStore();
+		simulationLevels = new SimulationLOD();
+		lodReleaseTicks = 0;
+		pools = new HashMap<Class<?>, GameObjectPool<?>>();
+		PixelMask.clearCache();
 	}
 
 	/***
@@ -289,10 +524,36 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 		intializeInput();		
 	}
 
+	/**
+	 * Initialize the game without Android views, for a headless game (see
+	 * HeadlessRunner). The game is initialized as usual, but no GameView,
+	 * GameThread, sounds or input are created.
+	 * 
+	 * @param width
+	 *            width in pixels of the (imaginary) screen
+	 * @param height
+	 *            height in pixels of the (imaginary) screen
+	 */
+	final void initializeHeadless(int width, int height) {
+		screenWidth = width;
+		screenHeight = height;
+		setMapDimensions(width, height);
+		initializeGameEngine();
+		if (Viewport.useViewport) {
+			Viewport viewport = Viewport.getInstance();
+			viewport.setBounds(0, 0, getMapWidth(), getMapHeight());
+			viewport.intialize(width, height);
+		}
+	}
+
 	/**
 	 * Initialize the touch and/or the onScreenButtons 
 	 */
 	public void intializeInput() {
+		if (gameView == null) {
+			// headless, there is no input
+			return;
+		}
 		if (TouchInput.use) {
 			gameView.setOnTouchListener(touch);
 		}
@@ -321,17 +582,69 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 * Call the update for every GameObject added to the list.
 	 */
 	protected final void updateGame() {
+		prepareBroadphase();
+		long time = FrameProfiler.begin();
 		update();
+		FrameProfiler.end(FrameProfiler.PHASE_USER_UPDATE, time);
+		time = FrameProfiler.begin();
+		boolean interpolate = GameThread.USE_FIXED_TIMESTEP
+				&& GameThread.INTERPOLATE;
+		if ( movementStore.size() > 0 ) {
+			movementStore.integrate(interpolate);
+		}
+		boolean[] lod = null;
+		if ( simulationLOD && Viewport.useViewport ) {
+			lod = simulationLevels.select(items, Viewport.getInstance(),
+					lodMargin, lodFarInterval, lodDormantDistance);
+			lodReleaseTicks = 2;
+		} else if ( lodReleaseTicks > 0 ) {
+			simulationLevels.release(items);
+			lodReleaseTicks--;
+		}
+		boolean parallel = parallelUpdate;
+		if ( parallel ) {
+			updatingInParallel = true;
+			try {
+				parallelUpdater.update(items, lod, parallelUpdateThreads,
+						interpolate);
+			} finally {
+				updatingInParallel = false;
+			}
+		}
 		for (int i = 0; i < items.size(); i++) {
-			if ( items.get(i).isActive() ) {
-				items.get(i).update();
-				calculateOutsideWorld(items.get(i));
+			GameObject item = items.get(i);
+			if ( lod != null && !lod[i] ) {
+				// far away, not updated in this cycle
+				if ( interpolate ) {
+					item.saveDrawStartPosition();
+				}
+				continue;
+			}
+			if ( item.isActive() ) {
+				if ( parallel && ParallelUpdater.isParallel(item) ) {
+					// already updated, pass the new position on
+					positionChanged(item);
+				} else {
+					if ( interpolate && !MovementStore.isStored(item) ) {
+						item.saveDrawStartPosition();
+					}
+					item.update();
+				}
+				calculateOutsideWorld(item);
 			}
 		}
-		for (int i = 0; i < gameAlarms.size(); i++) {
-			gameAlarms.get(i).update();
+		FrameProfiler.end(FrameProfiler.PHASE_OBJECT_UPDATE, time);
+		time = FrameProfiler.begin();
+		if (!tileCollisionBatch.isEmpty()) {
+			tileCollisionBatch.run(gameTiles);
 		}
+		FrameProfiler.end(FrameProfiler.PHASE_TILE_COLLISION, time);
+		time = FrameProfiler.begin();
+		alarmScheduler.update();
+		FrameProfiler.end(FrameProfiler.PHASE_ALARMS, time);
+		time = FrameProfiler.begin();
 		cleanupObjectlists();
+		FrameProfiler.end(FrameProfiler.PHASE_CLEANUP, time);
 	}
 
 	/**
@@ -375,32 +688,224 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 * end of a game loop pass.
 	 */
 	private void cleanupObjectlists() {
-		Iterator<GameObject> it = items.iterator();
-		while (it.hasNext()) {
-			GameObject go = it.next();
-			if (!go.isActive()) {
-				deleteObjectAlarms(go);
-				it.remove();
+		removeInactiveItems();
+		// new items go to the end of the layer of their depth, in the order
+		// they were added
+		for (int i = 0; i < newItems.size(); i++) {
+			GameObject item = newItems.get(i);
+			item.saveDrawStartPosition();
+			depthLayers.add(item);
+			typeIndex.add(item);
+			if (dataOrientedMovement && item instanceof MoveableGameObject) {
+				movementStore.add((MoveableGameObject) item);
+			}
+			if (broadphase != null && !broadphaseDirty) {
+				broadphase.insert(item);
 			}
 		}
-		for (int i = 0; i < newItems.size(); i++) {
-			// note: always moving the first element of newItems ensures same
-			// order
-			GameObject item = newItems.remove(0);
-			if (item.getDepth() > 0) {
-				float d = item.getDepth();
-				// move index to position of first element having smaller depth
-				int index = 0;
-				while (index < items.size()) {
-					if (items.get(index).getDepth() < d) {
-						break;
-					}
-					index++;
+		newItems.removeAllElements();
+		// the broadphase sorts on the index in the list when it is queried,
+		// so a new order doesn't change the broadphase
+		if (depthLayers.hasChanges()) {
+			depthLayers.merge(items);
+		}
+		prepareBroadphase();
+	}
+
+	/**
+	 * Remove all inactive items in one pass over the list, keeping the order
+	 * of the other items. The alarms of the removed items are found through
+	 * the AlarmScheduler and removed as well.
+	 */
+	private void removeInactiveItems() {
+		int n = items.size();
+		if (removeMarks.length < n) {
+			removeMarks = new boolean[Math.max(n, removeMarks.length * 2)];
+		}
+		int removed = 0;
+		for (int i = 0; i < n; i++) {
+			GameObject go = items.get(i);
+			boolean inactive = !go.isActive();
+			removeMarks[i] = inactive;
+			if (inactive) {
+				removed++;
+				typeIndex.removed(go);
+				if (MovementStore.isStored(go)) {
+					movementStore.remove((MoveableGameObject) go);
 				}
-				items.add(index, item);
+				if (go instanceof IAlarm) {
+					deleteObjectAlarms((IAlarm) go);
+				}
+				if (broadphase != null && !broadphaseDirty) {
+					broadphase.remove(go);
+				}
+				// the list and the type index drop it below, they only keep
+				// active objects
+				GameObjectPool.release(go);
+			}
+		}
+		if (removed > 0) {
+			items.removeMarked(removeMarks);
+			typeIndex.removeInactive();
+		}
+	}
+
+	/**
+	 * Remove all Alarms for the specified object, this will be called
+	 * when a GameObject is removed from the Game
+	 * 
+	 * @param target the object for which Alarms are deleted
+	 */
+	private static void deleteObjectAlarms(IAlarm target) {
+		List<Alarm> alarms = alarmScheduler.getAlarms(target);
+		while (alarms != null && !alarms.isEmpty()) {
+			removeAlarm(alarms.get(alarms.size() - 1));
+		}
+	}
+
+	/**
+	 * Create, remove or rebuild the broadphase for collisions between
+	 * GameObjects, according to collisionBroadphase. The broadphase is only
+	 * rebuilt when it is new or when all items have been removed.
+	 */
+	private static void prepareBroadphase() {
+		if (collisionBroadphase != broadphaseType
+				|| (broadphase instanceof SpatialHash && ((SpatialHash) broadphase)
+						.getCellSize() != spatialHashCellSize)) {
+			if (collisionBroadphase == BROADPHASE_SPATIAL_HASH) {
+				broadphase = new SpatialHash(spatialHashCellSize);
+			} else if (collisionBroadphase == BROADPHASE_AABB_TREE) {
+				broadphase = new AABBTree();
 			} else {
-				// just add to the back of the list
-				items.add(item);
+				broadphase = null;
+			}
+			broadphaseType = collisionBroadphase;
+			broadphaseDirty = true;
+		}
+		if (broadphase != null && broadphaseDirty) {
+			broadphase.rebuild(items);
+		}
+		broadphaseDirty = false;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b>
+	 * <p>
+	 * Called by GameObject when its depth has changed. At the end of the
+	 * cycle of the game loop the object is moved to the end of the layer of
+	 * its new depth.
+	 * 
+	 * @param go
+	 *            the GameObject
+	 */
+	public static void depthChanged(GameObject go) {
+		if (depthLayers != null) {
+			depthLayers.depthChanged(go);
+		}
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b>
+	 * <p>
+	 * Get the batch that collects moves for tile collision checking, used by
+	 * MoveableGameObject when batchTileCollisions is true.
+	 * 
+	 * @return the TileCollisionBatch
+	 */
+	public static TileCollisionBatch getTileCollisionBatch() {
+		return tileCollisionBatch;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b>
+	 * <p>
+	 * Called by GameObject when its position rectangle has been updated, to
+	 * keep the broadphase up to date.
+	 * 
+	 * @param go
+	 *            the GameObject that may have moved
+	 */
+	public static void positionChanged(GameObject go) {
+		if (broadphase != null && !broadphaseDirty && !updatingInParallel) {
+			broadphase.update(go);
+		}
+	}
+
+	/**
+	 * Find all GameObjects whose position intersects the given rectangle. The
+	 * objects are added to the result in the order of the items-list, using
+	 * the broadphase set in collisionBroadphase. Collision categories and
+	 * masks are not used, see findItemsColliding.<br />
+	 * <b>There is no need to call this method yourself.</b> Use findItemAt
+	 * instead.
+	 * 
+	 * @param area
+	 *            the rectangle to check
+	 * @param exclude
+	 *            a GameObject that must not be in the result (usually the
+	 *            object asking), or null
+	 * @param result
+	 *            the list to which the objects found will be added
+	 */
+	public static void findItemsIntersecting(Rect area, GameObject exclude,
+			List<GameObject> result) {
+		findItems(area, exclude, null, result);
+	}
+
+	/**
+	 * Find all GameObjects whose position intersects the given rectangle and
+	 * that can collide with the given object, according to the collision
+	 * categories and masks of both. Objects that can't collide are skipped
+	 * before their positions are compared. The objects are added to the
+	 * result in the order of the items-list, using the broadphase set in
+	 * collisionBroadphase.<br />
+	 * <b>This method is used by the collision methods of MoveableGameObject,
+	 * there is no need to call it yourself.</b>
+	 * 
+	 * @param area
+	 *            the rectangle to check
+	 * @param asking
+	 *            the GameObject asking, it is not in the result
+	 * @param result
+	 *            the list to which the objects found will be added
+	 * @see android.gameengine.icadroids.objects.GameObject#canCollideWith(GameObject)
+	 */
+	public static void findItemsColliding(Rect area, GameObject asking,
+			List<GameObject> result) {
+		findItems(area, asking, asking, result);
+	}
+
+	/**
+	 * Find the items intersecting a rectangle, with the broadphase if there
+	 * is one
+	 */
+	private static void findItems(Rect area, GameObject exclude,
+			GameObject filter, List<GameObject> result) {
+		if (updatingInParallel) {
+			// the broadphase can't be used by several threads at once
+			findItemsLinear(area, exclude, filter, result);
+			return;
+		}
+		if (broadphaseDirty) {
+			prepareBroadphase();
+		}
+		if (broadphase != null) {
+			broadphase.query(area, exclude, filter, result);
+			return;
+		}
+		findItemsLinear(area, exclude, filter, result);
+	}
+
+	/**
+	 * Find the items intersecting a rectangle by testing all items
+	 */
+	private static void findItemsLinear(Rect area, GameObject exclude,
+			GameObject filter, List<GameObject> result) {
+		for (int i = 0; i < items.size(); i++) {
+			GameObject go = items.get(i);
+			if (go != exclude && (filter == null || filter.canCollideWith(go))
+					&& Rect.intersects(area, go.position)) {
+				result.add(go);
 			}
 		}
 	}
@@ -433,7 +938,12 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 *            The alarm to be added.
 	 */
 	public static void addAlarm(Alarm a) {
-		gameAlarms.add(a);
+		int index = gameAlarms.indexOfHandle(a.getRegistryHandle());
+		if (index >= 0 && gameAlarms.get(index) == a) {
+			return;
+		}
+		a.setRegistryHandle(gameAlarms.addElement(a));
+		alarmScheduler.add(a);
 	}
 
 	/**
@@ -443,23 +953,22 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 *            The alarm to be deleted.
 	 */
 	public void deleteAlarm(Alarm a) {
-		gameAlarms.remove(a);
+		removeAlarm(a);
 	}
 
 	/**
-	 * Remove all Alarms for the specified GameObject, this will be called
-	 * when the GameObject is removed from the Game
+	 * Remove an alarm from the list of alarms and from the scheduler
 	 * 
-	 * @param go the GameObject for which Alarms are deleted
-	 */
-	private void deleteObjectAlarms(GameObject go) {
-		if (go instanceof IAlarm) {
-			Iterator<Alarm> it = gameAlarms.iterator();
-			while (it.hasNext()) {
-				if ((it.next()).targets(((IAlarm) go)))
-					it.remove();
-			}
+	 * @param a
+	 *            The alarm to be deleted.
+	 */
+	private static void removeAlarm(Alarm a) {
+		int index = gameAlarms.indexOfHandle(a.getRegistryHandle());
+		if (index >= 0 && gameAlarms.get(index) == a) {
+			gameAlarms.removeElementSwap(index);
 		}
+		a.setRegistryHandle(-1);
+		alarmScheduler.remove(a);
 	}
 
 	/**
@@ -467,6 +976,7 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 */
 	public void deleteAllAlarms() {
 		gameAlarms.removeAllElements();
+		alarmScheduler.clear();
 	}
 
 	/***
@@ -485,7 +995,21 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	public final void deleteAllGameObjects() {
 		// needs update?? removing all elements generally means stopping the
 		// game...
+		typeIndex.clear();
+		movementStore.clear();
+		for (int i = 0; i < items.size(); i++) {
+			GameObject go = items.get(i);
+			if (GameObjectPool.isPooled(go)) {
+				// back into its pool, without its alarms
+				go.clearActive();
+				if (go instanceof IAlarm) {
+					deleteObjectAlarms((IAlarm) go);
+				}
+				GameObjectPool.release(go);
+			}
+		}
 		items.removeAllElements();
+		broadphaseDirty = true;
 	}
 
 	/**
@@ -495,11 +1019,23 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 *            De class type of the instances to be removed
 	 */
 	public <T> void deleteAllGameObjectsOfType(Class<T> type) {
-		for (int i = 0; i < items.size(); i++) {
-			GameObject go = items.get(i);
-			if (go.getClass() == type) {
-				go.clearActive();
-			}
+		deleteAllGameObjectsOfType(type, false);
+	}
+
+	/**
+	 * Remove all GameObject instances of given class type, and if you want of
+	 * its subclasses.
+	 * 
+	 * @param type
+	 *            De class type of the instances to be removed
+	 * @param includeSubclasses
+	 *            true to also remove instances of subclasses of type
+	 */
+	public <T> void deleteAllGameObjectsOfType(Class<T> type,
+			boolean includeSubclasses) {
+		List<T> found = typeIndex.view(type, includeSubclasses);
+		for (int i = 0; i < found.size(); i++) {
+			((GameObject) found.get(i)).clearActive();
 		}
 	}
 
@@ -583,7 +1119,7 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	public final void addGameObject(GameObject gameObject, int x, int y) {
 		gameObject.setStartPosition(x, y);
 		gameObject.jumpToStartPosition();
-		newItems.add(gameObject);
+		addNewItem(gameObject);
 	}
 
 	/**
@@ -606,8 +1142,8 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 			float layerposition) {
 		gameObject.setStartPosition(x, y);
 		gameObject.jumpToStartPosition();
-		gameObject.setDepth(layerposition);
-		newItems.add(gameObject);
+		gameObject.setDepthBeforeAdding(layerposition);
+		addNewItem(gameObject);
 	}
 
 	/**
@@ -623,8 +1159,8 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 *            1 (float). </b> 1 front, 0 back
 	 */
 	public final void addGameObject(GameObject gameObject, float layerposition) {
-		gameObject.setDepth(layerposition);
-		newItems.add(gameObject);
+		gameObject.setDepthBeforeAdding(layerposition);
+		addNewItem(gameObject);
 	}
 
 	/**
@@ -636,7 +1172,7 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 *            GameObject or MovableGameObject as it's parent.
 	 */
 	public final void addGameObject(GameObject gameObject) {
-		newItems.add(gameObject);
+		addNewItem(gameObject);
 	}
 
 	/**
@@ -646,7 +1182,106 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 * @param objectList
 	 */
 	public final void addListOfObject(Collection<GameObject> objectList) {
-		newItems.addAll(objectList);
+		for (GameObject gameObject : objectList) {
+			addNewItem(gameObject);
+		}
+	}
+
+	/**
+	 * Register a pool for GameObjects of a type. Objects of the pool are added
+	 * to the game with acquireGameObject. When such an object is deleted, it
+	 * goes back into the pool at the end of the cycle of the game loop, to be
+	 * used again by the next acquireGameObject. Use pools for objects that are
+	 * made and deleted all the time, like bullets, so no garbage is made.<br />
+	 * Register the pools in initialize(). Registering a pool for a type again
+	 * replaces the pool.
+	 * 
+	 * @param type
+	 *            the class of the objects
+	 * @param factory
+	 *            makes the objects when the pool is empty
+	 * @return the pool, for its hit and miss counters
+	 * @see android.gameengine.icadroids.objects.GameObjectPool
+	 */
+	public final <T extends GameObject> GameObjectPool<T> registerPool(
+			Class<T> type, IGameObjectFactory<T> factory) {
+		GameObjectPool<T> pool = new GameObjectPool<T>(factory);
+		pools.put(type, pool);
+		return pool;
+	}
+
+	/**
+	 * Get the pool of a type
+	 * 
+	 * @param type
+	 *            the class of the objects
+	 * @return the pool, or null if no pool has been registered for the type
+	 */
+	@SuppressWarnings("unchecked")
+	public final <T extends GameObject> GameObjectPool<T> getPool(Class<T> type) {
+		return (GameObjectPool<T>) pools.get(type);
+	}
+
+	/**
+	 * Add a GameObject from the pool of its type to the game, at the given
+	 * position. The object becomes active in the next pass of the gameloop,
+	 * like with addGameObject. Delete it the usual way when you no longer
+	 * need it.
+	 * 
+	 * @param type
+	 *            the class of the object, registered with registerPool
+	 * @param x
+	 *            The x start position of the object
+	 * @param y
+	 *            The y start position of the object
+	 * @return the object, reset when it has been used before
+	 */
+	public final <T extends GameObject> T acquireGameObject(Class<T> type,
+			int x, int y) {
+		return acquireGameObject(type, x, y, 0);
+	}
+
+	/**
+	 * Add a GameObject from the pool of its type to the game, at the given
+	 * position and layer position.
+	 * 
+	 * @param type
+	 *            the class of the object, registered with registerPool
+	 * @param x
+	 *            The x start position of the object
+	 * @param y
+	 *            The y start position of the object
+	 * @param layerposition
+	 *            The layer position of the object, see
+	 *            GameObject.setLayerPosition
+	 * @return the object, reset when it has been used before
+	 * @see #acquireGameObject(Class, int, int)
+	 */
+	public final <T extends GameObject> T acquireGameObject(Class<T> type,
+			int x, int y, float layerposition) {
+		GameObjectPool<T> pool = getPool(type);
+		if (pool == null) {
+			throw new IllegalArgumentException("No pool registered for "
+					+ type.getName());
+		}
+		T gameObject = pool.acquire(layerposition);
+		gameObject.setStartPosition(x, y);
+		gameObject.jumpToStartPosition();
+		addNewItem(gameObject);
+		return gameObject;
+	}
+
+	/**
+	 * Put a GameObject in the list of new items. Objects may be added from
+	 * several threads during a parallel update, so this is synchronized.
+	 * 
+	 * @param gameObject
+	 *            the new GameObject
+	 */
+	private static void addNewItem(GameObject gameObject) {
+		synchronized (newItems) {
+			newItems.addElement(gameObject);
+		}
 	}
 
 	/**
@@ -758,6 +1393,9 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 */
 	public final void setBackground(String backgroundImage,
 			boolean backgroundFit) {
+		if (gameView == null) {
+			return;
+		}
 		gameView.setBackgroundImage(backgroundImage);
 		gameView.setBackgroundFit(backgroundFit);
 	}
@@ -775,6 +1413,9 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 *            The name of the background image that will be set
 	 */
 	public final void setBackground(String backgroundImage) {
+		if (gameView == null) {
+			return;
+		}
 		gameView.setBackgroundImage(backgroundImage);
 		gameView.setBackgroundFit(false);
 	}
@@ -788,7 +1429,12 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 */
 	public final void setZoomFactor(float zoomFactor) {
 		// this method will pass through GameView (adjustment of the Matrix of the Canvas)
-		gameView.setZoomFactor(zoomFactor);
+		if (gameView != null) {
+			gameView.setZoomFactor(zoomFactor);
+		} else if (Viewport.useViewport) {
+			Viewport.getInstance().setZoomFactor(screenWidth, screenHeight,
+					zoomFactor);
+		}
 	}
 
 	/**
@@ -872,26 +1518,83 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 * Clears the background Image so only the background color will show
 	 */
 	public final void clearBackgroundImage() {
-		gameView.setBackgroundImage(null);
+		if (gameView != null) {
+			gameView.setBackgroundImage(null);
+		}
 	}
 
 	/**
-	 * Get all instances of the specified type that are currently in the game
+	 * Get all instances of the specified type that are currently in the game,
+	 * in the order in which they are drawn.
 	 * 
 	 * @param type
 	 *            the class name with .class behind it.
-	 * @return an arraylist containing all gameObjects of the specified type.
+	 * @return an arraylist containing all gameObjects of exactly the specified
+	 *         type
+	 * @see #getObjectsOfType(Class)
 	 */
 	public final <T> Vector<GameObject> getItemsOfType(Class<T> type) {
-		Vector<GameObject> gameobjects = new Vector<GameObject>();
-		for (int i = 0; i < items.size(); i++) {
-			if (items.get(i).getClass() == type) {
-				gameobjects.add(items.get(i));
-			}
+		List<T> found = typeIndex.view(type, false);
+		// the index keeps the objects in the order they were added; sort them
+		// on their place in the items-list. Index in the list in the high
+		// bits, index in found in the low bits.
+		long[] keys = new long[found.size()];
+		for (int i = 0; i < keys.length; i++) {
+			GameObject go = (GameObject) found.get(i);
+			long index = items.indexOfHandle(go.getRegistryHandle());
+			keys[i] = (index << 32) | i;
+		}
+		Arrays.sort(keys);
+		Vector<GameObject> gameobjects = new Vector<GameObject>(keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			gameobjects.add((GameObject) found.get((int) keys[i]));
 		}
 		return gameobjects;
 	}
 
+	/**
+	 * Get all instances of the specified type that are currently in the game,
+	 * without making a new list. Use this if you look for objects of a type
+	 * every cycle of the game loop, for example:
+	 * 
+	 * <pre>
+	 * List&lt;Strawberry&gt; strawberries = getObjectsOfType(Strawberry.class);
+	 * for (int i = 0; i &lt; strawberries.size(); i++) {
+	 * 	Strawberry s = strawberries.get(i);
+	 * 	...
+	 * }
+	 * </pre>
+	 * 
+	 * The list is read-only, and it changes when objects are added or removed
+	 * at the end of the cycle of the game loop. You may keep it, you will
+	 * get the same list every time. Looking through it only takes time for
+	 * the objects of the type, not for all objects in the game.
+	 * 
+	 * @param type
+	 *            the class name with .class behind it.
+	 * @return a read-only list of all gameObjects of exactly the specified
+	 *         type, in the order they were added to the game
+	 */
+	public final <T> List<T> getObjectsOfType(Class<T> type) {
+		return typeIndex.view(type, false);
+	}
+
+	/**
+	 * Get all instances of the specified type that are currently in the game,
+	 * without making a new list, see getObjectsOfType(Class).
+	 * 
+	 * @param type
+	 *            the class name with .class behind it.
+	 * @param includeSubclasses
+	 *            true to include instances of subclasses of type. These are
+	 *            grouped per class.
+	 * @return a read-only list of all gameObjects of the specified type
+	 */
+	public final <T> List<T> getObjectsOfType(Class<T> type,
+			boolean includeSubclasses) {
+		return typeIndex.view(type, includeSubclasses);
+	}
+
 	/**
 	 * This function finds gameObjects inside a given rectangle.
 	 * 
@@ -903,12 +1606,7 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 	 */
 	public final Vector<GameObject> findItemAt(Rect rectangle) {
 		Vector<GameObject> foundItems = new Vector<GameObject>();
-
-		for (int i = 0; i < items.size(); i++) {
-			if (Rect.intersects(rectangle, (items.get(i).position))) {
-				foundItems.add(items.get(i));
-			}
-		}
+		findItemsIntersecting(rectangle, null, foundItems);
 		return foundItems;
 	}
 
@@ -1078,9 +1776,9 @@ public abstract class GameEngine extends Activity implements SensorEventListener
 		clickedPos.set((int) TouchInput.xPos - touchSize, (int) TouchInput.yPos
 				- touchSize, (int) TouchInput.xPos + touchSize,
 				(int) TouchInput.yPos + touchSize);
-		if (!findItemAt(clickedPos).isEmpty()) {
-			GameObject gameObject = findItemAt(clickedPos).get(0);
-			return gameObject;
+		Vector<GameObject> touched = findItemAt(clickedPos);
+		if (!touched.isEmpty()) {
+			return touched.get(0);
 		}
 		return null;
 	}
@@ -6,21 +6,15 @@ package android.gameengine.icadroids.engine;
  * 
  * @author Edward
  * 
+ * @deprecated use FrameProfiler, which also measures the phases of every
+ *             frame. USE_FPS_COUNTER still writes the FPS to the log.
  */
+@Deprecated
 public class GameFPSCounter {
-	long startTime = System.nanoTime();
-	int frames = 0;
 	public static boolean USE_FPS_COUNTER = false;
 
 	public void logFrame(String name) {
-		if (USE_FPS_COUNTER) {
-			frames++;
-			if (System.nanoTime() - startTime >= 1000000000) {
-				//Log.d(name + " FPS:", "" + frames + " FPS!");
-				frames = 0;
-				startTime = System.nanoTime();
-			}
-		}
+		FrameProfiler.getInstance().frameDone(name);
 	}
 
-}
\ No newline at end of file
+}
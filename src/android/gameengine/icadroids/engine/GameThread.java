@@ -1,6 +1,8 @@
 package android.gameengine.icadroids.engine;
 
 import android.annotation.SuppressLint;
+import android.gameengine.icadroids.platform.IClock;
+import android.gameengine.icadroids.platform.Platform;
 import android.graphics.Canvas;
 import android.util.Log;
 
@@ -29,14 +31,61 @@ public class GameThread extends Thread
 	 */
 	private boolean running = false;
 	/**
-	 * Max FPS of this Game
+	 * Max FPS of this Game. When USE_FIXED_TIMESTEP is true, this is the
+	 * number of updates of the game logic per second.
 	 */
 	public static int MAX_FPS = 30;
 
 	/**
-	 * Registers the game FPS
+	 * Set to true to run the game logic at a fixed rate (MAX_FPS updates per
+	 * second), independent of the time drawing takes. When a frame takes too
+	 * long, the game logic catches up by doing several updates before drawing
+	 * again, so the game keeps its speed on slow devices. <br />
+	 * Set it before the game starts, for instance in the constructor of your
+	 * game.
 	 */
-	private GameFPSCounter fps = new GameFPSCounter();
+	public static boolean USE_FIXED_TIMESTEP = false;
+
+	/**
+	 * The maximum number of updates done before drawing, when the game logic
+	 * has to catch up (only when USE_FIXED_TIMESTEP is true). If the device is
+	 * too slow to keep up even then, the game will slow down instead of
+	 * freezing.
+	 */
+	public static int MAX_CATCH_UP_TICKS = 5;
+
+	/**
+	 * When USE_FIXED_TIMESTEP is true, draw GameObjects between their position
+	 * at the previous and the current update, according to the time passed
+	 * since the last update. This gives smooth motion when drawing and
+	 * updating don't happen at the same rate.
+	 */
+	public static boolean INTERPOLATE = true;
+
+	/**
+	 * The maximum number of frames drawn per second when INTERPOLATE is used
+	 * (only when USE_FIXED_TIMESTEP is true).
+	 */
+	public static int MAX_RENDER_FPS = 60;
+
+	/**
+	 * Set to true to draw the game in a separate thread. The game thread then
+	 * only updates the game logic and, instead of drawing, publishes a
+	 * snapshot of the scene that the render thread draws. On devices with
+	 * more than one core, waiting for the screen no longer holds up the game
+	 * logic.<br />
+	 * Note: only the background, the tiles and the sprites of the GameObjects
+	 * are drawn; overrides of drawGameObject and drawCustomObjects are not
+	 * called. Use the dashboard for text and other extras. <br />
+	 * Set it before the game starts, for instance in the constructor of your
+	 * game.
+	 */
+	public static boolean USE_RENDER_THREAD = false;
+
+	/**
+	 * Thread that draws the game, when USE_RENDER_THREAD is true
+	 */
+	private RenderThread renderThread;
 
 	/**
 	 * Canvas that needs to be drawn
@@ -73,13 +122,52 @@ public class GameThread extends Thread
 	 */
 	public final long getCurrentSystemTime()
 	{
-		return System.currentTimeMillis();
+		return Platform.getClock().nanoTime() / 1000000;
 	}
 
 	/***
 	 * Main game-loop thread that handles gamelogic and rendering.
 	 */
 	public void run()
+	{
+		if (USE_RENDER_THREAD)
+		{
+			renderThread = new RenderThread(view);
+			renderThread.start();
+		}
+		if (USE_FIXED_TIMESTEP)
+		{
+			runFixedTimestep();
+		} else
+		{
+			runVariableTimestep();
+		}
+		if (renderThread != null)
+		{
+			renderThread.stopRunning();
+			// wait until the last frame is drawn, so the next game thread
+			// doesn't start a render thread while this one still draws
+			boolean retry = true;
+			while (retry)
+			{
+				try
+				{
+					renderThread.join();
+					retry = false;
+				} catch (InterruptedException e)
+				{
+					Log.wtf("GameLoop", "join of render thread interupted", e);
+				}
+			}
+			renderThread = null;
+		}
+	}
+
+	/**
+	 * Game loop doing one update and one draw per pass, sleeping for the
+	 * rest of 1/MAX_FPS second.
+	 */
+	private void runVariableTimestep()
 	{
 		long ticksPS = 1000 / MAX_FPS;
 		long startTime;
@@ -87,16 +175,20 @@ public class GameThread extends Thread
 		running = true;
 		while (running)
 		{
-			fps.logFrame("Render");
 			startTime = getCurrentSystemTime();
 			updateGame();
 			updateEngine();
+			if (renderThread == null)
+			{
+				// otherwise the render thread counts the frames it draws
+				FrameProfiler.getInstance().frameDone("Render");
+			}
 			sleepTime = ticksPS - (getCurrentSystemTime() - startTime);
 			try
 			{
 				if (sleepTime > 0)
 				{
-					Thread.sleep(sleepTime);
+					Platform.getClock().sleep(sleepTime * 1000000);
 				}
 			} catch (InterruptedException e)
 			{
@@ -105,24 +197,102 @@ public class GameThread extends Thread
 		}
 	}
 
+	/**
+	 * Game loop with a fixed timestep: time is measured with the clock of the
+	 * Platform and added to an accumulator. The game logic is updated once for every
+	 * 1/MAX_FPS second in the accumulator, after which the game is drawn. The
+	 * part of an update period left in the accumulator is passed to the view
+	 * as interpolation alpha.
+	 */
+	private void runFixedTimestep()
+	{
+		long tickNanos = 1000000000L / MAX_FPS;
+		long frameNanos = 1000000000L / Math.max(MAX_FPS, MAX_RENDER_FPS);
+		IClock clock = Platform.getClock();
+		long previousTime = clock.nanoTime();
+		long accumulator = 0;
+		running = true;
+		while (running)
+		{
+			long now = clock.nanoTime();
+			accumulator += now - previousTime;
+			previousTime = now;
+			int ticks = 0;
+			while (accumulator >= tickNanos && ticks < MAX_CATCH_UP_TICKS)
+			{
+				updateGame();
+				accumulator -= tickNanos;
+				ticks++;
+			}
+			if (accumulator >= tickNanos)
+			{
+				// can't catch up: drop the backlog, the game slows down
+				accumulator = accumulator % tickNanos;
+			}
+			// the render thread interpolates by itself, so only publish after
+			// an update
+			boolean drawEveryPass = INTERPOLATE && renderThread == null;
+			if (ticks > 0 || drawEveryPass)
+			{
+				view.setInterpolationAlpha(INTERPOLATE ? (float) accumulator
+						/ tickNanos : 1f);
+				updateEngine();
+				if (renderThread == null)
+				{
+					FrameProfiler.getInstance().frameDone("Render");
+				}
+			}
+			// sleep until the next update is due, or the next frame when
+			// interpolating
+			long sleepNanos = tickNanos - accumulator;
+			if (drawEveryPass)
+			{
+				sleepNanos = Math.min(sleepNanos, frameNanos
+						- (clock.nanoTime() - now));
+			} else
+			{
+				sleepNanos -= clock.nanoTime() - now;
+			}
+			try
+			{
+				clock.sleep(sleepNanos);
+			} catch (InterruptedException e)
+			{
+				Log.wtf("GameLoop", "loop interupted", e);
+			}
+		}
+		view.setInterpolationAlpha(1f);
+	}
+
 	/**
 	 * Request the device to draw
 	 */
 	@SuppressLint("WrongCall")
 	private void updateEngine()
 	{
+		if (renderThread != null)
+		{
+			view.publishSnapshot();
+			return;
+		}
 		try
 		{
+			long time = FrameProfiler.begin();
 			startDraw();
+			FrameProfiler.end(FrameProfiler.PHASE_LOCK_CANVAS, time);
+			time = FrameProfiler.begin();
 			synchronized (view.getHolder())
 			{
 				view.onDraw(c);
 			}
+			FrameProfiler.end(FrameProfiler.PHASE_DRAW, time);
 		} finally
 		{
 			if (c != null)
 			{
+				long time = FrameProfiler.begin();
 				endDraw(c);
+				FrameProfiler.end(FrameProfiler.PHASE_UNLOCK_AND_POST, time);
 			}
 		}
 	}
@@ -2,6 +2,7 @@ package android.gameengine.icadroids.engine;
 
 import android.gameengine.icadroids.objects.GameObject;
 import android.gameengine.icadroids.objects.graphics.Sprite;
+import android.gameengine.icadroids.platform.Platform;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
@@ -34,8 +35,41 @@ public class GameView extends SurfaceView implements Callback
 	private Paint rectanglePaint = new Paint();
 	private Sprite backgroundImage = new Sprite();
 
+	/**
+	 * The part of the game world that is visible, used to draw only the
+	 * visible tiles
+	 */
+	private Rect visibleArea = new Rect();
+
 	private boolean backgroundFit = false;
 
+	/**
+	 * Fraction of the time between the previous and the current update of
+	 * the game logic that has passed. 1 means: draw objects at their current
+	 * position.
+	 */
+	private float interpolationAlpha = 1f;
+
+	/**
+	 * Snapshots of the scene, used when drawing in a separate thread. The game
+	 * thread fills 'writingSnapshot', the render thread draws
+	 * 'drawingSnapshot' and 'readySnapshot' holds the latest complete
+	 * snapshot. With three snapshots neither thread ever waits for the other.
+	 */
+	private SceneSnapshot writingSnapshot = new SceneSnapshot();
+	private SceneSnapshot readySnapshot = new SceneSnapshot();
+	private SceneSnapshot drawingSnapshot = new SceneSnapshot();
+
+	/**
+	 * True when readySnapshot holds a snapshot that has not been drawn yet
+	 */
+	private boolean newSnapshot = false;
+
+	/**
+	 * Guards the exchange of snapshots between the threads
+	 */
+	private final Object snapshotLock = new Object();
+
 	/**
 	 * Surfaceloaded will be true when the surface has been loaded
 	 */
@@ -225,7 +259,8 @@ public class GameView extends SurfaceView implements Callback
 
 		if (gameEngine.isTileBasedMap())
 		{
-			GameEngine.gameTiles.drawTiles(canvas);
+			getVisibleArea(visibleArea);
+			GameEngine.gameTiles.drawTiles(canvas, visibleArea);
 		}
 
 		// Paint items in reverse order of the list, so item added last will be
@@ -238,21 +273,218 @@ public class GameView extends SurfaceView implements Callback
 			{
 				if (viewport.isInViewport(item))
 				{
-					item.drawGameObject(canvas);
+					drawItem(canvas, item);
 					// View.isHardwareAccelerated();
 				}
 			} else
 			{
-				item.drawGameObject(canvas);
+				drawItem(canvas, item);
 			}
 		}
 		canvas.setMatrix(null);
 
-		for (GameObject item : GameEngine.items)
+		for (int i = 0; i < GameEngine.items.size(); i++)
+		{
+			GameEngine.items.get(i).drawCustomObjects(canvas);
+		}
+
+	}
+
+	/**
+	 * Set the given rectangle to the part of the game world that is visible:
+	 * the viewport when it is used, else the size of the view.
+	 * 
+	 * @param area
+	 *            the Rect that will be set
+	 */
+	private void getVisibleArea(Rect area)
+	{
+		if (Viewport.useViewport)
+		{
+			viewport.getVisibleArea(area);
+		} else
+		{
+			area.set(0, 0, getWidth(), getHeight());
+		}
+	}
+
+	/**
+	 * Draw a GameObject, shifted back to where it was between the previous
+	 * and the current update when interpolating.
+	 * 
+	 * @param canvas
+	 *            The canvas used to draw.
+	 * @param item
+	 *            The GameObject to draw
+	 */
+	private void drawItem(Canvas canvas, GameObject item)
+	{
+		if (interpolationAlpha < 1f)
+		{
+			float dx = item.getDrawOffsetX(interpolationAlpha);
+			float dy = item.getDrawOffsetY(interpolationAlpha);
+			canvas.translate(dx, dy);
+			item.drawGameObject(canvas);
+			canvas.translate(-dx, -dy);
+		} else
+		{
+			item.drawGameObject(canvas);
+		}
+	}
+
+	/**
+	 * Set the interpolation alpha used for drawing the next frame.
+	 * 
+	 * @param alpha
+	 *            Fraction of the time between the previous and the current
+	 *            update that has passed, between 0 and 1
+	 */
+	void setInterpolationAlpha(float alpha)
+	{
+		interpolationAlpha = alpha;
+	}
+
+	/**
+	 * Store the current scene in a snapshot for the render thread. Called by
+	 * the game thread instead of onDraw, when drawing is done in a separate
+	 * thread.
+	 */
+	void publishSnapshot()
+	{
+		SceneSnapshot snapshot = writingSnapshot;
+		snapshot.clear();
+		if (Viewport.useViewport)
+		{
+			if (viewport == null)
+			{
+				viewport = Viewport.getInstance();
+			}
+			viewport.update();
+			snapshot.translateX = viewport.getTranslateX();
+			snapshot.translateY = viewport.getTranslateY();
+			viewport.getDrawMask(snapshot.backgroundMask);
+		}
+		getVisibleArea(snapshot.visibleArea);
+		if (gameEngine.isTileBasedMap())
+		{
+			GameEngine.gameTiles.fillSnapshot(snapshot.tiles,
+					snapshot.visibleArea);
+		}
+		// same order as onDraw: reverse order of the list
+		for (int i = GameEngine.items.size() - 1; i >= 0; i--)
+		{
+			GameObject item = GameEngine.items.get(i);
+			if (!Viewport.useViewport || viewport.isInViewport(item))
+			{
+				snapshot.add(item);
+			}
+		}
+		snapshot.publishTime = Platform.getClock().nanoTime();
+		synchronized (snapshotLock)
+		{
+			writingSnapshot = readySnapshot;
+			readySnapshot = snapshot;
+			newSnapshot = true;
+			snapshotLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Wait until a new snapshot has been published.
+	 * 
+	 * @param continuous
+	 *            when true, don't wait: the last snapshot may be drawn again
+	 * @return true if there is something to draw
+	 */
+	boolean waitForSnapshot(boolean continuous)
+	{
+		synchronized (snapshotLock)
 		{
-			item.drawCustomObjects(canvas);
+			if (!newSnapshot && !continuous)
+			{
+				try
+				{
+					snapshotLock.wait(100);
+				} catch (InterruptedException e)
+				{
+					// just check again
+				}
+			}
+			return newSnapshot || continuous;
 		}
+	}
 
+	/**
+	 * Wake up the render thread, when it must stop
+	 */
+	void wakeRenderThread()
+	{
+		synchronized (snapshotLock)
+		{
+			snapshotLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Draw the latest snapshot of the scene. Called by the render thread.
+	 * Only sprites are drawn: the GameObjects themselves are not touched, so
+	 * overrides of drawGameObject and drawCustomObjects are not called.
+	 * 
+	 * @param canvas
+	 *            The canvas used to draw.
+	 */
+	void drawSnapshot(Canvas canvas)
+	{
+		synchronized (snapshotLock)
+		{
+			if (newSnapshot)
+			{
+				SceneSnapshot s = drawingSnapshot;
+				drawingSnapshot = readySnapshot;
+				readySnapshot = s;
+				newSnapshot = false;
+			}
+		}
+		SceneSnapshot snapshot = drawingSnapshot;
+		canvas.drawColor(BACKGROUND_COLOR);
+		if (backgroundImage != null && backgroundImage.getSprite() != null)
+		{
+			Rect mask = snapshot.backgroundMask;
+			if (backgroundFit || !Viewport.useViewport)
+			{
+				mask.set(0, 0, getWidth(), getHeight());
+			}
+			canvas.drawBitmap(backgroundImage.getSprite(), null, mask, null);
+		}
+		if (Viewport.useViewport)
+		{
+			canvas.setMatrix(matrix);
+			canvas.translate(snapshot.translateX, snapshot.translateY);
+		}
+		snapshot.tiles.draw(canvas);
+		float alpha = 1f;
+		if (GameThread.USE_FIXED_TIMESTEP && GameThread.INTERPOLATE)
+		{
+			alpha = Math.min(1f, (Platform.getClock().nanoTime()
+					- snapshot.publishTime)
+					/ (1000000000f / GameThread.MAX_FPS));
+		}
+		for (int i = 0; i < snapshot.size; i++)
+		{
+			float dx = snapshot.startOffsetX[i] * (1 - alpha);
+			float dy = snapshot.startOffsetY[i] * (1 - alpha);
+			if (alpha < 1f)
+			{
+				canvas.translate(dx, dy);
+			}
+			canvas.drawBitmap(snapshot.bitmaps[i], snapshot.frames[i],
+					snapshot.positions[i], null);
+			if (alpha < 1f)
+			{
+				canvas.translate(-dx, -dy);
+			}
+		}
+		canvas.setMatrix(null);
 	}
 
 	public Point getViewportLocation()
@@ -0,0 +1,142 @@
+package android.gameengine.icadroids.engine;
+
+import android.gameengine.icadroids.platform.HeadlessBitmapLoader;
+import android.gameengine.icadroids.platform.IBitmapLoader;
+import android.gameengine.icadroids.platform.ManualClock;
+import android.gameengine.icadroids.platform.Platform;
+
+/**
+ * HeadlessRunner runs a game without a screen, for instance on a plain JVM in
+ * a benchmark or a soak test. It initializes the game like the GameView does,
+ * but creates no views, threads, sounds or input. Every call of tick() does
+ * one cycle of the game loop: the updates of the game and its GameObjects,
+ * tile collisions, alarms and the viewport. Nothing is drawn, so the game
+ * runs as fast as the processor allows.
+ * <br />
+ * Sprites get the sizes given by the bitmap loader instead of images. Time
+ * is kept by a ManualClock that moves 1/GameThread.MAX_FPS second every
+ * tick.
+ * <br />
+ * Example:
+ * 
+ * <pre>
+ * HeadlessRunner runner = new HeadlessRunner(new MyGame(), 800, 480);
+ * runner.run(100000);
+ * </pre>
+ * 
+ * Note: the game (an Activity) can only be created on a plain JVM when the
+ * Android classes it uses are available, for instance as stand-ins.
+ */
+public class HeadlessRunner
+{
+
+	/**
+	 * The game that is run
+	 */
+	private GameEngine game;
+
+	/**
+	 * The clock of the platform, moved every tick
+	 */
+	private ManualClock clock = new ManualClock();
+
+	/**
+	 * Number of ticks done
+	 */
+	private long ticks = 0;
+
+	/**
+	 * Prepare a headless game, sprites without a known size are 32x32 pixels
+	 * 
+	 * @param game
+	 *            the game
+	 * @param width
+	 *            width in pixels of the (imaginary) screen
+	 * @param height
+	 *            height in pixels of the (imaginary) screen
+	 */
+	public HeadlessRunner(GameEngine game, int width, int height)
+	{
+		this(game, width, height, new HeadlessBitmapLoader(32, 32));
+	}
+
+	/**
+	 * Prepare a headless game
+	 * 
+	 * @param game
+	 *            the game
+	 * @param width
+	 *            width in pixels of the (imaginary) screen
+	 * @param height
+	 *            height in pixels of the (imaginary) screen
+	 * @param bitmapLoader
+	 *            gives the sizes of the sprites
+	 */
+	public HeadlessRunner(GameEngine game, int width, int height,
+			IBitmapLoader bitmapLoader)
+	{
+		this.game = game;
+		Platform.setHeadless(true);
+		Platform.setBitmapLoader(bitmapLoader);
+		Platform.setClock(clock);
+		game.initializeHeadless(width, height);
+	}
+
+	/**
+	 * Do one cycle of the game loop
+	 */
+	public void tick()
+	{
+		game.updateGame();
+		if (Viewport.useViewport && game.getPlayer() != null)
+		{
+			Viewport.getInstance().update();
+		}
+		clock.advance(1000000000L / GameThread.MAX_FPS);
+		ticks++;
+	}
+
+	/**
+	 * Do a number of cycles of the game loop
+	 * 
+	 * @param count
+	 *            the number of cycles
+	 */
+	public void run(int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			tick();
+		}
+	}
+
+	/**
+	 * Get the number of cycles done
+	 * 
+	 * @return the number of ticks
+	 */
+	public long getTicks()
+	{
+		return ticks;
+	}
+
+	/**
+	 * Get the clock of the game
+	 * 
+	 * @return the clock, which moves 1/GameThread.MAX_FPS second every tick
+	 */
+	public ManualClock getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * Get the game
+	 * 
+	 * @return the game that is run
+	 */
+	public GameEngine getGame()
+	{
+		return game;
+	}
+}
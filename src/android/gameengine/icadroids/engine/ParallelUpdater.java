@@ -0,0 +1,238 @@
+package android.gameengine.icadroids.engine;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.MovementStore;
+import android.gameengine.icadroids.objects.IParallelUpdate;
+import android.gameengine.icadroids.objects.collisions.ICollision;
+import android.util.Log;
+
+/**
+ * ParallelUpdater calls update() of the GameObjects that implement
+ * IParallelUpdate on several threads. The objects are split in chunks of
+ * about equal size; one chunk is done by the game thread itself, the others
+ * by a pool of worker threads. The game thread waits until all chunks are
+ * done.
+ * <br />
+ * Game programmers will not be accessing this class directly, switch it on
+ * with GameEngine.parallelUpdate.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#parallelUpdate
+ */
+class ParallelUpdater
+{
+
+	/**
+	 * The worker threads, null until the first parallel update
+	 */
+	private ExecutorService pool;
+
+	/**
+	 * Number of threads (game thread included) of the pool
+	 */
+	private int threads = 0;
+
+	/**
+	 * The objects to update in parallel in this cycle
+	 */
+	private GameObject[] selected = new GameObject[0];
+
+	/**
+	 * Number of objects in selected
+	 */
+	private int size = 0;
+
+	/**
+	 * The chunks, one per thread
+	 */
+	private Chunk[] chunks = new Chunk[0];
+
+	/**
+	 * Counts down the chunks done by the workers
+	 */
+	private volatile CountDownLatch done;
+
+	/**
+	 * The first error thrown by an update on a worker thread
+	 */
+	private volatile RuntimeException failure;
+
+	/**
+	 * A range of selected objects updated by one thread
+	 */
+	private class Chunk implements Runnable
+	{
+		int start;
+		int end;
+		boolean interpolate;
+
+		public void run()
+		{
+			try
+			{
+				updateRange(start, end, interpolate);
+			} catch (RuntimeException e)
+			{
+				failure = e;
+			} catch (Error e)
+			{
+				failure = new RuntimeException(e);
+			} finally
+			{
+				done.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Check if an object may be updated in parallel
+	 *
+	 * @param item
+	 *            the GameObject
+	 * @return true if the object is active and implements IParallelUpdate
+	 *         (and not ICollision)
+	 */
+	static boolean isParallel(GameObject item)
+	{
+		return item instanceof IParallelUpdate && !(item instanceof ICollision)
+				&& item.isActive();
+	}
+
+	/**
+	 * Update all objects of the list that may be updated in parallel.
+	 *
+	 * @param items
+	 *            all GameObjects
+	 * @param selection
+	 *            for every item true if it may be updated in this cycle, or
+	 *            null if all items may be updated
+	 * @param threadCount
+	 *            the number of threads to use, including the game thread
+	 * @param interpolate
+	 *            true if the draw start positions must be saved
+	 * @return the number of objects updated
+	 */
+	int update(List<GameObject> items, boolean[] selection, int threadCount,
+			boolean interpolate)
+	{
+		size = 0;
+		for (int i = 0; i < items.size(); i++)
+		{
+			GameObject item = items.get(i);
+			if ((selection == null || selection[i]) && isParallel(item))
+			{
+				if (size == selected.length)
+				{
+					GameObject[] newSelected = new GameObject[Math.max(64,
+							size * 2)];
+					System.arraycopy(selected, 0, newSelected, 0, size);
+					selected = newSelected;
+				}
+				selected[size++] = item;
+			}
+		}
+		int n = Math.max(1, Math.min(threadCount, size));
+		if (n == 1)
+		{
+			updateRange(0, size, interpolate);
+		} else
+		{
+			startPool(n);
+			done = new CountDownLatch(n - 1);
+			failure = null;
+			for (int c = 0; c < n; c++)
+			{
+				chunks[c].start = (int) ((long) size * c / n);
+				chunks[c].end = (int) ((long) size * (c + 1) / n);
+				chunks[c].interpolate = interpolate;
+			}
+			for (int c = 1; c < n; c++)
+			{
+				pool.execute(chunks[c]);
+			}
+			updateRange(chunks[0].start, chunks[0].end, interpolate);
+			try
+			{
+				done.await();
+			} catch (InterruptedException e)
+			{
+				Log.wtf("ParallelUpdater", "update interrupted", e);
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null)
+			{
+				RuntimeException e = failure;
+				failure = null;
+				throw e;
+			}
+		}
+		int updated = size;
+		for (int i = 0; i < size; i++)
+		{
+			selected[i] = null;
+		}
+		size = 0;
+		return updated;
+	}
+
+	/**
+	 * Update a range of the selected objects
+	 */
+	private void updateRange(int start, int end, boolean interpolate)
+	{
+		for (int i = start; i < end; i++)
+		{
+			GameObject item = selected[i];
+			if (interpolate && !MovementStore.isStored(item))
+			{
+				item.saveDrawStartPosition();
+			}
+			item.update();
+		}
+	}
+
+	/**
+	 * Make sure there is a pool for the given number of threads
+	 */
+	private void startPool(int n)
+	{
+		if (pool != null && threads >= n)
+		{
+			return;
+		}
+		shutdown();
+		pool = Executors.newFixedThreadPool(n - 1, new ThreadFactory()
+		{
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "ParallelUpdate");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		threads = n;
+		chunks = new Chunk[n];
+		for (int c = 0; c < n; c++)
+		{
+			chunks[c] = new Chunk();
+		}
+	}
+
+	/**
+	 * Stop the worker threads
+	 */
+	void shutdown()
+	{
+		if (pool != null)
+		{
+			pool.shutdown();
+			pool = null;
+			threads = 0;
+		}
+	}
+}
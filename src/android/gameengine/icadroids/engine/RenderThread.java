@@ -0,0 +1,117 @@
+package android.gameengine.icadroids.engine;
+
+import android.gameengine.icadroids.platform.IClock;
+import android.gameengine.icadroids.platform.Platform;
+import android.graphics.Canvas;
+import android.util.Log;
+
+/**
+ * RenderThread draws the game when drawing is done in a separate thread (see
+ * GameThread.USE_RENDER_THREAD). It draws the latest snapshot of the scene
+ * published by the GameThread, so waiting for the canvas doesn't hold up the
+ * game logic.<br />
+ * Generally, game programmers will not make direct use of this class. It
+ * handles the internal workings of the GameEngine.
+ */
+public class RenderThread extends Thread
+{
+
+	/**
+	 * The view onto which the game is rendered.
+	 */
+	private GameView view;
+
+	/**
+	 * running is true when the render loop is running, false otherwise
+	 */
+	private volatile boolean running = false;
+
+	/**
+	 * Initialize the render loop
+	 *
+	 * @param view
+	 *            The view that draws the snapshots
+	 */
+	RenderThread(GameView view)
+	{
+		super();
+		setPriority(7);
+		this.view = view;
+	}
+
+	/**
+	 * Stop the render loop
+	 */
+	final void stopRunning()
+	{
+		running = false;
+		view.wakeRenderThread();
+	}
+
+	/**
+	 * Draw a frame whenever a new snapshot is published. When interpolating,
+	 * frames are drawn continuously (at most GameThread.MAX_RENDER_FPS per
+	 * second) to show the motion between updates.
+	 */
+	public void run()
+	{
+		IClock clock = Platform.getClock();
+		running = true;
+		while (running)
+		{
+			boolean continuous = GameThread.USE_FIXED_TIMESTEP
+					&& GameThread.INTERPOLATE;
+			if (!view.waitForSnapshot(continuous))
+			{
+				continue;
+			}
+			long startTime = clock.nanoTime();
+			long time = FrameProfiler.begin();
+			Canvas c = view.getHolder().lockCanvas();
+			FrameProfiler.end(FrameProfiler.PHASE_LOCK_CANVAS, time);
+			if (c == null)
+			{
+				Log.d("RenderThread", "Canvas is null");
+				// the surface isn't ready yet, wait a frame before trying again
+				try
+				{
+					clock.sleep(1000000000L / GameThread.MAX_RENDER_FPS);
+				} catch (InterruptedException e)
+				{
+					Log.wtf("RenderThread", "loop interupted", e);
+				}
+				continue;
+			}
+			try
+			{
+				time = FrameProfiler.begin();
+				synchronized (view.getHolder())
+				{
+					view.drawSnapshot(c);
+				}
+				FrameProfiler.end(FrameProfiler.PHASE_DRAW, time);
+			} finally
+			{
+				time = FrameProfiler.begin();
+				view.getHolder().unlockCanvasAndPost(c);
+				FrameProfiler.end(FrameProfiler.PHASE_UNLOCK_AND_POST, time);
+			}
+			FrameProfiler.getInstance().frameDone("Render");
+			if (continuous)
+			{
+				long sleepNanos = 1000000000L / GameThread.MAX_RENDER_FPS
+						- (clock.nanoTime() - startTime);
+				try
+				{
+					if (sleepNanos > 0)
+					{
+						clock.sleep(sleepNanos);
+					}
+				} catch (InterruptedException e)
+				{
+					Log.wtf("RenderThread", "loop interupted", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package android.gameengine.icadroids.engine;
+
+import android.gameengine.icadroids.objects.GameObject;
+import android.gameengine.icadroids.objects.graphics.AnimatedSprite;
+import android.gameengine.icadroids.tiles.TileSnapshot;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * SceneSnapshot holds everything needed to draw one frame of the game: the
+ * visible tiles and, for every visible GameObject, its bitmap, the frame of
+ * the sprite and the position on the screen, in the order they must be
+ * painted. It is used when the game is drawn by a separate thread (see
+ * GameThread.USE_RENDER_THREAD): the game thread fills a snapshot, the render
+ * thread draws it, so the render thread never touches the GameObjects or the
+ * tile map themselves.
+ * <br />
+ * Snapshots are reused; the Rects are allocated once and only copied into.
+ * <br />
+ * Game programmers will not be accessing this class directly, it is a utility
+ * class used by the GameView.
+ */
+class SceneSnapshot
+{
+
+	/**
+	 * Number of objects in the snapshot
+	 */
+	int size = 0;
+
+	/**
+	 * The bitmap of every object
+	 */
+	Bitmap[] bitmaps = new Bitmap[0];
+
+	/**
+	 * The part of the bitmap to draw (the current frame of the sprite)
+	 */
+	Rect[] frames = new Rect[0];
+
+	/**
+	 * Where to draw the object in the game world
+	 */
+	Rect[] positions = new Rect[0];
+
+	/**
+	 * Shift from the current position to the position at the start of the
+	 * update, for interpolated drawing
+	 */
+	float[] startOffsetX = new float[0];
+	float[] startOffsetY = new float[0];
+
+	/**
+	 * Translation of the viewport
+	 */
+	int translateX = 0;
+	int translateY = 0;
+
+	/**
+	 * Rectangle the background image is drawn in, when using the viewport
+	 */
+	Rect backgroundMask = new Rect();
+
+	/**
+	 * Part of the game world that is visible, for drawing the tiles
+	 */
+	Rect visibleArea = new Rect();
+
+	/**
+	 * The visible tiles, when the game uses a tile map
+	 */
+	TileSnapshot tiles = new TileSnapshot();
+
+	/**
+	 * Platform.getClock().nanoTime() at which the snapshot was completed
+	 */
+	long publishTime = 0;
+
+	/**
+	 * Empty the snapshot, keeping the allocated Rects
+	 */
+	void clear()
+	{
+		for (int i = 0; i < size; i++)
+		{
+			bitmaps[i] = null;
+		}
+		size = 0;
+		tiles.clear();
+	}
+
+	/**
+	 * Add the draw state of a GameObject. Objects without a bitmap or that are
+	 * invisible are skipped.
+	 *
+	 * @param item
+	 *            The GameObject to add
+	 */
+	void add(GameObject item)
+	{
+		AnimatedSprite sprite = item.getSprite();
+		if (!item.isVisible() || sprite.getSprite() == null)
+		{
+			return;
+		}
+		if (size == bitmaps.length)
+		{
+			grow();
+		}
+		bitmaps[size] = sprite.getSprite();
+		frames[size].set(sprite.getCurrentFrameRectangle());
+		positions[size].set(item.position);
+		startOffsetX[size] = item.getDrawOffsetX(0f);
+		startOffsetY[size] = item.getDrawOffsetY(0f);
+		size++;
+	}
+
+	/**
+	 * Make room for more objects
+	 */
+	private void grow()
+	{
+		int capacity = Math.max(16, bitmaps.length * 2);
+		Bitmap[] newBitmaps = new Bitmap[capacity];
+		Rect[] newFrames = new Rect[capacity];
+		Rect[] newPositions = new Rect[capacity];
+		float[] newOffsetX = new float[capacity];
+		float[] newOffsetY = new float[capacity];
+		System.arraycopy(bitmaps, 0, newBitmaps, 0, size);
+		System.arraycopy(frames, 0, newFrames, 0, size);
+		System.arraycopy(positions, 0, newPositions, 0, size);
+		for (int i = size; i < capacity; i++)
+		{
+			newFrames[i] = new Rect();
+			newPositions[i] = new Rect();
+		}
+		bitmaps = newBitmaps;
+		frames = newFrames;
+		positions = newPositions;
+		startOffsetX = newOffsetX;
+		startOffsetY = newOffsetY;
+	}
+}
@@ -0,0 +1,137 @@
+package android.gameengine.icadroids.engine;
+
+import android.gameengine.icadroids.objects.GameObject;
+import android.graphics.Rect;
+
+/**
+ * SimulationLOD decides which GameObjects are updated in a cycle of the game
+ * loop, depending on their distance to the part of the world that is visible
+ * in the viewport:
+ * <ul>
+ * <li>objects within GameEngine.lodMargin pixels of the viewport are updated
+ * every cycle;</li>
+ * <li>objects farther away are updated every GameEngine.lodFarInterval
+ * cycles, getElapsedTicks() tells them how many cycles have passed;</li>
+ * <li>objects farther away than GameEngine.lodDormantDistance are not updated
+ * at all, until they come back within that distance.</li>
+ * </ul>
+ * The far objects are spread over the cycles, so not all of them are updated
+ * in the same cycle.
+ * <br />
+ * Game programmers will not be accessing this class directly, switch it on
+ * with GameEngine.simulationLOD.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#simulationLOD
+ */
+class SimulationLOD
+{
+
+	/**
+	 * Number of cycles done
+	 */
+	private int tick = 0;
+
+	/**
+	 * For every item: true if it must be updated in this cycle
+	 */
+	private boolean[] update = new boolean[0];
+
+	/**
+	 * The part of the world that is visible
+	 */
+	private Rect visibleArea = new Rect();
+
+	/**
+	 * Decide which items are updated in this cycle.
+	 *
+	 * @param items
+	 *            all GameObjects
+	 * @param viewport
+	 *            the viewport
+	 * @param margin
+	 *            distance in pixels within which objects are updated every
+	 *            cycle
+	 * @param interval
+	 *            objects farther away are updated once every interval cycles
+	 * @param dormantDistance
+	 *            distance in pixels beyond which objects are not updated
+	 * @return for every item true if it must be updated, valid until the next
+	 *         call
+	 */
+	boolean[] select(EntityRegistry<GameObject> items, Viewport viewport,
+			int margin, int interval, int dormantDistance)
+	{
+		tick++;
+		int n = items.size();
+		if (update.length < n)
+		{
+			update = new boolean[Math.max(n, update.length * 2)];
+		}
+		viewport.getVisibleArea(visibleArea);
+		for (int i = 0; i < n; i++)
+		{
+			GameObject item = items.get(i);
+			if (!item.isActive())
+			{
+				update[i] = true;
+				continue;
+			}
+			int distance = distance(item.position);
+			boolean doUpdate;
+			if (distance <= margin)
+			{
+				doUpdate = true;
+			} else if (distance > dormantDistance)
+			{
+				item.skipUpdate(true);
+				update[i] = false;
+				continue;
+			} else
+			{
+				// the handle of an object doesn't change, so it spreads the
+				// far objects over the cycles
+				int phase = items.getHandle(i) & Integer.MAX_VALUE;
+				doUpdate = interval <= 1
+						|| ((tick + phase) & Integer.MAX_VALUE) % interval == 0
+						|| item.getSkippedTicks() >= interval - 1;
+			}
+			if (doUpdate)
+			{
+				item.prepareUpdate();
+			} else
+			{
+				item.skipUpdate(false);
+			}
+			update[i] = doUpdate;
+		}
+		return update;
+	}
+
+	/**
+	 * Count the skipped cycles of all items as elapsed, used when simulation
+	 * LOD is switched off. Call it for two cycles: in the first, objects get
+	 * the cycles they skipped, in the second getElapsedTicks() is back at 1.
+	 *
+	 * @param items
+	 *            all GameObjects
+	 */
+	void release(EntityRegistry<GameObject> items)
+	{
+		for (int i = 0; i < items.size(); i++)
+		{
+			items.get(i).prepareUpdate();
+		}
+	}
+
+	/**
+	 * Get the distance of a rectangle to the visible area, 0 if it overlaps
+	 */
+	private int distance(Rect r)
+	{
+		int dx = Math.max(visibleArea.left - r.right, r.left
+				- visibleArea.right);
+		int dy = Math.max(visibleArea.top - r.bottom, r.top
+				- visibleArea.bottom);
+		return Math.max(0, Math.max(dx, dy));
+	}
+}
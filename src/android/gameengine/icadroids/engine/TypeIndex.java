@@ -0,0 +1,260 @@
+package android.gameengine.icadroids.engine;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+import android.gameengine.icadroids.objects.GameObject;
+
+/**
+ * TypeIndex keeps, for every class of GameObject in the game, the objects of
+ * exactly that class. The GameEngine updates it when objects are added and
+ * removed, so finding all objects of a type takes time proportional to the
+ * number of objects found, not to the number of objects in the game.
+ * <br />
+ * The lists handed out by the index are live, read-only views: they change
+ * when objects are added or removed at the end of the cycle of the game loop.
+ * There is one view per type, looping through it with size() and get(i)
+ * allocates nothing.
+ * <br />
+ * Game programmers will not be accessing this class directly, it is a utility
+ * class used by the GameEngine.
+ */
+class TypeIndex
+{
+
+	/**
+	 * The objects of one class, in the order they were added
+	 */
+	private static final class Bucket
+	{
+		final Class<?> type;
+		GameObject[] objects = new GameObject[8];
+		int size = 0;
+		boolean dirty = false;
+
+		Bucket(Class<?> type)
+		{
+			this.type = type;
+		}
+	}
+
+	/**
+	 * The bucket of every class
+	 */
+	private HashMap<Class<?>, Bucket> buckets = new HashMap<Class<?>, Bucket>();
+
+	/**
+	 * All buckets, in the order the classes first appeared
+	 */
+	private ArrayList<Bucket> bucketList = new ArrayList<Bucket>();
+
+	/**
+	 * Buckets from which objects have been removed
+	 */
+	private ArrayList<Bucket> dirtyBuckets = new ArrayList<Bucket>();
+
+	/**
+	 * The views handed out, for exact classes and including subclasses
+	 */
+	private HashMap<Class<?>, TypeView<?>> exactViews = new HashMap<Class<?>, TypeView<?>>();
+	private HashMap<Class<?>, TypeView<?>> familyViews = new HashMap<Class<?>, TypeView<?>>();
+
+	/**
+	 * Add an object to the bucket of its class
+	 *
+	 * @param item
+	 *            the GameObject
+	 */
+	void add(GameObject item)
+	{
+		Bucket bucket = findBucket(item.getClass());
+		if (bucket.size == bucket.objects.length)
+		{
+			GameObject[] bigger = new GameObject[bucket.size * 2];
+			System.arraycopy(bucket.objects, 0, bigger, 0, bucket.size);
+			bucket.objects = bigger;
+		}
+		bucket.objects[bucket.size++] = item;
+	}
+
+	/**
+	 * Remember that an object has been removed from the game. The object is
+	 * taken out of its bucket by removeInactive.
+	 *
+	 * @param item
+	 *            the removed GameObject
+	 */
+	void removed(GameObject item)
+	{
+		Bucket bucket = buckets.get(item.getClass());
+		if (bucket != null && !bucket.dirty)
+		{
+			bucket.dirty = true;
+			dirtyBuckets.add(bucket);
+		}
+	}
+
+	/**
+	 * Take the inactive objects out of the buckets they have been removed
+	 * from, keeping the order of the other objects.
+	 */
+	void removeInactive()
+	{
+		for (int b = 0; b < dirtyBuckets.size(); b++)
+		{
+			Bucket bucket = dirtyBuckets.get(b);
+			int kept = 0;
+			for (int i = 0; i < bucket.size; i++)
+			{
+				GameObject go = bucket.objects[i];
+				if (go.isActive())
+				{
+					bucket.objects[kept++] = go;
+				}
+			}
+			for (int i = kept; i < bucket.size; i++)
+			{
+				bucket.objects[i] = null;
+			}
+			bucket.size = kept;
+			bucket.dirty = false;
+		}
+		dirtyBuckets.clear();
+	}
+
+	/**
+	 * Remove all objects. The views stay valid, they become empty.
+	 */
+	void clear()
+	{
+		for (int b = 0; b < bucketList.size(); b++)
+		{
+			Bucket bucket = bucketList.get(b);
+			for (int i = 0; i < bucket.size; i++)
+			{
+				bucket.objects[i] = null;
+			}
+			bucket.size = 0;
+			bucket.dirty = false;
+		}
+		dirtyBuckets.clear();
+	}
+
+	/**
+	 * Get the live view of the objects of a type
+	 *
+	 * @param type
+	 *            the class of the objects
+	 * @param includeSubclasses
+	 *            true to include objects of subclasses of type
+	 * @return a read-only list of the objects
+	 */
+	@SuppressWarnings("unchecked")
+	<T> List<T> view(Class<T> type, boolean includeSubclasses)
+	{
+		HashMap<Class<?>, TypeView<?>> views = includeSubclasses ? familyViews
+				: exactViews;
+		TypeView<T> view = (TypeView<T>) views.get(type);
+		if (view == null)
+		{
+			view = new TypeView<T>(type, includeSubclasses);
+			views.put(type, view);
+		}
+		return view;
+	}
+
+	/**
+	 * Find the bucket of a class, creating it if necessary
+	 */
+	private Bucket findBucket(Class<?> type)
+	{
+		Bucket bucket = buckets.get(type);
+		if (bucket == null)
+		{
+			bucket = new Bucket(type);
+			buckets.put(type, bucket);
+			bucketList.add(bucket);
+		}
+		return bucket;
+	}
+
+	/**
+	 * The objects of a type, possibly from several buckets. For subclasses the
+	 * objects are grouped per class.
+	 */
+	private final class TypeView<T> extends AbstractList<T> implements
+			RandomAccess
+	{
+		private final Class<T> type;
+		private final boolean includeSubclasses;
+		private Bucket[] parts = new Bucket[0];
+
+		/**
+		 * Number of buckets that existed when parts was filled
+		 */
+		private int bucketsSeen = -1;
+
+		TypeView(Class<T> type, boolean includeSubclasses)
+		{
+			this.type = type;
+			this.includeSubclasses = includeSubclasses;
+		}
+
+		@Override
+		public int size()
+		{
+			updateParts();
+			int size = 0;
+			for (int p = 0; p < parts.length; p++)
+			{
+				size += parts[p].size;
+			}
+			return size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T get(int index)
+		{
+			updateParts();
+			int i = index;
+			for (int p = 0; p < parts.length; p++)
+			{
+				if (i >= 0 && i < parts[p].size)
+				{
+					return (T) parts[p].objects[i];
+				}
+				i -= parts[p].size;
+			}
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size());
+		}
+
+		/**
+		 * Find the buckets of this view again when new classes have appeared
+		 */
+		private void updateParts()
+		{
+			if (bucketsSeen == bucketList.size())
+			{
+				return;
+			}
+			ArrayList<Bucket> found = new ArrayList<Bucket>();
+			for (int b = 0; b < bucketList.size(); b++)
+			{
+				Bucket bucket = bucketList.get(b);
+				if (bucket.type == type
+						|| (includeSubclasses && type
+								.isAssignableFrom(bucket.type)))
+				{
+					found.add(bucket);
+				}
+			}
+			parts = found.toArray(new Bucket[found.size()]);
+			bucketsSeen = bucketList.size();
+		}
+	}
+}
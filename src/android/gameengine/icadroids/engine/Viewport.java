@@ -502,6 +502,19 @@ public class Viewport
 				&& item.getY() < viewportY + viewportHeight;
 	}
 
+	/**
+	 * Set the given rectangle to the part of the game world that is visible in
+	 * the viewport, taking zooming into account.
+	 * 
+	 * @param area
+	 *            the Rect that will be set
+	 */
+	final void getVisibleArea(Rect area)
+	{
+		area.set(viewportX, viewportY, viewportX + viewportWidth, viewportY
+				+ viewportHeight);
+	}
+
 	/**
 	 * Return rectangle for the (background)image. The Image is scaled to this
 	 * rec, visible part is cut out
@@ -511,7 +524,22 @@ public class Viewport
 	 */
 	final Rect getDrawMask()
 	{
-		return new Rect(minX - Math.round(viewportX * zoomFactor), minY
+		Rect mask = new Rect();
+		getDrawMask(mask);
+		return mask;
+	}
+
+	/**
+	 * Set the given rectangle to the rectangle for the (background)image,
+	 * without creating a new Rect.
+	 * 
+	 * @param mask
+	 *            the Rect that will be set
+	 * @see android.gameengine.icadroids.engine.Viewport#getDrawMask()
+	 */
+	final void getDrawMask(Rect mask)
+	{
+		mask.set(minX - Math.round(viewportX * zoomFactor), minY
 				- Math.round(viewportY * zoomFactor),
 				Math.round((maxX - viewportX) * zoomFactor),
 				Math.round((maxY - viewportY) * zoomFactor));
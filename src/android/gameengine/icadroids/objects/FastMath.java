@@ -0,0 +1,200 @@
+package android.gameengine.icadroids.objects;
+
+/**
+ * FastMath calculates sine, cosine and arc tangent by looking them up in
+ * tables, which is much faster than java.lang.Math on most devices, but less
+ * accurate. MoveableGameObjects use it for their direction when
+ * GameEngine.fastMath is switched on. You may also use it in your own code,
+ * for instance for steering many objects.
+ * <br />
+ * The precision is the number of bits of the tables: a precision of p gives a
+ * sine table of 2<sup>p</sup> steps for the whole circle, and an arc tangent
+ * table of 2<sup>p</sup> steps. Compared to java.lang.Math the results are
+ * never more wrong than:
+ * <ul>
+ * <li>sin and cos: pi / 2<sup>p</sup>, see getSinErrorBound()</li>
+ * <li>atan2: 1 / 2<sup>p+1</sup> radians, see getAtan2ErrorBound()</li>
+ * </ul>
+ * The default precision of 12 bits gives errors below 0.0008 for sine and
+ * cosine and below 0.00013 radians (0.007 degrees) for the arc tangent, and
+ * uses about 64 kB for the tables. Angles of exactly 0, 90, 180 and 270
+ * degrees give exact results.
+ * <br />
+ * Note: sin and cos work for angles up to 100000 radians, larger
+ * angles give wrong results.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#fastMath
+ */
+public final class FastMath {
+
+	/** The lowest precision allowed, in bits */
+	public static final int MIN_PRECISION = 6;
+
+	/** The highest precision allowed, in bits */
+	public static final int MAX_PRECISION = 16;
+
+	/** The precision used when setPrecision hasn't been called, in bits */
+	public static final int DEFAULT_PRECISION = 12;
+
+	private static final double TWO_PI = 2 * Math.PI;
+	private static final double HALF_PI = 0.5 * Math.PI;
+
+	/**
+	 * Room for the rounding of the angle and of the table values, added to
+	 * the error bounds
+	 */
+	private static final double ROUNDING_ERROR = 1e-9;
+
+	/** The current precision in bits */
+	private static int precision;
+
+	/** The sine of every step of the whole circle */
+	private static double[] sinTable;
+
+	/** The arc tangent of every step from 0 to 1 (inclusive) */
+	private static double[] atanTable;
+
+	static {
+		setPrecision(DEFAULT_PRECISION);
+	}
+
+	private FastMath() {
+	}
+
+	/**
+	 * Set the precision of the tables and make the new tables. Call this
+	 * method in the initialize() of your game, not while objects are moving.
+	 *
+	 * @param bits
+	 *            the precision in bits, between MIN_PRECISION and
+	 *            MAX_PRECISION
+	 * @throws IllegalArgumentException
+	 *             if bits is out of range
+	 */
+	public static synchronized void setPrecision(int bits) {
+		if (bits < MIN_PRECISION || bits > MAX_PRECISION) {
+			throw new IllegalArgumentException("precision must be between "
+					+ MIN_PRECISION + " and " + MAX_PRECISION + " bits: "
+					+ bits);
+		}
+		int n = 1 << bits;
+		double[] sines = new double[n];
+		for (int i = 0; i < n; i++) {
+			sines[i] = Math.sin(TWO_PI * i / n);
+		}
+		// exact values for the main directions, so objects moving straight
+		// up, down, left or right stay on their line
+		int quarter = n >> 2;
+		sines[0] = 0;
+		sines[quarter] = 1;
+		sines[2 * quarter] = 0;
+		sines[3 * quarter] = -1;
+		double[] arcTangents = new double[n + 1];
+		for (int i = 0; i <= n; i++) {
+			arcTangents[i] = Math.atan((double) i / n);
+		}
+		sinTable = sines;
+		atanTable = arcTangents;
+		precision = bits;
+	}
+
+	/**
+	 * Gets the precision of the tables
+	 *
+	 * @return the precision in bits
+	 */
+	public static int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Gets the largest difference between sin or cos of FastMath and of
+	 * java.lang.Math, at the current precision
+	 *
+	 * @return the error bound
+	 */
+	public static double getSinErrorBound() {
+		return Math.PI / sinTable.length + ROUNDING_ERROR;
+	}
+
+	/**
+	 * Gets the largest difference between atan2 of FastMath and of
+	 * java.lang.Math, at the current precision
+	 *
+	 * @return the error bound in radians
+	 */
+	public static double getAtan2ErrorBound() {
+		return 0.5 / (atanTable.length - 1) + ROUNDING_ERROR;
+	}
+
+	/**
+	 * Gets the sine of an angle
+	 *
+	 * @param radians
+	 *            the angle in radians
+	 * @return the sine, within getSinErrorBound() of Math.sin
+	 */
+	public static double sin(double radians) {
+		double[] table = sinTable;
+		return table[step(radians, table.length) & (table.length - 1)];
+	}
+
+	/**
+	 * Gets the cosine of an angle
+	 *
+	 * @param radians
+	 *            the angle in radians
+	 * @return the cosine, within getSinErrorBound() of Math.cos
+	 */
+	public static double cos(double radians) {
+		double[] table = sinTable;
+		int n = table.length;
+		return table[(step(radians, n) + (n >> 2)) & (n - 1)];
+	}
+
+	/**
+	 * Gets the angle of the point (x, y), like Math.atan2. When y is zero,
+	 * one of the values is infinite or NaN, Math.atan2 is used.
+	 *
+	 * @param y
+	 *            the y coordinate
+	 * @param x
+	 *            the x coordinate
+	 * @return the angle in radians, from -pi to pi, within
+	 *         getAtan2ErrorBound() of Math.atan2
+	 */
+	public static double atan2(double y, double x) {
+		double ax = Math.abs(x);
+		double ay = Math.abs(y);
+		// also false for NaN
+		if (ay == 0 || !(ax + ay < Double.POSITIVE_INFINITY)) {
+			return Math.atan2(y, x);
+		}
+		double[] table = atanTable;
+		int n = table.length - 1;
+		double angle;
+		if (ay <= ax) {
+			angle = table[(int) (ay / ax * n + 0.5)];
+		} else {
+			angle = HALF_PI - table[(int) (ax / ay * n + 0.5)];
+		}
+		if (x < 0) {
+			angle = Math.PI - angle;
+		}
+		return y < 0 ? -angle : angle;
+	}
+
+	/**
+	 * Gets the nearest step of the sine table to an angle, not yet wrapped
+	 * around the circle
+	 */
+	private static int step(double radians, int n) {
+		double steps = radians * (n / TWO_PI) + 0.5;
+		int step = (int) steps;
+		// (int) rounds towards zero, negative steps must round down
+		if (steps < step) {
+			step--;
+		}
+		return step;
+	}
+}
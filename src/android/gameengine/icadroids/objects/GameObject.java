@@ -1,6 +1,8 @@
 package android.gameengine.icadroids.objects;
 
+import android.gameengine.icadroids.engine.GameEngine;
 import android.gameengine.icadroids.objects.graphics.AnimatedSprite;
+import android.gameengine.icadroids.objects.graphics.PixelMask;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 
@@ -47,6 +49,39 @@ public class GameObject {
 	 * Start position of the object
 	 */
 	int[] startposition = new int[2];
+	/**
+	 * Position of the object at the start of the current cycle of the game
+	 * loop, used for interpolated drawing.
+	 */
+	private double drawStartX = 0;
+	private double drawStartY = 0;
+	/**
+	 * Number of cycles of the game loop since the previous update, and the
+	 * number of cycles skipped since then (see GameEngine.simulationLOD)
+	 */
+	private int elapsedTicks = 1;
+	private int skippedTicks = 0;
+	/**
+	 * The pool this object goes back to when it is deleted, null if it was
+	 * not made by a pool
+	 */
+	GameObjectPool<?> pool = null;
+	/**
+	 * True when collisions with this object are checked pixel by pixel
+	 */
+	private boolean pixelCollision = false;
+	/**
+	 * The collision categories this object belongs to, one bit per category
+	 */
+	private int collisionCategory = 1;
+	/**
+	 * The collision categories this object can collide with
+	 */
+	private int collisionMask = -1;
+	/**
+	 * Handle of the object in the list of items of the GameEngine
+	 */
+	private int registryHandle = -1;
 
 	/**
 	 * Initialize resources.
@@ -67,6 +102,48 @@ public class GameObject {
 
 	}
 
+	/**
+	 * Override this method to reset the fields of your object when it comes
+	 * from a GameObjectPool: the method is called when the object is deleted
+	 * and goes back into its pool. The next time the pool hands out the
+	 * object, it must be like a new object.<br />
+	 * The position, speed, direction, friction, visibility and animation frame
+	 * have already been reset when this method is called.
+	 * 
+	 * @see android.gameengine.icadroids.objects.GameObjectPool
+	 */
+	public void reset() {
+
+	}
+
+	/**
+	 * Reset the state the engine keeps in this object, when it goes back into
+	 * its pool
+	 */
+	void resetState() {
+		isVisible = true;
+		xlocation = 0;
+		ylocation = 0;
+		drawStartX = 0;
+		drawStartY = 0;
+		elapsedTicks = 1;
+		skippedTicks = 0;
+		position.set(0, 0, 0, 0);
+		sprite.setFrameNumber(0);
+	}
+
+	/**
+	 * Make an object of a pool ready to be added to the game again. The depth
+	 * is set directly, the object isn't in the game yet.
+	 * 
+	 * @param depth
+	 *            the layer position of the object
+	 */
+	void reuse(float depth) {
+		active = true;
+		this.depth = depth;
+	}
+
 	/**
 	 * Ask if an object is still alive, that is: it hasn't been deleted from the game
 	 * or added in this cycle of the game.
@@ -157,8 +234,17 @@ public class GameObject {
 	 * for collision detection between GameObjects.
 	 */
 	protected void updatePlayerFramePosition() {
+		refreshPosition();
+	}
+
+	/**
+	 * Update the position rectangle like updatePlayerFramePosition, for
+	 * objects moved by the engine without calling update()
+	 */
+	final void refreshPosition() {
 		position.set(getX(), getY(), getX() + sprite.getFrameWidth(), getY()
 				+ getFrameHeight());
+		GameEngine.positionChanged(this);
 	}
 
 	/**
@@ -212,6 +298,138 @@ public class GameObject {
 	public final void setSprite(AnimatedSprite theSprite) {
 		sprite = theSprite;
 	}
+	/**
+	 * Set the collision categories this object belongs to. Use one bit for
+	 * every kind of object in your game, for instance PLAYER = 1, ENEMY = 2,
+	 * PLAYER_BULLET = 4, PICKUP = 8. By default an object is in category 1.
+	 * <br />
+	 * Two objects only collide when each is in a category of the mask of the
+	 * other, see setCollisionMask. Objects that can't collide are skipped by
+	 * getCollidedObjects(), collidedWith() and getSweptCollisions() of
+	 * MoveableGameObject before their positions are compared, which saves a
+	 * lot of work when there are many objects.
+	 * 
+	 * @param category
+	 *            the categories, as bits
+	 */
+	public final void setCollisionCategory(int category) {
+		collisionCategory = category;
+	}
+
+	/**
+	 * Get the collision categories this object belongs to
+	 * 
+	 * @return the categories, as bits
+	 * @see #setCollisionCategory(int)
+	 */
+	public final int getCollisionCategory() {
+		return collisionCategory;
+	}
+
+	/**
+	 * Set the collision categories this object can collide with. By default
+	 * an object can collide with all categories (mask -1). Examples, with the
+	 * categories of setCollisionCategory:
+	 * <ul>
+	 * <li>player bullets ignore the player and each other:
+	 * setCollisionMask(ENEMY)</li>
+	 * <li>pickups only collide with the player: setCollisionMask(PLAYER)</li>
+	 * <li>an object that never collides: setCollisionMask(0)</li>
+	 * </ul>
+	 * 
+	 * @param mask
+	 *            the categories, as bits
+	 * @see #setCollisionCategory(int)
+	 */
+	public final void setCollisionMask(int mask) {
+		collisionMask = mask;
+	}
+
+	/**
+	 * Get the collision categories this object can collide with
+	 * 
+	 * @return the categories, as bits
+	 * @see #setCollisionMask(int)
+	 */
+	public final int getCollisionMask() {
+		return collisionMask;
+	}
+
+	/**
+	 * Check if this object and another object can collide, according to their
+	 * collision categories and masks: each must be in a category of the mask
+	 * of the other. This doesn't look at the positions.
+	 * 
+	 * @param other
+	 *            the other object
+	 * @return true if the objects can collide
+	 */
+	public final boolean canCollideWith(GameObject other) {
+		return (collisionCategory & other.collisionMask) != 0
+				&& (other.collisionCategory & collisionMask) != 0;
+	}
+
+	/**
+	 * Switch pixel perfect collisions with this object on or off. When it is
+	 * on, getCollidedObjects() and collidedWith() of MoveableGameObjects only
+	 * count this object when a visible pixel of it overlaps the other object,
+	 * not when just the rectangles overlap. Use it for sprites with an
+	 * irregular shape.<br />
+	 * The pixels are only compared when the rectangles overlap, using masks
+	 * that are made once per image, so this is cheap. In a headless game the
+	 * sprites have no bitmaps, all pixels are then visible.
+	 * 
+	 * @param pixelCollision
+	 *            true to check collisions pixel by pixel
+	 */
+	public final void setPixelCollision(boolean pixelCollision) {
+		this.pixelCollision = pixelCollision;
+	}
+
+	/**
+	 * Check if collisions with this object are checked pixel by pixel
+	 * 
+	 * @return true if pixel perfect collision is on
+	 * @see #setPixelCollision(boolean)
+	 */
+	public final boolean hasPixelCollision() {
+		return pixelCollision;
+	}
+
+	/**
+	 * Checks if a visible pixel of this object overlaps a visible pixel of
+	 * another object, in the current frames of their sprites. This works
+	 * whether pixel collision is switched on or not.
+	 * 
+	 * @param other
+	 *            the other object
+	 * @return true if the objects overlap pixel by pixel
+	 */
+	public final boolean pixelsOverlap(GameObject other) {
+		return PixelMask.overlaps(sprite.getCurrentPixelMask(), position,
+				other.sprite.getCurrentPixelMask(), other.position);
+	}
+
+	/**
+	 * Check the pixels of two objects whose rectangles overlap, when at least
+	 * one of them has pixel collision switched on. An object without pixel
+	 * collision counts as its whole rectangle.
+	 * 
+	 * @param other
+	 *            the other object
+	 * @return true if the objects collide
+	 */
+	final boolean collidesWithPixels(GameObject other) {
+		if (!pixelCollision && !other.pixelCollision) {
+			return true;
+		}
+		return PixelMask.overlaps(
+				pixelCollision ? sprite.getCurrentPixelMask() : null,
+				position,
+				other.pixelCollision ? other.sprite.getCurrentPixelMask()
+						: null, other.position);
+	}
+
 	/**
 	 * Start animating the sprite, from the current frame
 	 */
@@ -398,18 +616,16 @@ public class GameObject {
 
 	/**
 	 * Sets the image at the specified position of the layer. This position can
-	 * be any number between 0.0f and 1.0f.
+	 * be any number between 0.0f and 1.0f. This is the same as setDepth.
 	 * 
 	 * @param position
 	 *            The position value of the image, images with a higher value
-	 *            will be drawn in the background
-	 *
+	 *            will be drawn in the foreground
+	 * @see #setDepth(float)
+	 */
 	public final void setLayerPosition(float position) {
-		GameEngine.items.remove(GameEngine.items.indexOf(this));
-		GameEngine.items.add(Math.round(GameEngine.items.size() * position),
-				this);
-	} Deleted, because too hard to keep the itemslist ok during update()....
-	*/
+		setDepth(position);
+	}
 
 	/**
 	 * Jump to the object's start position
@@ -470,6 +686,105 @@ public class GameObject {
 		}
 	}
 
+	/**
+	 * Remember the current position as the start of the move in this cycle of
+	 * the game loop, for interpolated drawing.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameEngine.
+	 */
+	public final void saveDrawStartPosition() {
+		drawStartX = xlocation;
+		drawStartY = ylocation;
+	}
+
+	/**
+	 * Get the number of cycles of the game loop that have passed since the
+	 * previous update of this object. This is 1, unless
+	 * GameEngine.simulationLOD is switched on and the object is far away from
+	 * the viewport: then the object is not updated every cycle, and you can
+	 * use this number to catch up in update() (MoveableGameObject does this
+	 * for its movement).
+	 * 
+	 * @return the number of cycles, 1 or more
+	 */
+	public final int getElapsedTicks() {
+		return elapsedTicks;
+	}
+
+	/**
+	 * Remember that the object is not updated in this cycle of the game loop.
+	 * <br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameEngine.
+	 * 
+	 * @param dormant
+	 *            true if the object is so far away that it is not simulated at
+	 *            all, the cycle does then not count for getElapsedTicks
+	 */
+	public final void skipUpdate(boolean dormant) {
+		if (dormant) {
+			skippedTicks = 0;
+		} else {
+			skippedTicks++;
+		}
+		updateSkipped();
+	}
+
+	/**
+	 * Called when the object is not updated in this cycle of the game loop
+	 */
+	void updateSkipped() {
+
+	}
+
+	/**
+	 * Count the cycles since the previous update, just before the object is
+	 * updated.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameEngine.
+	 */
+	public final void prepareUpdate() {
+		elapsedTicks = skippedTicks + 1;
+		skippedTicks = 0;
+	}
+
+	/**
+	 * Get the number of cycles skipped since the previous update.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameEngine.
+	 * 
+	 * @return the number of skipped cycles
+	 */
+	public final int getSkippedTicks() {
+		return skippedTicks;
+	}
+
+	/**
+	 * Get the horizontal shift from the current position to the position
+	 * where the object must be drawn when interpolating.
+	 * 
+	 * @param alpha
+	 *            Fraction of the time between the previous and the current
+	 *            update that has passed, between 0 and 1
+	 * @return the horizontal shift in pixels
+	 */
+	public final float getDrawOffsetX(float alpha) {
+		return (float) ((drawStartX - xlocation) * (1 - alpha));
+	}
+
+	/**
+	 * Get the vertical shift from the current position to the position
+	 * where the object must be drawn when interpolating.
+	 * 
+	 * @param alpha
+	 *            Fraction of the time between the previous and the current
+	 *            update that has passed, between 0 and 1
+	 * @return the vertical shift in pixels
+	 */
+	public final float getDrawOffsetY(float alpha) {
+		return (float) ((drawStartY - ylocation) * (1 - alpha));
+	}
+
 	/**
 	 * Get the depth of the object in rendering. 
 	 * Depth is a number between 0 and 1. 1  means at the top (foreground)
@@ -485,17 +800,53 @@ public class GameObject {
 	 * Set the depth of the object in rendering. Number between 0 and 1. 
 	 * 1  means at the top (foreground), 0 means at the bottom (background).
 	 * <br />
-	 * Setting the depth is only useful <b>before</b> you add the Object to the game,
-	 * because it influences its position in the list of Objects. Using this method on Objects
-	 * that have already been added has no effect.
-	 * Instead of using this method, it is recommended to use the addGameObject method with depth-parameter
-	 * in GameEngine
+	 * The depth determines the position of the Object in the list of Objects.
+	 * When you change the depth of an Object that has already been added, it
+	 * moves to its new place (below the other Objects with that depth) at
+	 * the end of the current cycle of the game loop.
 	 * 
 	 * @param depth the depth, a float
 	 * @see android.gameengine.icadroids.engine.GameEngine#addGameObject(GameObject gameObject, float layerposition)
 	 */
 	public void setDepth(float depth) {
-	    this.depth = depth;
+	    if (depth != this.depth) {
+	        this.depth = depth;
+	        GameEngine.depthChanged(this);
+	    }
+	}
+
+	/**
+	 * Set the depth of an object that is about to be added to the game. The
+	 * depth is set directly, the object isn't in the list of Objects yet, so
+	 * it doesn't have to be moved.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameEngine.
+	 * 
+	 * @param depth the depth, a float
+	 */
+	public final void setDepthBeforeAdding(float depth) {
+		this.depth = depth;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Used by the GameEngine to find the
+	 * object in its list of items.
+	 * 
+	 * @return the handle of the object in GameEngine.items
+	 */
+	public final int getRegistryHandle() {
+		return registryHandle;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Used by the GameEngine to find the
+	 * object in its list of items.
+	 * 
+	 * @param handle
+	 *            the handle of the object in GameEngine.items
+	 */
+	public final void setRegistryHandle(int handle) {
+		registryHandle = handle;
 	}
 	
 }
\ No newline at end of file
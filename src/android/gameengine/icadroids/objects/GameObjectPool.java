@@ -0,0 +1,195 @@
+package android.gameengine.icadroids.objects;
+
+/**
+ * GameObjectPool keeps GameObjects of one type that have been deleted from
+ * the game, so they can be used again instead of making new objects. Use it
+ * for objects that are made and deleted all the time, like bullets and
+ * particles: once the pool holds enough objects, shooting doesn't create any
+ * garbage, and the garbage collector doesn't interrupt your game.
+ * <br />
+ * Register a pool for a type with GameEngine.registerPool, and add objects of
+ * that type with GameEngine.acquireGameObject instead of new and
+ * addGameObject. Delete them the usual way: at the end of the cycle of the
+ * game loop a deleted object is reset and goes back into its pool. Its
+ * position, speed, friction, visibility and animation frame are reset by the
+ * pool, the other fields by your reset() method. Its alarms are deleted, as
+ * usual.
+ * <br />
+ * <b>Note:</b> Don't keep references to objects that have been deleted:
+ * the object may come back in the game as a new bullet!
+ * 
+ * @param <T>
+ *            the type of the objects
+ * @see android.gameengine.icadroids.engine.GameEngine#registerPool(Class,
+ *      IGameObjectFactory)
+ * @see android.gameengine.icadroids.objects.GameObject#reset()
+ */
+public class GameObjectPool<T extends GameObject> {
+
+	/** Makes the objects when the pool is empty */
+	private final IGameObjectFactory<T> factory;
+
+	/** The objects waiting to be used again */
+	private GameObject[] free = new GameObject[16];
+
+	/** Number of objects in free */
+	private int freeCount = 0;
+
+	/** The largest number of objects kept */
+	private int maxFree = Integer.MAX_VALUE;
+
+	/** Number of objects reused */
+	private long hits = 0;
+
+	/** Number of objects made because the pool was empty */
+	private long misses = 0;
+
+	/**
+	 * Make a pool
+	 * 
+	 * @param factory
+	 *            makes the objects when the pool is empty
+	 */
+	public GameObjectPool(IGameObjectFactory<T> factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Check if an object comes from a pool
+	 * 
+	 * @param go
+	 *            the GameObject
+	 * @return true if the object goes back into a pool when it is deleted
+	 */
+	public static boolean isPooled(GameObject go) {
+		return go.pool != null;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Put a deleted object back into its
+	 * pool. Called by the GameEngine when the object is removed from the
+	 * game.
+	 * 
+	 * @param go
+	 *            the GameObject, it must be inactive and out of the game
+	 */
+	public static void release(GameObject go) {
+		if (go.pool != null) {
+			go.pool.put(go);
+		}
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Get an object from the pool, or a new
+	 * one if the pool is empty. Use GameEngine.acquireGameObject to add an
+	 * object of the pool to the game.
+	 * 
+	 * @param depth
+	 *            the layer position the object gets
+	 * @return an active object, not yet in the game
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized T acquire(float depth) {
+		T go;
+		if (freeCount > 0) {
+			freeCount--;
+			go = (T) free[freeCount];
+			free[freeCount] = null;
+			hits++;
+		} else {
+			go = factory.create();
+			go.pool = this;
+			misses++;
+		}
+		go.reuse(depth);
+		return go;
+	}
+
+	/**
+	 * Reset an object and keep it, unless the pool is full
+	 */
+	private synchronized void put(GameObject go) {
+		go.resetState();
+		go.reset();
+		if (freeCount == maxFree) {
+			// let the garbage collector have it
+			go.pool = null;
+			return;
+		}
+		if (freeCount == free.length) {
+			GameObject[] bigger = new GameObject[free.length * 2];
+			System.arraycopy(free, 0, bigger, 0, freeCount);
+			free = bigger;
+		}
+		free[freeCount++] = go;
+	}
+
+	/**
+	 * Make objects in advance, for instance in initialize(), so the pool
+	 * doesn't have to make them while the game is running.
+	 * 
+	 * @param count
+	 *            the number of objects the pool must hold
+	 */
+	public synchronized void prefill(int count) {
+		while (freeCount < Math.min(count, maxFree)) {
+			T go = factory.create();
+			go.pool = this;
+			go.clearActive();
+			put(go);
+		}
+	}
+
+	/**
+	 * Set the largest number of deleted objects the pool keeps. Objects
+	 * deleted when the pool is full are thrown away. Default: no limit.
+	 * 
+	 * @param maxFree
+	 *            the number of objects
+	 */
+	public synchronized void setMaxFree(int maxFree) {
+		this.maxFree = Math.max(0, maxFree);
+		while (freeCount > this.maxFree) {
+			freeCount--;
+			free[freeCount].pool = null;
+			free[freeCount] = null;
+		}
+	}
+
+	/**
+	 * Get the number of objects waiting in the pool
+	 * 
+	 * @return the number of objects
+	 */
+	public synchronized int getFreeCount() {
+		return freeCount;
+	}
+
+	/**
+	 * Get the number of times an object was reused
+	 * 
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of times a new object had to be made because the pool
+	 * was empty. When this number keeps growing while the game runs, the
+	 * objects are not deleted, or the pool has a too small maxFree.
+	 * 
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Set the hit and miss counters to 0
+	 */
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+	}
+}
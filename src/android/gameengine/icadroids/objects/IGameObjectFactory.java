@@ -0,0 +1,30 @@
+package android.gameengine.icadroids.objects;
+
+/**
+ * Makes new GameObjects of a type for a GameObjectPool. The pool asks for a
+ * new object only when it has no old object to reuse.
+ * <br />
+ * Example, for bullets:
+ * 
+ * <pre>
+ * registerPool(Bullet.class, new IGameObjectFactory&lt;Bullet&gt;() {
+ * 	public Bullet create() {
+ * 		return new Bullet();
+ * 	}
+ * });
+ * </pre>
+ * 
+ * @param <T>
+ *            the type of the objects
+ * @see android.gameengine.icadroids.engine.GameEngine#registerPool(Class,
+ *      IGameObjectFactory)
+ */
+public interface IGameObjectFactory<T extends GameObject> {
+
+	/**
+	 * Make a new object. Don't add it to the game, the GameEngine does that.
+	 * 
+	 * @return the new object
+	 */
+	T create();
+}
@@ -0,0 +1,31 @@
+package android.gameengine.icadroids.objects;
+
+/**
+ * GameObjects that implement this interface promise that their update() only
+ * changes the object itself. When GameEngine.parallelUpdate is switched on,
+ * the GameEngine may then update these objects at the same time, on several
+ * processor cores.<br />
+ * This is useful for large numbers of simple objects, like particles or
+ * bullets that just fly in a straight line.
+ * <br />
+ * In update() such an object may:
+ * <ul>
+ * <li>change its own position, speed, direction, sprite frame</li>
+ * <li>read (not change) other objects and the tiles, and call
+ * getCollidedObjects (it tests all objects during the parallel update, the
+ * broadphase isn't used)</li>
+ * <li>delete itself, or add new GameObjects (they are added at the end of the
+ * cycle of the game loop, as always, but in random order)</li>
+ * </ul>
+ * It must <b>not</b> change other GameObjects, play sounds, change the tiles
+ * or change variables of your game. If you do, strange things may happen once
+ * in a while!<br />
+ * Note: objects that implement ICollision, and objects that are inactive, are
+ * always updated the normal way. The outsideWorld() method is not called
+ * during the parallel update, but afterwards.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#parallelUpdate
+ */
+public interface IParallelUpdate {
+
+}
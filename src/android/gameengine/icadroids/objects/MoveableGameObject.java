@@ -1,13 +1,15 @@
 package android.gameengine.icadroids.objects;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import android.gameengine.icadroids.engine.GameEngine;
 import android.gameengine.icadroids.objects.collisions.CollidingObject;
+import android.gameengine.icadroids.objects.collisions.ObjectCollision;
+import android.gameengine.icadroids.objects.collisions.SweptObjectCollider;
 import android.gameengine.icadroids.objects.collisions.TileCollision;
 import android.gameengine.icadroids.objects.collisions.ICollision;
 import android.gameengine.icadroids.tiles.Tile;
-import android.graphics.Rect;
 
 /**
  * MoveableGameObject represents a moveable object in the game. Make sure to add
@@ -44,9 +46,65 @@ public class MoveableGameObject extends GameObject {
 	private double speed;
 	/** Holds the friction of this object */
 	private double friction = 0;
+	/**
+	 * True when the speed has to be calculated again from the x and y speed,
+	 * because the velocity has changed
+	 */
+	private boolean speedDirty = false;
+	/**
+	 * True when the direction has to be calculated from directionXSpeed and
+	 * directionYSpeed before it is used
+	 */
+	private boolean directionDirty = false;
+	/** The x speed of the last setxSpeed or setySpeed */
+	private double directionXSpeed = 0;
+	/** The y speed of the last setxSpeed or setySpeed */
+	private double directionYSpeed = 0;
+	/**
+	 * True when the object has moved in the current cycle of the game loop,
+	 * set by move() or by the MovementStore
+	 */
+	boolean moved = false;
 
 	private CollidingObject collidingObject = new CollidingObject();
 
+	/** Reusable list for collision checks that don't return the objects found */
+	private ArrayList<GameObject> collisionBuffer = new ArrayList<GameObject>();
+
+	/** Finds the swept collisions, made when they are first asked for */
+	private SweptObjectCollider sweptCollider = null;
+
+	/**
+	 * The store that holds the speed, friction and previous position of this
+	 * object, null if they are held by this object itself
+	 */
+	MovementStore movementStore = null;
+	/** The slot of this object in the movementStore */
+	int movementSlot = -1;
+
+	@Override
+	void resetState() {
+		super.resetState();
+		xSpeed = 0;
+		ySpeed = 0;
+		prevX = 0;
+		prevY = 0;
+		prevCenterX = 0;
+		prevCenterY = 0;
+		direction = 0;
+		moveX = 0;
+		moveY = 0;
+		speed = 0;
+		friction = 0;
+		speedDirty = false;
+		directionDirty = false;
+		moved = false;
+		collisionBuffer.clear();
+		if (sweptCollider != null) {
+			sweptCollider.clear();
+		}
+	}
+
 	/**
 	 * The update-method will be called every cycle of the game loop.
 	 * Override this method to give an object any time driven behaviour.
@@ -60,8 +118,87 @@ public class MoveableGameObject extends GameObject {
 	@Override
 	public void update() {
 		super.update();
-		move();
-		speed = calculateSpeed(xSpeed, ySpeed);
+		if (movementStore == null) {
+			moved = false;
+			move();
+			if (speedDirty) {
+				speed = calculateSpeed(xSpeed, ySpeed);
+				speedDirty = false;
+			}
+		}
+	}
+
+	@Override
+	void updateSkipped() {
+		// the previous position is still that of the last move, objects in
+		// a MovementStore are moved anyway
+		if (movementStore == null) {
+			moved = false;
+		}
+	}
+
+	/**
+	 * Move the movement data into a MovementStore, which will move this object
+	 * from now on.
+	 * 
+	 * @param store
+	 *            the store
+	 * @param slot
+	 *            the slot of this object in the store
+	 */
+	void moveToStore(MovementStore store, int slot) {
+		if (speedDirty) {
+			speed = calculateSpeed(xSpeed, ySpeed);
+			speedDirty = false;
+		}
+		store.x[slot] = xlocation;
+		store.y[slot] = ylocation;
+		store.prevX[slot] = prevX;
+		store.prevY[slot] = prevY;
+		store.xSpeed[slot] = xSpeed;
+		store.ySpeed[slot] = ySpeed;
+		store.speed[slot] = speed;
+		store.friction[slot] = friction;
+		store.moveX[slot] = moveX;
+		store.moveY[slot] = moveY;
+		movementStore = store;
+		movementSlot = slot;
+	}
+
+	/**
+	 * Move the movement data back from the MovementStore into this object
+	 */
+	void moveFromStore() {
+		MovementStore store = movementStore;
+		int slot = movementSlot;
+		prevX = store.prevX[slot];
+		prevY = store.prevY[slot];
+		prevCenterX = getPrevCenterX();
+		prevCenterY = getPrevCenterY();
+		xSpeed = store.xSpeed[slot];
+		ySpeed = store.ySpeed[slot];
+		speed = store.speed[slot];
+		friction = store.friction[slot];
+		moveX = store.moveX[slot];
+		moveY = store.moveY[slot];
+		movementStore = null;
+		movementSlot = -1;
+	}
+
+	/**
+	 * Set the speed in x and y direction and the total speed, in this object
+	 * or in its MovementStore
+	 */
+	private void storeSpeed(double xSpeed, double ySpeed, double speed) {
+		if (movementStore != null) {
+			movementStore.xSpeed[movementSlot] = xSpeed;
+			movementStore.ySpeed[movementSlot] = ySpeed;
+			movementStore.speed[movementSlot] = speed;
+		} else {
+			this.xSpeed = xSpeed;
+			this.ySpeed = ySpeed;
+			this.speed = speed;
+		}
 	}
 	
 
@@ -101,11 +238,21 @@ public class MoveableGameObject extends GameObject {
 
 		double radianDirection = Math.toRadians(thisDirection)
 				- (0.5 * Math.PI);
-		double sv = Math.sin(radianDirection) * speed;
-		double sh = Math.cos(radianDirection) * speed;
-		ySpeed = sv;
-		xSpeed = sh;
+		double speed = getSpeed();
+		double sv;
+		double sh;
+		if (GameEngine.fastMath) {
+			sv = FastMath.sin(radianDirection) * speed;
+			sh = FastMath.cos(radianDirection) * speed;
+		} else {
+			sv = Math.sin(radianDirection) * speed;
+			sh = Math.cos(radianDirection) * speed;
+		}
+		storeSpeed(sh, sv, speed);
+		// the speed is kept as given, until the next update
+		speedDirty = true;
 		this.direction = thisDirection;
+		directionDirty = false;
 	}
 
 	/**
@@ -119,10 +266,16 @@ public class MoveableGameObject extends GameObject {
 	 * @return the direction in degrees.
 	 */
 	private double calculateDirection(double xSpeed, double ySpeed) {
+		double angle;
+		if (GameEngine.fastMath) {
+			angle = FastMath.atan2(ySpeed, xSpeed);
+		} else {
+			angle = Math.atan2(ySpeed, xSpeed);
+		}
 		if (xSpeed >= 0 || ySpeed >= 0) {
-			return Math.toDegrees(Math.atan2(ySpeed, xSpeed)) + 90;
+			return Math.toDegrees(angle) + 90;
 		} else {
-			return Math.toDegrees((Math.atan2(ySpeed, xSpeed))) + 450;
+			return Math.toDegrees(angle) + 450;
 		}
 	}
 
@@ -132,7 +285,7 @@ public class MoveableGameObject extends GameObject {
 	 * @return the actual speed.
 	 */
 	private double calculateSpeed(double xSpeed, double ySpeed) {
-		return Math.sqrt(Math.pow(xSpeed, 2) + Math.pow(ySpeed, 2));
+		return Math.sqrt(xSpeed * xSpeed + ySpeed * ySpeed);
 	}
 
 	/**
@@ -142,8 +295,8 @@ public class MoveableGameObject extends GameObject {
 	 *            the speed to give this object.
 	 */
 	public final void setSpeed(double speed) {
-		this.speed = speed;
-		setDirection(direction);
+		storeSpeed(getxSpeed(), getySpeed(), speed);
+		setDirection(getDirection());
 	}
 
 	/**
@@ -156,7 +309,8 @@ public class MoveableGameObject extends GameObject {
 	 *            the speed you want to set.
 	 */
 	public final void setDirectionSpeed(double direction, double speed) {
-		setSpeed(speed);
+		// setDirection uses the new speed, the old direction is not needed
+		storeSpeed(getxSpeed(), getySpeed(), speed);
 		setDirection(direction);
 	}
 
@@ -167,9 +321,13 @@ public class MoveableGameObject extends GameObject {
 	 *            the xSpeed.
 	 */
 	public final void setxSpeed(double xSpeed) {
-		speed = calculateSpeed(xSpeed, ySpeed);
-		direction = calculateDirection(xSpeed, ySpeed);
-		this.xSpeed = xSpeed;
+		double ySpeed = getySpeed();
+		// the direction is calculated when it is asked for
+		directionXSpeed = xSpeed;
+		directionYSpeed = ySpeed;
+		directionDirty = true;
+		storeSpeed(xSpeed, ySpeed, calculateSpeed(xSpeed, ySpeed));
+		speedDirty = false;
 	}
 
 	/**
@@ -179,9 +337,13 @@ public class MoveableGameObject extends GameObject {
 	 *            the ySpeed.
 	 */
 	public final void setySpeed(double ySpeed) {
-		speed = calculateSpeed(xSpeed, ySpeed);
-		direction = calculateDirection(xSpeed, ySpeed);
-		this.ySpeed = ySpeed;
+		double xSpeed = getxSpeed();
+		// the direction is calculated when it is asked for
+		directionXSpeed = xSpeed;
+		directionYSpeed = ySpeed;
+		directionDirty = true;
+		storeSpeed(xSpeed, ySpeed, calculateSpeed(xSpeed, ySpeed));
+		speedDirty = false;
 	}
 
 	/**
@@ -201,24 +363,57 @@ public class MoveableGameObject extends GameObject {
 	 */
 	private void move() {
 		if (speed > 0 || moveX != 0 || moveY != 0) {
+			moved = true;
 			prevX = xlocation;
 			prevY = ylocation;
 			prevCenterX = getCenterX();
 			prevCenterY = getCenterY();
-			xSpeed = calculateFriction(xSpeed);
-			ySpeed = calculateFriction(ySpeed);
-
-			double movementX = xSpeed + moveX;
-			double movementY = ySpeed + moveY;
+			double movementX;
+			double movementY;
+			int ticks = getElapsedTicks();
+			if (ticks > 1 && friction == 0) {
+				// catch up on the cycles skipped by GameEngine.simulationLOD
+				movementX = xSpeed * ticks + moveX;
+				movementY = ySpeed * ticks + moveY;
+			} else if (ticks > 1) {
+				// catch up on the cycles skipped by GameEngine.simulationLOD:
+				// friction works every cycle, so the distance is the sum of
+				// a geometric series
+				double factor = 1 - friction;
+				double factorTicks = Math.pow(factor, ticks);
+				double distance = factor * (1 - factorTicks) / friction;
+				movementX = xSpeed * distance + moveX;
+				movementY = ySpeed * distance + moveY;
+				xSpeed *= factorTicks;
+				ySpeed *= factorTicks;
+				speedDirty = true;
+			} else {
+				if (friction != 0) {
+					xSpeed = calculateFriction(xSpeed);
+					ySpeed = calculateFriction(ySpeed);
+					speedDirty = true;
+				}
+				movementX = xSpeed + moveX;
+				movementY = ySpeed + moveY;
+			}
 
 			xlocation += movementX;
 			ylocation += movementY;
 
 			// Calculate collision
-			if ( this instanceof ICollision )
-			collidingObject.calculateCollision(xlocation, ylocation, xlocation
-					- movementX, ylocation - movementY, this.getSprite(),
-					GameEngine.gameTiles, (ICollision)this);
+			if ( this instanceof ICollision ) {
+				if ( GameEngine.batchTileCollisions ) {
+					GameEngine.getTileCollisionBatch().add(collidingObject,
+							(ICollision) this, this.getSprite(), xlocation
+									- movementX, ylocation - movementY,
+							xlocation, ylocation);
+				} else {
+					collidingObject.calculateCollision(xlocation, ylocation,
+							xlocation - movementX, ylocation - movementY,
+							this.getSprite(), GameEngine.gameTiles,
+							(ICollision) this);
+				}
+			}
 
 			moveX = 0;
 			moveY = 0;
@@ -236,8 +431,13 @@ public class MoveableGameObject extends GameObject {
 	 *            the amount of Y pixels this object should move.
 	 */
 	public final void movePlayer(int x_movement, int y_movement) {
-		moveX += x_movement;
-		moveY += y_movement;
+		if (movementStore != null) {
+			movementStore.moveX[movementSlot] += x_movement;
+			movementStore.moveY[movementSlot] += y_movement;
+		} else {
+			moveX += x_movement;
+			moveY += y_movement;
+		}
 	}
 
 	/**
@@ -245,7 +445,7 @@ public class MoveableGameObject extends GameObject {
 	 *         <b>false</b> otherwise.
 	 */
 	public final boolean movesLeft() {
-		return xSpeed < 0;
+		return getxSpeed() < 0;
 	}
 
 	/**
@@ -253,7 +453,7 @@ public class MoveableGameObject extends GameObject {
 	 *         returns <b>false</b> otherwise.
 	 */
 	public final boolean movesRight() {
-		return xSpeed > 0;
+		return getxSpeed() > 0;
 	}
 
 	/**
@@ -261,7 +461,7 @@ public class MoveableGameObject extends GameObject {
 	 *         <b>false</b> otherwise.
 	 */
 	public final boolean movesUp() {
-		return ySpeed < 0;
+		return getySpeed() < 0;
 	}
 
 	/**
@@ -269,7 +469,7 @@ public class MoveableGameObject extends GameObject {
 	 *         <b>false</b> otherwise.
 	 */
 	public final boolean movesDown() {
-		return ySpeed > 0;
+		return getySpeed() > 0;
 	}
 
 	/**
@@ -299,10 +499,13 @@ public class MoveableGameObject extends GameObject {
 	 * 			Must be a number between 0 and 1
 	 */
 	public final void setFriction(double friction) {
-		if ( friction > 0 && friction < 1 ) {
-			this.friction = friction;
+		if ( friction <= 0 || friction >= 1 ) {
+			friction = 0;
+		}
+		if ( movementStore != null ) {
+			movementStore.friction[movementSlot] = friction;
 		} else {
-			this.friction = 0;
+			this.friction = friction;
 		}
 	}
 
@@ -312,6 +515,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return the friction.
 	 */
 	public final double getFriction() {
+		if (movementStore != null) {
+			return movementStore.friction[movementSlot];
+		}
 		return friction;
 	}
 
@@ -333,6 +539,10 @@ public class MoveableGameObject extends GameObject {
 	 * @return the direction(angle) in degrees.
 	 */
 	public final double getDirection() {
+		if (directionDirty) {
+			direction = calculateDirection(directionXSpeed, directionYSpeed);
+			directionDirty = false;
+		}
 		return direction;
 	}
 
@@ -343,21 +553,21 @@ public class MoveableGameObject extends GameObject {
 	 * @return the direction(angle) in radians
 	 */
 	public final double getDirectionRadians() {
-		return Math.toRadians(direction);
+		return Math.toRadians(getDirection());
 	}
 
 	/**
 	 * Reverses the horizontal direction of the objects movement.
 	 */
 	public final void reverseHorizontalDirection() {
-		setxSpeed(-xSpeed);
+		setxSpeed(-getxSpeed());
 	}
 
 	/**
 	 * Reverses the vertical direction of the objects movement.
 	 */
 	public final void reverseVerticalDirection() {
-		setySpeed(-ySpeed);
+		setySpeed(-getySpeed());
 	}
 
 	/**
@@ -366,6 +576,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return the previous X position.
 	 */
 	public final double getPrevX() {
+		if (movementStore != null) {
+			return movementStore.prevX[movementSlot];
+		}
 		return prevX;
 	}
 
@@ -375,6 +588,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return the previous Y position.
 	 */
 	public final double getPrevY() {
+		if (movementStore != null) {
+			return movementStore.prevY[movementSlot];
+		}
 		return prevY;
 	}
 
@@ -385,6 +601,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return the prevCenterX of this object
 	 */
 	public final double getPrevCenterX() {
+		if (movementStore != null) {
+			return (float) (getPrevX() + getSprite().getSpriteCenterX());
+		}
 		return prevCenterX;
 	}
 
@@ -395,6 +614,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return the prevCenterY of this object
 	 */
 	public final double getPrevCenterY() {
+		if (movementStore != null) {
+			return (float) (getPrevY() + getSprite().getSpriteCenterY());
+		}
 		return prevCenterY;
 	}
 
@@ -406,6 +628,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return The speed.
 	 */
 	public final double getSpeed() {
+		if (movementStore != null) {
+			return movementStore.speed[movementSlot];
+		}
 		return speed;
 	}
 
@@ -417,6 +642,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return The X speed.
 	 */
 	public final double getxSpeed() {
+		if (movementStore != null) {
+			return movementStore.xSpeed[movementSlot];
+		}
 		return xSpeed;
 	}
 
@@ -428,6 +656,9 @@ public class MoveableGameObject extends GameObject {
 	 * @return The Y speed.
 	 */
 	public final double getySpeed() {
+		if (movementStore != null) {
+			return movementStore.ySpeed[movementSlot];
+		}
 		return ySpeed;
 	}
 
@@ -456,7 +687,11 @@ public class MoveableGameObject extends GameObject {
 	 * GameObjects or MovableGameObjects. It will return a list with the
 	 * collided objects, it returns a null if there is no collision.<br />
 	 * Call this method inside your <i>update()</i>, if you want to handle
-	 * collisions.
+	 * collisions.<br />
+	 * When this object or the other object has pixel collision switched on,
+	 * the other object is only returned when their pixels overlap. Objects
+	 * that can't collide with this object (see setCollisionCategory and
+	 * setCollisionMask) are never returned.
 	 * 
 	 * @return An arraylist of all objects that this object has collided with.
 	 * 
@@ -465,16 +700,8 @@ public class MoveableGameObject extends GameObject {
 	 */
 	public final ArrayList<GameObject> getCollidedObjects() {
 		ArrayList<GameObject> collidedObjects = new ArrayList<GameObject>();
-
-		// move this part to GameEngine itself (and make 'items' private!!
-		// check if other item is active
-		for (int i = 0; i < GameEngine.items.size(); i++) {
-			if (GameEngine.items.get(i) != this) {
-				if (Rect.intersects(this.position, GameEngine.items.get(i).position)) {
-					collidedObjects.add(GameEngine.items.get(i));
-				}
-			}
-		}
+		GameEngine.findItemsColliding(position, this, collidedObjects);
+		removeMissedPixels(collidedObjects);
 		if (collidedObjects.size() > 0) {
 			return collidedObjects;
 		}
@@ -493,21 +720,76 @@ public class MoveableGameObject extends GameObject {
 	 *         class
 	 */
 	public final <T> boolean collidedWith(Class<T> objectClass) {
-
-		ArrayList<GameObject> tempArray = getCollidedObjects();
-		if (tempArray == null) {
-
-			return false;
+		collisionBuffer.clear();
+		GameEngine.findItemsColliding(position, this, collisionBuffer);
+		boolean collided = false;
+		for (int i = 0; i < collisionBuffer.size(); i++) {
+			GameObject go = collisionBuffer.get(i);
+			if (go.getClass().isAssignableFrom(objectClass)
+					&& collidesWithPixels(go)) {
+				collided = true;
+				break;
+			}
 		}
+		collisionBuffer.clear();
+		return collided;
+	}
 
-		for (int i = 0; i < tempArray.size(); i++) {
-			if (tempArray.get(i).getClass().isAssignableFrom(objectClass)) {
-				return true;
+	/**
+	 * Remove the objects from a list of objects whose rectangles overlap this
+	 * object, that don't overlap pixel by pixel
+	 * 
+	 * @see GameObject#setPixelCollision(boolean)
+	 */
+	private void removeMissedPixels(ArrayList<GameObject> found) {
+		int kept = 0;
+		for (int i = 0; i < found.size(); i++) {
+			GameObject go = found.get(i);
+			if (collidesWithPixels(go)) {
+				found.set(kept++, go);
 			}
 		}
+		while (found.size() > kept) {
+			found.remove(found.size() - 1);
+		}
+	}
 
-		return false;
-
+	/**
+	 * Checks which GameObjects this object has run into during its last move,
+	 * from its previous position to its current position. Unlike
+	 * getCollidedObjects(), this also finds the objects a fast object has
+	 * passed through, for instance a bullet flying through a thin enemy. The
+	 * other objects are taken at their current positions.<br />
+	 * Every ObjectCollision tells the object that was hit, the side of that
+	 * object that was hit (like TileCollision) and the part of the move that
+	 * was done at that moment, so you can use the first collision to stop at
+	 * the object.<br />
+	 * Call this method inside your <i>update()</i>, after
+	 * <i>super.update()</i>.
+	 * <br />
+	 * Note: the list and the ObjectCollisions in it are reused by the next
+	 * call, don't keep them. The rectangles are swept, pixel collision (see
+	 * setPixelCollision) is not used here.
+	 * 
+	 * @return the collisions ordered by time of impact, the first collision
+	 *         first, or null if there is no collision or the object hasn't
+	 *         moved in this cycle
+	 */
+	public final List<ObjectCollision> getSweptCollisions() {
+		if (!moved) {
+			// the previous position belongs to an older move
+			return null;
+		}
+		if (sweptCollider == null) {
+			sweptCollider = new SweptObjectCollider();
+		}
+		boolean collided = sweptCollider.findCollisions(this,
+				(int) Math.round(getPrevX()), (int) Math.round(getPrevY()),
+				getX(), getY(), getFrameWidth(), getFrameHeight());
+		if (collided) {
+			return sweptCollider.getCollisions();
+		}
+		return null;
 	}
 
 	/**
@@ -525,6 +807,8 @@ public class MoveableGameObject extends GameObject {
 	 */
 	public void moveUpToTileSide(TileCollision tc)
 	{
+		double prevX = getPrevX();
+		double prevY = getPrevY();
 		int side = tc.collisionSide;
 		// the position we want to move to, x or y
 		int pos;
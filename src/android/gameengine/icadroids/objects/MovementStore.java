@@ -0,0 +1,220 @@
+package android.gameengine.icadroids.objects;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.objects.collisions.ICollision;
+
+/**
+ * MovementStore holds the movement data (position, speed, friction, previous
+ * position) of many MoveableGameObjects in arrays, one array per value, and
+ * moves all of them in one loop per cycle of the game loop. This is much
+ * faster than moving every object in its own update(), when there are
+ * thousands of moving objects.
+ * <br />
+ * The store is used when GameEngine.dataOrientedMovement is switched on. The
+ * getters and setters of MoveableGameObject then read and write the store,
+ * so your code doesn't change.
+ * <br />
+ * <b>This is a utility class for the GameEngine. Game programmers will have no
+ * need of this class!</b>
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#dataOrientedMovement
+ */
+public class MovementStore {
+
+	/** The objects in the store, every object has its own slot */
+	private MoveableGameObject[] movers = new MoveableGameObject[16];
+
+	/** Number of objects in the store */
+	private int size = 0;
+
+	/** The movement data of every slot */
+	double[] x = new double[16];
+	double[] y = new double[16];
+	double[] prevX = new double[16];
+	double[] prevY = new double[16];
+	double[] xSpeed = new double[16];
+	double[] ySpeed = new double[16];
+	double[] speed = new double[16];
+	double[] friction = new double[16];
+	double[] moveX = new double[16];
+	double[] moveY = new double[16];
+
+	/** For every slot: true if the object moves in this cycle */
+	private boolean[] moving = new boolean[16];
+
+	/**
+	 * Check if an object is moved by a MovementStore
+	 *
+	 * @param go
+	 *            the GameObject
+	 * @return true if the object is in a store
+	 */
+	public static boolean isStored(GameObject go) {
+		return go instanceof MoveableGameObject
+				&& ((MoveableGameObject) go).movementStore != null;
+	}
+
+	/**
+	 * Get the number of objects in the store
+	 *
+	 * @return the number of objects
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Put an object in the store, its
+	 * movement data is moved into the store.
+	 *
+	 * @param mover
+	 *            the object
+	 */
+	public void add(MoveableGameObject mover) {
+		if (mover.movementStore != null) {
+			return;
+		}
+		if (size == movers.length) {
+			grow();
+		}
+		movers[size] = mover;
+		mover.moveToStore(this, size);
+		size++;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Take an object out of the store, its
+	 * movement data is moved back into the object.
+	 *
+	 * @param mover
+	 *            the object
+	 */
+	public void remove(MoveableGameObject mover) {
+		if (mover.movementStore != this) {
+			return;
+		}
+		int slot = mover.movementSlot;
+		mover.moveFromStore();
+		size--;
+		if (slot < size) {
+			// put the last object in the free slot
+			MoveableGameObject last = movers[size];
+			movers[slot] = last;
+			x[slot] = x[size];
+			y[slot] = y[size];
+			prevX[slot] = prevX[size];
+			prevY[slot] = prevY[size];
+			xSpeed[slot] = xSpeed[size];
+			ySpeed[slot] = ySpeed[size];
+			speed[slot] = speed[size];
+			friction[slot] = friction[size];
+			moveX[slot] = moveX[size];
+			moveY[slot] = moveY[size];
+			last.movementSlot = slot;
+		}
+		movers[size] = null;
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Take all objects out of the store.
+	 */
+	public void clear() {
+		while (size > 0) {
+			remove(movers[size - 1]);
+		}
+	}
+
+	/**
+	 * <b>Do NOT call this method.</b> Move all active objects in the store,
+	 * the way MoveableGameObject.update() moves a single object. Tile
+	 * collisions are added to the TileCollisionBatch of the GameEngine. The
+	 * position rectangles of the moved objects are updated here, so objects
+	 * that are not updated in this cycle (see GameEngine.simulationLOD) are
+	 * still found at their new position.
+	 *
+	 * @param interpolate
+	 *            true if the draw start position must be saved before moving
+	 */
+	public void integrate(boolean interpolate) {
+		int n = size;
+		// read the positions, they may have been changed by the game
+		for (int i = 0; i < n; i++) {
+			MoveableGameObject m = movers[i];
+			if (!m.isActive()) {
+				moving[i] = false;
+				m.moved = false;
+				continue;
+			}
+			if (interpolate) {
+				m.saveDrawStartPosition();
+			}
+			x[i] = m.xlocation;
+			y[i] = m.ylocation;
+			moving[i] = speed[i] > 0 || moveX[i] != 0 || moveY[i] != 0;
+			m.moved = moving[i];
+		}
+		// move
+		for (int i = 0; i < n; i++) {
+			if (!moving[i]) {
+				continue;
+			}
+			double f = 1 - friction[i];
+			double xs = f * xSpeed[i];
+			double ys = f * ySpeed[i];
+			prevX[i] = x[i];
+			prevY[i] = y[i];
+			x[i] += xs + moveX[i];
+			y[i] += ys + moveY[i];
+			xSpeed[i] = xs;
+			ySpeed[i] = ys;
+			if (f != 1) {
+				// only friction changes the velocity here
+				speed[i] = Math.sqrt(xs * xs + ys * ys);
+			}
+			moveX[i] = 0;
+			moveY[i] = 0;
+		}
+		// write the positions back and find tile collisions
+		for (int i = 0; i < n; i++) {
+			if (!moving[i]) {
+				continue;
+			}
+			MoveableGameObject m = movers[i];
+			m.xlocation = x[i];
+			m.ylocation = y[i];
+			m.refreshPosition();
+			if (m instanceof ICollision) {
+				GameEngine.getTileCollisionBatch().add(m.getCollidingObject(),
+						(ICollision) m, m.getSprite(), prevX[i], prevY[i],
+						x[i], y[i]);
+			}
+		}
+	}
+
+	/**
+	 * Make room for more objects
+	 */
+	private void grow() {
+		int capacity = movers.length * 2;
+		MoveableGameObject[] newMovers = new MoveableGameObject[capacity];
+		System.arraycopy(movers, 0, newMovers, 0, size);
+		movers = newMovers;
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		prevX = grow(prevX, capacity);
+		prevY = grow(prevY, capacity);
+		xSpeed = grow(xSpeed, capacity);
+		ySpeed = grow(ySpeed, capacity);
+		speed = grow(speed, capacity);
+		friction = grow(friction, capacity);
+		moveX = grow(moveX, capacity);
+		moveY = grow(moveY, capacity);
+		moving = new boolean[capacity];
+	}
+
+	private double[] grow(double[] values, int capacity) {
+		double[] bigger = new double[capacity];
+		System.arraycopy(values, 0, bigger, 0, size);
+		return bigger;
+	}
+}
@@ -0,0 +1,566 @@
+package android.gameengine.icadroids.objects.collisions;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.objects.GameObject;
+import android.graphics.Rect;
+
+/**
+ * AABBTree is a broadphase for collisions between GameObjects that works well
+ * when objects differ a lot in size (a huge boss between tiny bullets), where
+ * a grid of fixed cells does not.
+ * <br />
+ * Every GameObject is a leaf of a balanced binary tree. Each node of the tree
+ * has a bounding box (AABB: axis aligned bounding box) around the boxes of its
+ * children, so finding the objects overlapping a rectangle only visits the
+ * branches whose box overlaps that rectangle. Leaves get a box that is a bit
+ * larger than the position of the object (the margin), so small moves don't
+ * change the tree at all.
+ * <br />
+ * Nodes are stored in arrays and reused, so moving, adding and removing
+ * objects does not create garbage.
+ * <br />
+ * <b>This is a utility class for the GameEngine. Game programmers will have no
+ * need of this class!</b> Switch it on with GameEngine.collisionBroadphase.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#collisionBroadphase
+ */
+public class AABBTree implements IBroadphase {
+
+	/**
+	 * Index meaning 'no node'
+	 */
+	private static final int NULL_NODE = -1;
+
+	/**
+	 * Number of pixels the box of a leaf is larger than the object on every
+	 * side.
+	 */
+	private static final int MARGIN = 8;
+
+	/*
+	 * The nodes. A node is an index in these arrays. Leaves have child1 ==
+	 * NULL_NODE and height 0. Free nodes are chained through 'parent'.
+	 */
+	private int[] parent;
+	private int[] child1;
+	private int[] child2;
+	private int[] height;
+	private int[] minX;
+	private int[] minY;
+	private int[] maxX;
+	private int[] maxY;
+	private GameObject[] objects;
+
+	/**
+	 * The root of the tree
+	 */
+	private int root = NULL_NODE;
+
+	/**
+	 * Chain of free nodes below nodeCount
+	 */
+	private int freeList = NULL_NODE;
+
+	/**
+	 * Number of nodes ever used since the last clear
+	 */
+	private int nodeCount = 0;
+
+	/**
+	 * Leaf node of every object in the tree
+	 */
+	private IdentityHashMap<GameObject, Leaf> leaves = new IdentityHashMap<GameObject, Leaf>();
+
+	/**
+	 * All Leafs ever created. The first 'usedLeaves' are in the tree, the
+	 * rest is kept for reuse.
+	 */
+	private ArrayList<Leaf> leafPool = new ArrayList<Leaf>();
+
+	/**
+	 * Number of Leafs in leafPool that are in use
+	 */
+	private int usedLeaves = 0;
+
+	/**
+	 * Stack used for walking the tree
+	 */
+	private int[] stack = new int[64];
+
+	/**
+	 * Leaves found by the current query
+	 */
+	private int[] found = new int[64];
+
+	/**
+	 * Index in GameEngine.items of the object of every leaf found
+	 */
+	private int[] foundIndex = new int[64];
+
+	/**
+	 * The leaf node of an object, kept in the map of leaves
+	 */
+	private static class Leaf {
+		int node;
+		/** index of the Leaf in leafPool */
+		int slot;
+	}
+
+	/**
+	 * Create an empty AABBTree
+	 */
+	public AABBTree() {
+		allocateArrays(64);
+	}
+
+	/**
+	 * Remove all objects from the tree and add the objects of the list.
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#rebuild(java.util.List)
+	 */
+	public void rebuild(List<GameObject> objectList) {
+		clear();
+		int size = objectList.size();
+		if (size * 2 > parent.length) {
+			allocateArrays(size * 2);
+		}
+		for (int i = 0; i < size; i++) {
+			insert(objectList.get(i));
+		}
+	}
+
+	/**
+	 * Add a leaf for the object
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#insert(android.gameengine.icadroids.objects.GameObject)
+	 */
+	public void insert(GameObject go) {
+		if (leaves.containsKey(go)) {
+			return;
+		}
+		int leaf = allocateNode();
+		objects[leaf] = go;
+		setFatBox(leaf, go.position);
+		Leaf l = nextLeaf();
+		l.node = leaf;
+		leaves.put(go, l);
+		insertLeaf(leaf);
+	}
+
+	/**
+	 * Remove the leaf of the object
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#remove(android.gameengine.icadroids.objects.GameObject)
+	 */
+	public void remove(GameObject go) {
+		Leaf l = leaves.remove(go);
+		if (l == null) {
+			return;
+		}
+		removeLeaf(l.node);
+		freeNode(l.node);
+		releaseLeaf(l);
+	}
+
+	/**
+	 * Remove all objects from the tree
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#clear()
+	 */
+	public void clear() {
+		for (int i = 0; i < nodeCount; i++) {
+			objects[i] = null;
+		}
+		root = NULL_NODE;
+		freeList = NULL_NODE;
+		nodeCount = 0;
+		usedLeaves = 0;
+		leaves.clear();
+	}
+
+	/**
+	 * Refit the tree when the object has moved outside the box of its leaf.
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#update(android.gameengine.icadroids.objects.GameObject)
+	 */
+	public void update(GameObject go) {
+		Leaf l = leaves.get(go);
+		if (l == null) {
+			return;
+		}
+		int leaf = l.node;
+		Rect r = go.position;
+		if (r.left >= minX[leaf] && r.top >= minY[leaf]
+				&& r.right <= maxX[leaf] && r.bottom <= maxY[leaf]) {
+			return;
+		}
+		removeLeaf(leaf);
+		setFatBox(leaf, r);
+		insertLeaf(leaf);
+	}
+
+	/**
+	 * Find all objects whose position intersects the area, in the order of
+	 * GameEngine.items.
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#query(android.graphics.Rect,
+	 *      android.gameengine.icadroids.objects.GameObject,
+	 *      android.gameengine.icadroids.objects.GameObject, java.util.List)
+	 */
+	public void query(Rect area, GameObject exclude, GameObject filter,
+			List<GameObject> result) {
+		if (root == NULL_NODE) {
+			return;
+		}
+		int foundCount = 0;
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int node = stack[--top];
+			// boxes are closed intervals, so this is never stricter than
+			// Rect.intersects
+			if (area.left > maxX[node] || area.right < minX[node]
+					|| area.top > maxY[node] || area.bottom < minY[node]) {
+				continue;
+			}
+			if (child1[node] == NULL_NODE) {
+				GameObject go = objects[node];
+				if (go != exclude
+						&& (filter == null || filter.canCollideWith(go))
+						&& Rect.intersects(area, go.position)) {
+					if (foundCount == found.length) {
+						found = grow(found);
+						foundIndex = grow(foundIndex);
+					}
+					found[foundCount] = node;
+					foundIndex[foundCount] = GameEngine.items.indexOfHandle(go
+							.getRegistryHandle());
+					foundCount++;
+				}
+			} else {
+				if (top + 2 > stack.length) {
+					stack = grow(stack);
+				}
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+		// insertion sort on list order; few results, so this is cheap
+		for (int i = 1; i < foundCount; i++) {
+			int leaf = found[i];
+			int index = foundIndex[i];
+			int j = i - 1;
+			while (j >= 0 && foundIndex[j] > index) {
+				found[j + 1] = found[j];
+				foundIndex[j + 1] = foundIndex[j];
+				j--;
+			}
+			found[j + 1] = leaf;
+			foundIndex[j + 1] = index;
+		}
+		for (int i = 0; i < foundCount; i++) {
+			result.add(objects[found[i]]);
+		}
+	}
+
+	/**
+	 * Get an unused Leaf from the pool, creating one if necessary
+	 */
+	private Leaf nextLeaf() {
+		if (usedLeaves == leafPool.size()) {
+			Leaf l = new Leaf();
+			l.slot = usedLeaves;
+			leafPool.add(l);
+		}
+		return leafPool.get(usedLeaves++);
+	}
+
+	/**
+	 * Put a Leaf back in the pool, moving the last used Leaf to its slot
+	 */
+	private void releaseLeaf(Leaf l) {
+		usedLeaves--;
+		Leaf last = leafPool.get(usedLeaves);
+		leafPool.set(l.slot, last);
+		leafPool.set(usedLeaves, l);
+		last.slot = l.slot;
+		l.slot = usedLeaves;
+	}
+
+	/**
+	 * Set the box of a leaf to the rectangle plus the margin
+	 */
+	private void setFatBox(int leaf, Rect r) {
+		minX[leaf] = r.left - MARGIN;
+		minY[leaf] = r.top - MARGIN;
+		maxX[leaf] = r.right + MARGIN;
+		maxY[leaf] = r.bottom + MARGIN;
+	}
+
+	/**
+	 * Insert a leaf in the tree. The sibling is found by walking down the
+	 * tree, choosing the branch whose box grows the least.
+	 */
+	private void insertLeaf(int leaf) {
+		if (root == NULL_NODE) {
+			root = leaf;
+			parent[leaf] = NULL_NODE;
+			return;
+		}
+		int index = root;
+		while (child1[index] != NULL_NODE) {
+			int c1 = child1[index];
+			int c2 = child2[index];
+			long area = perimeter(index);
+			long combinedArea = combinedPerimeter(index, leaf);
+			// cost of creating a new parent for this node and the new leaf
+			long cost = 2 * combinedArea;
+			// minimum cost of pushing the leaf further down the tree
+			long inheritanceCost = 2 * (combinedArea - area);
+			long cost1 = combinedPerimeter(c1, leaf) + inheritanceCost;
+			if (child1[c1] != NULL_NODE) {
+				cost1 -= perimeter(c1);
+			}
+			long cost2 = combinedPerimeter(c2, leaf) + inheritanceCost;
+			if (child1[c2] != NULL_NODE) {
+				cost2 -= perimeter(c2);
+			}
+			if (cost < cost1 && cost < cost2) {
+				break;
+			}
+			index = (cost1 < cost2) ? c1 : c2;
+		}
+		int sibling = index;
+		int oldParent = parent[sibling];
+		int newParent = allocateNode();
+		parent[newParent] = oldParent;
+		union(newParent, leaf, sibling);
+		height[newParent] = height[sibling] + 1;
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = newParent;
+		parent[leaf] = newParent;
+		if (oldParent != NULL_NODE) {
+			if (child1[oldParent] == sibling) {
+				child1[oldParent] = newParent;
+			} else {
+				child2[oldParent] = newParent;
+			}
+		} else {
+			root = newParent;
+		}
+		refitUpwards(parent[leaf]);
+	}
+
+	/**
+	 * Take a leaf out of the tree. Its parent is freed and the sibling takes
+	 * the place of the parent.
+	 */
+	private void removeLeaf(int leaf) {
+		if (leaf == root) {
+			root = NULL_NODE;
+			return;
+		}
+		int p = parent[leaf];
+		int grandParent = parent[p];
+		int sibling = (child1[p] == leaf) ? child2[p] : child1[p];
+		if (grandParent != NULL_NODE) {
+			if (child1[grandParent] == p) {
+				child1[grandParent] = sibling;
+			} else {
+				child2[grandParent] = sibling;
+			}
+			parent[sibling] = grandParent;
+			freeNode(p);
+			refitUpwards(grandParent);
+		} else {
+			root = sibling;
+			parent[sibling] = NULL_NODE;
+			freeNode(p);
+		}
+	}
+
+	/**
+	 * Walk from the node to the root, rebalancing and recalculating heights
+	 * and boxes.
+	 */
+	private void refitUpwards(int index) {
+		while (index != NULL_NODE) {
+			index = balance(index);
+			int c1 = child1[index];
+			int c2 = child2[index];
+			height[index] = 1 + Math.max(height[c1], height[c2]);
+			union(index, c1, c2);
+			index = parent[index];
+		}
+	}
+
+	/**
+	 * Rotate the tree at node a if one child is more than one level higher
+	 * than the other.
+	 *
+	 * @return the node that took the place of a
+	 */
+	private int balance(int a) {
+		if (child1[a] == NULL_NODE || height[a] < 2) {
+			return a;
+		}
+		int b = child1[a];
+		int c = child2[a];
+		int diff = height[c] - height[b];
+		if (diff > 1) {
+			// rotate c up
+			int f = child1[c];
+			int g = child2[c];
+			child1[c] = a;
+			parent[c] = parent[a];
+			parent[a] = c;
+			replaceChild(parent[c], a, c);
+			if (height[f] > height[g]) {
+				child2[c] = f;
+				child2[a] = g;
+				parent[g] = a;
+				union(a, b, g);
+				union(c, a, f);
+				height[a] = 1 + Math.max(height[b], height[g]);
+				height[c] = 1 + Math.max(height[a], height[f]);
+			} else {
+				child2[c] = g;
+				child2[a] = f;
+				parent[f] = a;
+				union(a, b, f);
+				union(c, a, g);
+				height[a] = 1 + Math.max(height[b], height[f]);
+				height[c] = 1 + Math.max(height[a], height[g]);
+			}
+			return c;
+		}
+		if (diff < -1) {
+			// rotate b up
+			int d = child1[b];
+			int e = child2[b];
+			child1[b] = a;
+			parent[b] = parent[a];
+			parent[a] = b;
+			replaceChild(parent[b], a, b);
+			if (height[d] > height[e]) {
+				child2[b] = d;
+				child1[a] = e;
+				parent[e] = a;
+				union(a, c, e);
+				union(b, a, d);
+				height[a] = 1 + Math.max(height[c], height[e]);
+				height[b] = 1 + Math.max(height[a], height[d]);
+			} else {
+				child2[b] = e;
+				child1[a] = d;
+				parent[d] = a;
+				union(a, c, d);
+				union(b, a, e);
+				height[a] = 1 + Math.max(height[c], height[d]);
+				height[b] = 1 + Math.max(height[a], height[e]);
+			}
+			return b;
+		}
+		return a;
+	}
+
+	/**
+	 * Replace oldChild by newChild in node p, or make newChild the root when
+	 * p is no node.
+	 */
+	private void replaceChild(int p, int oldChild, int newChild) {
+		if (p == NULL_NODE) {
+			root = newChild;
+		} else if (child1[p] == oldChild) {
+			child1[p] = newChild;
+		} else {
+			child2[p] = newChild;
+		}
+	}
+
+	/**
+	 * Set the box of node to the union of the boxes of nodes a and b
+	 */
+	private void union(int node, int a, int b) {
+		minX[node] = Math.min(minX[a], minX[b]);
+		minY[node] = Math.min(minY[a], minY[b]);
+		maxX[node] = Math.max(maxX[a], maxX[b]);
+		maxY[node] = Math.max(maxY[a], maxY[b]);
+	}
+
+	private long perimeter(int node) {
+		return 2L * ((long) maxX[node] - minX[node] + maxY[node] - minY[node]);
+	}
+
+	private long combinedPerimeter(int a, int b) {
+		long w = (long) Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]);
+		long h = (long) Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]);
+		return 2L * (w + h);
+	}
+
+	/**
+	 * Get a free node, growing the arrays if necessary
+	 */
+	private int allocateNode() {
+		int node;
+		if (freeList != NULL_NODE) {
+			node = freeList;
+			freeList = parent[node];
+		} else {
+			if (nodeCount == parent.length) {
+				allocateArrays(parent.length * 2);
+			}
+			node = nodeCount++;
+		}
+		parent[node] = NULL_NODE;
+		child1[node] = NULL_NODE;
+		child2[node] = NULL_NODE;
+		height[node] = 0;
+		objects[node] = null;
+		return node;
+	}
+
+	private void freeNode(int node) {
+		objects[node] = null;
+		parent[node] = freeList;
+		freeList = node;
+	}
+
+	/**
+	 * (Re)allocate the node arrays, keeping the current nodes
+	 */
+	private void allocateArrays(int capacity) {
+		parent = copy(parent, capacity);
+		child1 = copy(child1, capacity);
+		child2 = copy(child2, capacity);
+		height = copy(height, capacity);
+		minX = copy(minX, capacity);
+		minY = copy(minY, capacity);
+		maxX = copy(maxX, capacity);
+		maxY = copy(maxY, capacity);
+		GameObject[] newObjects = new GameObject[capacity];
+		if (objects != null) {
+			System.arraycopy(objects, 0, newObjects, 0, nodeCount);
+		}
+		objects = newObjects;
+	}
+
+	private int[] copy(int[] array, int capacity) {
+		int[] result = new int[capacity];
+		if (array != null) {
+			System.arraycopy(array, 0, result, 0, nodeCount);
+		}
+		return result;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] result = new int[array.length * 2];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+}
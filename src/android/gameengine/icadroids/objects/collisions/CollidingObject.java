@@ -1,7 +1,7 @@
 package android.gameengine.icadroids.objects.collisions;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Vector;
 
 import android.gameengine.icadroids.objects.graphics.Sprite;
 import android.gameengine.icadroids.tiles.GameTiles;
@@ -22,6 +22,22 @@ import android.gameengine.icadroids.tiles.Tile;
  */
 public class CollidingObject {
 
+	/**
+	 * The list of collisions passed to collisionOccurred. It is reused for
+	 * every move, so checking collisions doesn't create garbage.
+	 */
+	private ArrayList<TileCollision> collidedTiles = new ArrayList<TileCollision>();
+
+	/**
+	 * TileCollision objects for reuse. The first elements of collidedTiles
+	 * are taken from this pool.
+	 */
+	private ArrayList<TileCollision> collisionPool = new ArrayList<TileCollision>();
+
+	/**
+	 * Index of this object in the TileCollisionBatch, -1 if not in the batch
+	 */
+	int batchSlot = -1;
 
 	/**
 	 * <b>This method is automatically called by a MoveableGameObject, do
@@ -36,7 +52,10 @@ public class CollidingObject {
 	 * has the benefit that, when a object travels very fast, it will not pass
 	 * through the tile.
 	 * 
-	 * This method will call collisionOccurred();
+	 * This method will call collisionOccurred();<br />
+	 * The list and the TileCollisions passed to collisionOccurred are reused
+	 * for the next move of this object, so no objects are created when
+	 * checking collisions.
 	 * 
 	 * @param startX
 	 *            The current x position of the object
@@ -59,12 +78,43 @@ public class CollidingObject {
 	public void calculateCollision(double endX, double endY, 
 			double startX, double startY, Sprite sprite, GameTiles gameTiles,
 			ICollision collisionObject) 
-	{	// no tiles, no sprite: no tile collisions
+	{
+		findCollisions(endX, endY, startX, startY, sprite, gameTiles);
+		dispatchCollisions(collisionObject);
+	}
+
+	/**
+	 * <b>This method is automatically called by the GameEngine, do not call
+	 * this yourself!</b>
+	 * <br />
+	 * Find the tile collisions of a move, like calculateCollision, but
+	 * without calling collisionOccurred. The collisions are kept until the
+	 * next call, dispatchCollisions passes them on.
+	 * 
+	 * @param endX
+	 *            The next x position of the object
+	 * @param endY
+	 *            The next y position of the object
+	 * @param startX
+	 *            The current x position of the object
+	 * @param startY
+	 *            The current y position of the object
+	 * @param sprite
+	 *            The sprite of the object
+	 * @param gameTiles
+	 *            The gameTiles object to check the collision with
+	 * @return true if any tiles have been hit
+	 * @see #calculateCollision(double, double, double, double, Sprite, GameTiles, ICollision)
+	 */
+	public boolean findCollisions(double endX, double endY, 
+			double startX, double startY, Sprite sprite, GameTiles gameTiles) 
+	{
+		collidedTiles.clear();
+		// no tiles, no sprite: no tile collisions
 		if (gameTiles == null || sprite == null )
 		{
-			return; 
+			return false; 
 		}
-		List<TileCollision> collidedTiles = new Vector<TileCollision>();
 		
         int xTileIndex; 		// index of column of collided tiles (horizontal collision)
         int yTileIndex; 		// index of row of collided tiles (vertical collision)
@@ -142,10 +192,8 @@ public class CollidingObject {
            			// loop through y-range
            			for (int yindex = firsttile; yindex <=lasttile; yindex++)
            			{	// see if there is a tile at the current position
-           				Tile t = gameTiles.getTileOnIndex(xTileIndex, yindex);
-           				if ( t != null )
-           					if ( t.getTileType() != -1 )
-           						collidedTiles.add(new TileCollision(t, xCollisionSide));
+           				if ( gameTiles.getTileTypeOnIndex(xTileIndex, yindex) != -1 )
+           					addCollision(gameTiles, xTileIndex, yindex, xCollisionSide);
            			}
            		}
                 if ( moveleft )
@@ -170,10 +218,8 @@ public class CollidingObject {
            			int lasttile = Math.min(gameTiles.getMapWidth()-1, divdown(xpos + objwidth-1/*-mapStartX*/, gridsize));
            			for (int xindex = firsttile; xindex <= lasttile; xindex++)
            			{
-           				Tile t = gameTiles.getTileOnIndex(xindex, yTileIndex);
-           				if ( t != null )
-           					if ( t.getTileType() != -1 )
-           						collidedTiles.add(new TileCollision(t, yCollisionSide));
+           				if ( gameTiles.getTileTypeOnIndex(xindex, yTileIndex) != -1 )
+           					addCollision(gameTiles, xindex, yTileIndex, yCollisionSide);
            			}
            		}
                 if ( moveup )
@@ -190,15 +236,63 @@ public class CollidingObject {
             // System.out.println("col6, xf: " + MathFloat.toString(xFactor, 2, 2) + ", yf: "
             //        + MathFloat.toString(yFactor, 2, 2));
         }
+        return collidedTiles.size() > 0;
+	}
+
+	/**
+	 * <b>This method is automatically called by the GameEngine, do not call
+	 * this yourself!</b>
+	 * <br />
+	 * Call collisionOccurred with the collisions found by the last call of
+	 * findCollisions, if there are any.
+	 * 
+	 * @param collisionObject
+	 *            An ICollision object that needs to be called when a collision
+	 *            has occurred
+	 */
+	public void dispatchCollisions(ICollision collisionObject)
+	{
         // 4. call collisonOccurred with list of tileCollisions
 		if (collidedTiles.size() >  0) {
 			// System.out.println("=====");	// Debug feedback
-			// System.out.println("startx,y: "+startX+", "+startY+" endx,y: "+endX+", "+endY);
 			collisionObject.collisionOccurred(collidedTiles);
 			// Tile found? collision occurred
 		}
 	}
 
+	/**
+	 * Add a collision to the list, reusing a TileCollision from the pool.
+	 * 
+	 * @param gameTiles
+	 *            the tile map
+	 * @param xIndex
+	 *            the x index of the tile
+	 * @param yIndex
+	 *            the y index of the tile
+	 * @param side
+	 *            the collisionSide
+	 */
+	private void addCollision(GameTiles gameTiles, int xIndex, int yIndex,
+			int side)
+	{
+		int n = collidedTiles.size();
+		if (n == collisionPool.size())
+		{
+			collisionPool.add(new TileCollision(null, side));
+		}
+		TileCollision tc = collisionPool.get(n);
+		// on a compact map every collision keeps a Tile of its own, the
+		// shared Tiles may be moved by other objects before collisionOccurred
+		Tile t = gameTiles.getTileView(xIndex, yIndex, tc.view);
+		if (gameTiles.isCompact())
+		{
+			tc.view = t;
+		}
+		tc.theTile = t;
+		tc.collisionSide = side;
+		collidedTiles.add(tc);
+	}
+
     /**
      * This method solves the problem that (int) (a/b)*b works as a round down to multiples of b for positive ints
      * a, and as a round up for negative ints. 
@@ -215,6 +309,23 @@ public class CollidingObject {
         if (res<0) res--;
         return res;
     }
+
+    /**
+     * Same as divdown(double, int) for int positions, without converting to
+     * double (most positions in the collision loop are ints).
+     * 
+     * @param pos
+     *                a number, usually an X- or Y-position
+     * @param deler
+     *                the divisor, usually tilesize
+     * @return pos/deler, one down if pos is negative
+     */
+    private int divdown(int pos, int deler)
+    {
+        int res = pos/deler;
+        if (res<0) res--;
+        return res;
+    }
     
     /**
      * Gets the fraction of the move that has been done up to a collision with a tile.
@@ -0,0 +1,83 @@
+package android.gameengine.icadroids.objects.collisions;
+
+import java.util.List;
+
+import android.gameengine.icadroids.objects.GameObject;
+import android.graphics.Rect;
+
+/**
+ * A broadphase is a data structure that quickly finds the GameObjects that may
+ * overlap a given rectangle, so collision detection doesn't have to test every
+ * GameObject in the game. The GameEngine keeps the broadphase up to date; which
+ * broadphase is used can be chosen with GameEngine.collisionBroadphase.
+ * <br />
+ * Every implementation must give the same results as a scan through the
+ * list of items of the GameEngine, including the order of the objects. The
+ * order is taken from the items-list when the broadphase is queried, so
+ * objects changing place in the list don't change the broadphase.
+ * <br />
+ * <b>This is a utility interface for the GameEngine. Game programmers will
+ * have no need of it!</b>
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#collisionBroadphase
+ */
+public interface IBroadphase {
+
+	/**
+	 * Remove all objects and add the objects of the list.
+	 *
+	 * @param objects
+	 *            the GameObjects to add
+	 */
+	public void rebuild(List<GameObject> objects);
+
+	/**
+	 * Add an object, at its current position
+	 *
+	 * @param go
+	 *            the GameObject to add
+	 */
+	public void insert(GameObject go);
+
+	/**
+	 * Remove an object. Objects that have not been added are ignored.
+	 *
+	 * @param go
+	 *            the GameObject to remove
+	 */
+	public void remove(GameObject go);
+
+	/**
+	 * Notify the broadphase that the position of an object has changed.
+	 * Objects that have not been added are ignored.
+	 *
+	 * @param go
+	 *            the GameObject that may have moved
+	 */
+	public void update(GameObject go);
+
+	/**
+	 * Find all objects whose position intersects the given rectangle, in the
+	 * order of GameEngine.items. When a filter is given, objects that can't
+	 * collide with it are skipped before their position is tested.
+	 *
+	 * @param area
+	 *            the rectangle to check
+	 * @param exclude
+	 *            an object that must not be reported (usually the object
+	 *            asking), or null
+	 * @param filter
+	 *            only objects for which filter.canCollideWith(object) is true
+	 *            are reported; null to report all objects
+	 * @param result
+	 *            the list the objects will be added to
+	 * @see android.gameengine.icadroids.objects.GameObject#canCollideWith(GameObject)
+	 */
+	public void query(Rect area, GameObject exclude, GameObject filter,
+			List<GameObject> result);
+
+	/**
+	 * Remove all objects
+	 */
+	public void clear();
+}
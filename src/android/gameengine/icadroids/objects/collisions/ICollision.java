@@ -46,6 +46,9 @@ public interface ICollision {
 	 * walls. Use methods like undoMove, bounce, moveUpToTileSide to react.
 	 * Typically, you scan the list front to end and take action on the first collision
 	 * that is interesting and discard the rest.
+	 * <br />
+	 * Note: the list and its TileCollisions are reused for the next move of the
+	 * object. If you want to keep them after this method returns, copy them.
 	 * 
 	 * @param collidedTiles List of TileCollision holding all tile collisions in this move.
 	 * 
@@ -0,0 +1,72 @@
+package android.gameengine.icadroids.objects.collisions;
+
+import android.gameengine.icadroids.objects.GameObject;
+
+/**
+ * ObjectCollision packages the data on a collision of a moving object with
+ * another GameObject, found by MoveableGameObject.getSweptCollisions(): the
+ * object that was hit, the side of that object that was hit, and the moment
+ * of the move at which it was hit. The sides are numbered like those of
+ * TileCollision.
+ * 
+ * @see android.gameengine.icadroids.objects.MoveableGameObject#getSweptCollisions()
+ */
+public class ObjectCollision {
+
+	/**
+	 * Constant indicating that <i>collisionSide</i> is the top of the object
+	 */
+	public static final int TOP = TileCollision.TOP;
+
+	/**
+	 * Constant indicating that <i>collisionSide</i> is the right side of the
+	 * object
+	 */
+	public static final int RIGHT = TileCollision.RIGHT;
+
+	/**
+	 * Constant indicating that <i>collisionSide</i> is the bottom of the
+	 * object
+	 */
+	public static final int BOTTOM = TileCollision.BOTTOM;
+
+	/**
+	 * Constant indicating that <i>collisionSide</i> is the left side of the
+	 * object
+	 */
+	public static final int LEFT = TileCollision.LEFT;
+
+	/**
+	 * The object involved in the collision
+	 */
+	public GameObject theObject;
+
+	/**
+	 * The side of the object onto which the moving object has collided.<br />
+	 * See constants for values.
+	 */
+	public int collisionSide;
+
+	/**
+	 * The part of the move that was done when the objects touched, a number
+	 * from 0 (at the previous position, also when the objects already
+	 * overlapped there) to 1 (at the current position).
+	 */
+	public double timeOfImpact;
+
+	/**
+	 * Create a simple ObjectCollision object.
+	 * 
+	 * @param go
+	 *            The object
+	 * @param cs
+	 *            The collisionSide
+	 * @param toi
+	 *            The time of impact
+	 */
+	public ObjectCollision(GameObject go, int cs, double toi) {
+		theObject = go;
+		collisionSide = cs;
+		timeOfImpact = toi;
+	}
+}
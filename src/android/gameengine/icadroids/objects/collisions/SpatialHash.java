@@ -0,0 +1,410 @@
+package android.gameengine.icadroids.objects.collisions;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.objects.GameObject;
+import android.graphics.Rect;
+
+/**
+ * SpatialHash is a broadphase for collisions between GameObjects. The game
+ * world is divided into square cells of a fixed size and every GameObject is
+ * registered in the cells its position rectangle covers. Cells are stored in a
+ * hash table, so the grid has no bounds: objects outside the world work as
+ * well.<br />
+ * When you look for objects overlapping a rectangle, only the objects in the
+ * cells covered by that rectangle are tested. This makes finding collisions
+ * cost (about) the number of nearby objects instead of the number of objects
+ * in the game.
+ * <br />
+ * Results are always checked with Rect.intersects and are returned in the
+ * order of GameEngine.items, so they are exactly the same as those of a scan
+ * through the entire list.
+ * <br />
+ * <b>This is a utility class for the GameEngine. Game programmers will have no
+ * need of this class!</b> Switch it on with GameEngine.collisionBroadphase.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#collisionBroadphase
+ */
+public class SpatialHash implements IBroadphase {
+
+	/**
+	 * Objects covering more cells than this are not put in the cells, but in
+	 * a separate list that is checked on every query.
+	 */
+	private static final int MAX_CELLS_PER_OBJECT = 64;
+
+	/**
+	 * Minimal number of buckets in the hash table
+	 */
+	private static final int MIN_BUCKETS = 64;
+
+	/**
+	 * Width and height of a cell, in pixels
+	 */
+	private int cellSize;
+
+	/**
+	 * The hash table. Each bucket holds the entries of all cells that hash to
+	 * it. Cells that share a bucket do no harm, they only add candidates that
+	 * will be rejected by the intersection test.
+	 */
+	private ArrayList<Entry>[] buckets;
+
+	/**
+	 * buckets.length - 1, buckets.length is always a power of two
+	 */
+	private int mask;
+
+	/**
+	 * Entries of the objects that are in the hash, for finding them back
+	 * when they move.
+	 */
+	private IdentityHashMap<GameObject, Entry> entries = new IdentityHashMap<GameObject, Entry>();
+
+	/**
+	 * All entries ever created. The first 'used' entries are in the hash, the
+	 * rest is kept for reuse.
+	 */
+	private ArrayList<Entry> entryPool = new ArrayList<Entry>();
+
+	/**
+	 * Number of entries in entryPool that are in use
+	 */
+	private int used = 0;
+
+	/**
+	 * Entries of objects that are too big to be put in the cells
+	 */
+	private ArrayList<Entry> oversized = new ArrayList<Entry>();
+
+	/**
+	 * Scratch list holding the candidates of the current query
+	 */
+	private ArrayList<Entry> found = new ArrayList<Entry>();
+
+	/**
+	 * Stamp of the current query, used to report an object only once when it
+	 * covers more than one cell.
+	 */
+	private int queryStamp = 0;
+
+	/**
+	 * Entry in the hash: an object plus the range of cells it is registered in
+	 */
+	private static class Entry {
+		GameObject object;
+		/** index of the Entry in entryPool */
+		int slot;
+		/** index of the object in GameEngine.items, set when found by a query */
+		int index;
+		int minCellX, minCellY, maxCellX, maxCellY;
+		boolean isOversized;
+		int stamp;
+	}
+
+	/**
+	 * Create an empty SpatialHash
+	 *
+	 * @param cellSize
+	 *            the width and height of a cell in pixels. A good value is
+	 *            about the size of the larger objects in your game.
+	 */
+	public SpatialHash(int cellSize) {
+		this.cellSize = Math.max(1, cellSize);
+		allocateBuckets(MIN_BUCKETS);
+	}
+
+	/**
+	 * Get the size of the cells
+	 *
+	 * @return width and height of a cell in pixels
+	 */
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Remove all objects from the hash and add the objects of the list.
+	 *
+	 * @param objects
+	 *            the GameObjects to put in the hash
+	 */
+	public void rebuild(List<GameObject> objects) {
+		clear();
+		int size = objects.size();
+		if (size * 2 > buckets.length) {
+			int n = buckets.length;
+			while (n < size * 2) {
+				n = n * 2;
+			}
+			allocateBuckets(n);
+		}
+		for (int i = 0; i < size; i++) {
+			insert(objects.get(i));
+		}
+	}
+
+	/**
+	 * Add an object to the cells its position covers
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#insert(android.gameengine.icadroids.objects.GameObject)
+	 */
+	public void insert(GameObject go) {
+		if (entries.containsKey(go)) {
+			return;
+		}
+		if (used * 2 >= buckets.length) {
+			rehash(buckets.length * 2);
+		}
+		Entry e = nextEntry();
+		e.object = go;
+		e.stamp = 0;
+		entries.put(go, e);
+		addToCells(e, go.position);
+	}
+
+	/**
+	 * Take an object out of the hash
+	 *
+	 * @see android.gameengine.icadroids.objects.collisions.IBroadphase#remove(android.gameengine.icadroids.objects.GameObject)
+	 */
+	public void remove(GameObject go) {
+		Entry e = entries.remove(go);
+		if (e == null) {
+			return;
+		}
+		removeFromCells(e);
+		e.object = null;
+		releaseEntry(e);
+	}
+
+	/**
+	 * Remove all objects from the hash
+	 */
+	public void clear() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i].clear();
+		}
+		for (int i = 0; i < used; i++) {
+			entryPool.get(i).object = null;
+		}
+		used = 0;
+		entries.clear();
+		oversized.clear();
+	}
+
+	/**
+	 * Move an object to the cells matching its current position. Call this
+	 * after the position of the object has changed. Objects that are not in
+	 * the hash are ignored.
+	 *
+	 * @param go
+	 *            the GameObject that may have moved
+	 */
+	public void update(GameObject go) {
+		Entry e = entries.get(go);
+		if (e == null) {
+			return;
+		}
+		Rect r = go.position;
+		int minX = cell(r.left);
+		int minY = cell(r.top);
+		int maxX = cell(r.right);
+		int maxY = cell(r.bottom);
+		if (minX == e.minCellX && minY == e.minCellY && maxX == e.maxCellX
+				&& maxY == e.maxCellY) {
+			return;
+		}
+		removeFromCells(e);
+		addToCells(e, r);
+	}
+
+	/**
+	 * Find all objects in the hash whose position intersects the given
+	 * rectangle. Objects are added to the result in the order of
+	 * GameEngine.items.
+	 *
+	 * @param area
+	 *            the rectangle to check
+	 * @param exclude
+	 *            an object that must not be reported (usually the object
+	 *            asking), or null
+	 * @param filter
+	 *            only objects that can collide with the filter are reported,
+	 *            null to report all objects
+	 * @param result
+	 *            the list the objects will be added to
+	 */
+	public void query(Rect area, GameObject exclude, GameObject filter,
+			List<GameObject> result) {
+		queryStamp++;
+		found.clear();
+		int minX = cell(area.left);
+		int minY = cell(area.top);
+		int maxX = cell(area.right);
+		int maxY = cell(area.bottom);
+		long cells = ((long) maxX - minX + 1) * ((long) maxY - minY + 1);
+		if (cells > used) {
+			// visiting the cells is more work than testing everything
+			for (int i = 0; i < used; i++) {
+				check(entryPool.get(i), area, exclude, filter);
+			}
+		} else {
+			for (int cy = minY; cy <= maxY; cy++) {
+				for (int cx = minX; cx <= maxX; cx++) {
+					ArrayList<Entry> bucket = buckets[hash(cx, cy)];
+					for (int i = 0; i < bucket.size(); i++) {
+						check(bucket.get(i), area, exclude, filter);
+					}
+				}
+			}
+			for (int i = 0; i < oversized.size(); i++) {
+				check(oversized.get(i), area, exclude, filter);
+			}
+		}
+		sortFound();
+		for (int i = 0; i < found.size(); i++) {
+			result.add(found.get(i).object);
+		}
+		found.clear();
+	}
+
+	/**
+	 * Add the entry to the candidates when it has not been seen in this
+	 * query, passes the filter and really intersects the area.
+	 */
+	private void check(Entry e, Rect area, GameObject exclude,
+			GameObject filter) {
+		if (e.stamp == queryStamp) {
+			return;
+		}
+		e.stamp = queryStamp;
+		if (e.object != exclude
+				&& (filter == null || filter.canCollideWith(e.object))
+				&& Rect.intersects(area, e.object.position)) {
+			e.index = GameEngine.items.indexOfHandle(e.object
+					.getRegistryHandle());
+			found.add(e);
+		}
+	}
+
+	/**
+	 * Sort the candidates on list order. There are few candidates and they
+	 * are mostly in order already, so insertion sort does fine.
+	 */
+	private void sortFound() {
+		for (int i = 1; i < found.size(); i++) {
+			Entry e = found.get(i);
+			int j = i - 1;
+			while (j >= 0 && found.get(j).index > e.index) {
+				found.set(j + 1, found.get(j));
+				j--;
+			}
+			found.set(j + 1, e);
+		}
+	}
+
+	/**
+	 * Put the entry in the cells covered by the rectangle
+	 */
+	private void addToCells(Entry e, Rect r) {
+		e.minCellX = cell(r.left);
+		e.minCellY = cell(r.top);
+		e.maxCellX = cell(r.right);
+		e.maxCellY = cell(r.bottom);
+		long cells = ((long) e.maxCellX - e.minCellX + 1)
+				* ((long) e.maxCellY - e.minCellY + 1);
+		if (cells > MAX_CELLS_PER_OBJECT) {
+			e.isOversized = true;
+			oversized.add(e);
+			return;
+		}
+		e.isOversized = false;
+		for (int cy = e.minCellY; cy <= e.maxCellY; cy++) {
+			for (int cx = e.minCellX; cx <= e.maxCellX; cx++) {
+				buckets[hash(cx, cy)].add(e);
+			}
+		}
+	}
+
+	/**
+	 * Take the entry out of the cells it is registered in
+	 */
+	private void removeFromCells(Entry e) {
+		if (e.isOversized) {
+			oversized.remove(e);
+			return;
+		}
+		for (int cy = e.minCellY; cy <= e.maxCellY; cy++) {
+			for (int cx = e.minCellX; cx <= e.maxCellX; cx++) {
+				buckets[hash(cx, cy)].remove(e);
+			}
+		}
+	}
+
+	/**
+	 * Get an unused entry, create one if necessary
+	 */
+	private Entry nextEntry() {
+		if (used == entryPool.size()) {
+			Entry e = new Entry();
+			e.slot = used;
+			entryPool.add(e);
+		}
+		return entryPool.get(used++);
+	}
+
+	/**
+	 * Put an entry back in the pool, moving the last used entry to its slot
+	 */
+	private void releaseEntry(Entry e) {
+		used--;
+		Entry last = entryPool.get(used);
+		entryPool.set(e.slot, last);
+		entryPool.set(used, e);
+		last.slot = e.slot;
+		e.slot = used;
+	}
+
+	/**
+	 * Make a larger hash table and put all entries in it again
+	 */
+	private void rehash(int n) {
+		allocateBuckets(n);
+		oversized.clear();
+		for (int i = 0; i < used; i++) {
+			Entry e = entryPool.get(i);
+			addToCells(e, e.object.position);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void allocateBuckets(int n) {
+		buckets = new ArrayList[n];
+		for (int i = 0; i < n; i++) {
+			buckets[i] = new ArrayList<Entry>(4);
+		}
+		mask = n - 1;
+	}
+
+	/**
+	 * Get the index of the cell containing the given coordinate, rounding
+	 * down for negative coordinates as well.
+	 */
+	private int cell(int pos) {
+		if (pos >= 0) {
+			return pos / cellSize;
+		}
+		return (pos + 1) / cellSize - 1;
+	}
+
+	/**
+	 * Get the bucket of a cell
+	 */
+	private int hash(int cx, int cy) {
+		return ((cx * 73856093) ^ (cy * 19349663)) & mask;
+	}
+}
@@ -0,0 +1,214 @@
+package android.gameengine.icadroids.objects.collisions;
+
+import java.util.ArrayList;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.gameengine.icadroids.objects.GameObject;
+import android.graphics.Rect;
+
+/**
+ * SweptObjectCollider finds the GameObjects that a moving object has run
+ * into during its last move, also when it moved so fast that it passed
+ * through them: the rectangle of the object is swept from its previous to its
+ * current position. The other objects are taken at their current positions.
+ * <br />
+ * The candidates are found with GameEngine.findItemsColliding on the
+ * rectangle around the whole move, so the broadphase of the GameEngine and
+ * the collision categories and masks of the objects are used. For every candidate the moment the rectangles start to overlap and
+ * the side that is hit are calculated.
+ * <br />
+ * <b>This is a utility class for MoveableGameObject. Game programmers will
+ * have no need of this class!</b> Use getSweptCollisions() instead.
+ * 
+ * @see android.gameengine.icadroids.objects.MoveableGameObject#getSweptCollisions()
+ */
+public class SweptObjectCollider {
+
+	/**
+	 * The collisions found by the last call of findCollisions, ordered by
+	 * time of impact. The list is reused for every call.
+	 */
+	private ArrayList<ObjectCollision> collisions = new ArrayList<ObjectCollision>();
+
+	/**
+	 * ObjectCollisions for reuse. The elements of collisions are taken from
+	 * this pool.
+	 */
+	private ArrayList<ObjectCollision> collisionPool = new ArrayList<ObjectCollision>();
+
+	/**
+	 * The objects found by the broadphase, reused for every call
+	 */
+	private ArrayList<GameObject> candidates = new ArrayList<GameObject>();
+
+	/**
+	 * The rectangle around the whole move
+	 */
+	private Rect sweptArea = new Rect();
+
+	/**
+	 * Find the objects the rectangle of a move has run into. The collisions
+	 * are kept until the next call, see getCollisions.
+	 * 
+	 * @param mover
+	 *            the object that has moved, it is not in the result
+	 * @param startX
+	 *            the x position at the start of the move
+	 * @param startY
+	 *            the y position at the start of the move
+	 * @param endX
+	 *            the x position at the end of the move
+	 * @param endY
+	 *            the y position at the end of the move
+	 * @param width
+	 *            the width of the object
+	 * @param height
+	 *            the height of the object
+	 * @return true if any objects have been hit
+	 */
+	public boolean findCollisions(GameObject mover, int startX, int startY,
+			int endX, int endY, int width, int height) {
+		collisions.clear();
+		sweptArea.set(Math.min(startX, endX), Math.min(startY, endY),
+				Math.max(startX, endX) + width, Math.max(startY, endY)
+						+ height);
+		GameEngine.findItemsColliding(sweptArea, mover, candidates);
+		for (int i = 0; i < candidates.size(); i++) {
+			sweep(candidates.get(i), startX, startY, endX - startX, endY
+					- startY, width, height);
+		}
+		candidates.clear();
+		return collisions.size() > 0;
+	}
+
+	/**
+	 * Gets the collisions found by the last call of findCollisions, the first
+	 * collision first. The list and the ObjectCollisions in it are reused by
+	 * the next call.
+	 * 
+	 * @return the collisions, an empty list if there were none
+	 */
+	public ArrayList<ObjectCollision> getCollisions() {
+		return collisions;
+	}
+
+	/**
+	 * Forget the collisions of the last call, so they don't keep the objects
+	 * that were hit
+	 */
+	public void clear() {
+		collisions.clear();
+		for (int i = 0; i < collisionPool.size(); i++) {
+			collisionPool.get(i).theObject = null;
+		}
+	}
+
+	/**
+	 * Calculate if and when a moving rectangle overlaps the position of
+	 * another object, and add a collision if it does.<br />
+	 * For each axis the part of the move is calculated at which the
+	 * rectangles start to overlap (entry) and stop to overlap (exit) on that
+	 * axis. The rectangles overlap when they overlap on both axes, so from the
+	 * last entry to the first exit. The axis of the last entry tells the side
+	 * that is hit.
+	 */
+	private void sweep(GameObject other, int startX, int startY, int dx,
+			int dy, int width, int height) {
+		Rect r = other.position;
+		double xEntry;
+		double xExit;
+		int xSide;
+		if (dx > 0) {
+			xEntry = (double) (r.left - (startX + width)) / dx;
+			xExit = (double) (r.right - startX) / dx;
+			xSide = ObjectCollision.LEFT;
+		} else if (dx < 0) {
+			xEntry = (double) (r.right - startX) / dx;
+			xExit = (double) (r.left - (startX + width)) / dx;
+			xSide = ObjectCollision.RIGHT;
+		} else {
+			if (startX >= r.right || startX + width <= r.left) {
+				return;
+			}
+			xEntry = Double.NEGATIVE_INFINITY;
+			xExit = Double.POSITIVE_INFINITY;
+			xSide = -1;
+		}
+		double yEntry;
+		double yExit;
+		int ySide;
+		if (dy > 0) {
+			yEntry = (double) (r.top - (startY + height)) / dy;
+			yExit = (double) (r.bottom - startY) / dy;
+			ySide = ObjectCollision.TOP;
+		} else if (dy < 0) {
+			yEntry = (double) (r.bottom - startY) / dy;
+			yExit = (double) (r.top - (startY + height)) / dy;
+			ySide = ObjectCollision.BOTTOM;
+		} else {
+			if (startY >= r.bottom || startY + height <= r.top) {
+				return;
+			}
+			yEntry = Double.NEGATIVE_INFINITY;
+			yExit = Double.POSITIVE_INFINITY;
+			ySide = -1;
+		}
+		double entry = Math.max(xEntry, yEntry);
+		double exit = Math.min(xExit, yExit);
+		// touching is not overlapping, like Rect.intersects
+		if (entry >= exit || entry >= 1 || exit <= 0) {
+			return;
+		}
+		int side;
+		if (xSide == -1 && ySide == -1) {
+			side = nearestSide(r, startX, startY, width, height);
+		} else {
+			side = xEntry >= yEntry ? xSide : ySide;
+		}
+		addCollision(other, side, Math.max(entry, 0));
+	}
+
+	/**
+	 * Find the side of a rectangle nearest to an overlapping object that
+	 * didn't move, that is the side the object should be pushed out of.
+	 */
+	private int nearestSide(Rect r, int x, int y, int width, int height) {
+		int side = ObjectCollision.LEFT;
+		int depth = x + width - r.left;
+		if (r.right - x < depth) {
+			side = ObjectCollision.RIGHT;
+			depth = r.right - x;
+		}
+		if (y + height - r.top < depth) {
+			side = ObjectCollision.TOP;
+			depth = y + height - r.top;
+		}
+		if (r.bottom - y < depth) {
+			side = ObjectCollision.BOTTOM;
+		}
+		return side;
+	}
+
+	/**
+	 * Add a collision to the list, reusing an ObjectCollision from the pool,
+	 * and keep the list ordered by time of impact. Objects with the same time
+	 * of impact stay in the order of the broadphase.
+	 */
+	private void addCollision(GameObject go, int side, double toi) {
+		int n = collisions.size();
+		if (n == collisionPool.size()) {
+			collisionPool.add(new ObjectCollision(go, side, toi));
+		}
+		ObjectCollision oc = collisionPool.get(n);
+		oc.theObject = go;
+		oc.collisionSide = side;
+		oc.timeOfImpact = toi;
+		int i = n;
+		collisions.add(oc);
+		while (i > 0 && collisions.get(i - 1).timeOfImpact > toi) {
+			collisions.set(i, collisions.get(i - 1));
+			i--;
+		}
+		collisions.set(i, oc);
+	}
+}
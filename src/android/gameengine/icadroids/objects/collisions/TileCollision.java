@@ -43,6 +43,12 @@ public class TileCollision {
 	 * See constants for values.
 	 */
 	public int collisionSide;
+
+	/**
+	 * Tile of a compact tile map owned by this collision, moved to the tile
+	 * of the next collision it is reused for
+	 */
+	Tile view;
 	
 	/**
 	 * Create a simple TileCollision object.
@@ -0,0 +1,200 @@
+package android.gameengine.icadroids.objects.collisions;
+
+import java.util.Arrays;
+
+import android.gameengine.icadroids.objects.graphics.Sprite;
+import android.gameengine.icadroids.tiles.GameTiles;
+
+/**
+ * TileCollisionBatch collects the moves of all ICollision objects during one
+ * cycle of the game loop and checks them against the tiles in one pass, after
+ * all objects have been updated. The moves are checked ordered by the tile row
+ * they start in, so objects near each other use the same part of the tile
+ * map. When all collisions are known, collisionOccurred is called for the
+ * objects that hit tiles, in the order in which they moved.
+ * <br />
+ * <b>This is a utility class for the GameEngine. Game programmers will have no
+ * need of this class!</b> Switch it on with GameEngine.batchTileCollisions.
+ *
+ * @see android.gameengine.icadroids.engine.GameEngine#batchTileCollisions
+ */
+public class TileCollisionBatch {
+
+	/**
+	 * Number of moves in the batch
+	 */
+	private int size = 0;
+
+	/**
+	 * The collision calculators of the objects that moved
+	 */
+	private CollidingObject[] colliders = new CollidingObject[0];
+
+	/**
+	 * The objects that will be told about collisions
+	 */
+	private ICollision[] targets = new ICollision[0];
+
+	/**
+	 * The sprites of the objects, their frame size is the size of the object
+	 */
+	private Sprite[] sprites = new Sprite[0];
+
+	/**
+	 * Start and end of every move
+	 */
+	private double[] startX = new double[0];
+	private double[] startY = new double[0];
+	private double[] endX = new double[0];
+	private double[] endY = new double[0];
+
+	/**
+	 * Sort keys: tile row in the upper 32 bits, index of the move in the lower
+	 */
+	private long[] order = new long[0];
+
+	/**
+	 * Add a move to the batch. When the object has moved before in this
+	 * cycle, the move is extended to the new end position.
+	 *
+	 * @param collider
+	 *            the CollidingObject of the object
+	 * @param target
+	 *            the object, that will be called when it hits tiles
+	 * @param sprite
+	 *            the sprite of the object
+	 * @param fromX
+	 *            the x position before the move
+	 * @param fromY
+	 *            the y position before the move
+	 * @param toX
+	 *            the x position after the move
+	 * @param toY
+	 *            the y position after the move
+	 */
+	public void add(CollidingObject collider, ICollision target,
+			Sprite sprite, double fromX, double fromY, double toX, double toY) {
+		int slot = collider.batchSlot;
+		if (slot >= 0 && slot < size && colliders[slot] == collider) {
+			sprites[slot] = sprite;
+			endX[slot] = toX;
+			endY[slot] = toY;
+			return;
+		}
+		if (size == colliders.length) {
+			grow();
+		}
+		colliders[size] = collider;
+		targets[size] = target;
+		sprites[size] = sprite;
+		startX[size] = fromX;
+		startY[size] = fromY;
+		endX[size] = toX;
+		endY[size] = toY;
+		collider.batchSlot = size;
+		size++;
+	}
+
+	/**
+	 * Check if there are moves in the batch
+	 *
+	 * @return true if the batch is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check all moves against the tiles, then call collisionOccurred for every
+	 * object that hit tiles. Moves made during collisionOccurred stay in the
+	 * batch for the next run.
+	 *
+	 * @param gameTiles
+	 *            the tiles to check against, may be null
+	 */
+	public void run(GameTiles gameTiles) {
+		int n = size;
+		if (gameTiles != null) {
+			int tileSize = gameTiles.tileSize;
+			for (int i = 0; i < n; i++) {
+				long row = (long) Math.floor(startY[i] / tileSize);
+				order[i] = (row << 32) | i;
+			}
+			Arrays.sort(order, 0, n);
+			for (int i = 0; i < n; i++) {
+				int m = (int) order[i];
+				colliders[m].findCollisions(endX[m], endY[m], startX[m],
+						startY[m], sprites[m], gameTiles);
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			colliders[i].batchSlot = -1;
+		}
+		// collisionOccurred may start new moves, they are added after the
+		// first n and kept for the next run
+		for (int i = 0; i < n; i++) {
+			if (gameTiles != null) {
+				colliders[i].dispatchCollisions(targets[i]);
+			}
+		}
+		int added = size - n;
+		for (int i = 0; i < added; i++) {
+			colliders[i] = colliders[n + i];
+			colliders[i].batchSlot = i;
+			targets[i] = targets[n + i];
+			sprites[i] = sprites[n + i];
+			startX[i] = startX[n + i];
+			startY[i] = startY[n + i];
+			endX[i] = endX[n + i];
+			endY[i] = endY[n + i];
+		}
+		for (int i = added; i < size; i++) {
+			colliders[i] = null;
+			targets[i] = null;
+			sprites[i] = null;
+		}
+		size = added;
+	}
+
+	/**
+	 * Remove all moves without checking them
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			colliders[i].batchSlot = -1;
+			colliders[i] = null;
+			targets[i] = null;
+			sprites[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Make room for more moves
+	 */
+	private void grow() {
+		int capacity = Math.max(16, colliders.length * 2);
+		CollidingObject[] newColliders = new CollidingObject[capacity];
+		ICollision[] newTargets = new ICollision[capacity];
+		Sprite[] newSprites = new Sprite[capacity];
+		double[] newStartX = new double[capacity];
+		double[] newStartY = new double[capacity];
+		double[] newEndX = new double[capacity];
+		double[] newEndY = new double[capacity];
+		System.arraycopy(colliders, 0, newColliders, 0, size);
+		System.arraycopy(targets, 0, newTargets, 0, size);
+		System.arraycopy(sprites, 0, newSprites, 0, size);
+		System.arraycopy(startX, 0, newStartX, 0, size);
+		System.arraycopy(startY, 0, newStartY, 0, size);
+		System.arraycopy(endX, 0, newEndX, 0, size);
+		System.arraycopy(endY, 0, newEndY, 0, size);
+		colliders = newColliders;
+		targets = newTargets;
+		sprites = newSprites;
+		startX = newStartX;
+		startY = newStartY;
+		endX = newEndX;
+		endY = newEndY;
+		order = new long[capacity];
+	}
+}
@@ -1,6 +1,6 @@
 package android.gameengine.icadroids.objects.graphics;
 
-import android.gameengine.icadroids.engine.GameView;
+import android.graphics.Bitmap;
 import android.graphics.Rect;
 
 /**
@@ -45,6 +45,15 @@ public class AnimatedSprite extends Sprite {
 	 * Animation is on or off
 	 */
 	private boolean animate = false;
+	/**
+	 * The pixel masks of all frames, shared with the other sprites with the
+	 * same image, made when they are first asked for
+	 */
+	private PixelMask[] pixelMasks = null;
+	/**
+	 * The bitmap the pixelMasks were made for
+	 */
+	private Bitmap maskedBitmap = null;
 
 	/**
 	 * Make an AnimatedSprite without loading any bitmap in it
@@ -99,7 +108,7 @@ public class AnimatedSprite extends Sprite {
 		// Note: frameWidth will be calculated by override of initialize(), 
 		// in case loading is postponed.
 		this.numberOfFrames=numberOfFrames;
-		if (GameView.surfaceLoaded) {
+		if (canLoadNow()) {
 			// so we assume the sprite has been loaded and not postponed...
 			//if(!animate){    NO!!! animate is pas true als je animatie gestart hebt
 			//	frameWidth = spriteWidth;    dus nu altijd!
@@ -132,7 +141,7 @@ public class AnimatedSprite extends Sprite {
 	 * GameObjects handle this method by itself!</b>
 	 */
 	public final void updateToNextFrame() {
-		if (animate && animationSpeed > 0 && spriteBitmap != null) {
+		if (animate && animationSpeed > 0 && hasImage()) {
 			updateCounter++;
 			if ((updateCounter % animationSpeed) == 0) {
 				nextFrame();
@@ -259,13 +268,36 @@ public class AnimatedSprite extends Sprite {
 	 */
 	@Override
 	public final int getFrameWidth() {
-		if (spriteBitmap != null) {
+		if (hasImage()) {
 			return frameWidth;
 		} else {
 			return 0;
 		}
 	}
 
+	/**
+	 * Get the pixel mask of the current frame, which tells which pixels are
+	 * visible. The masks of an image are made the first time they are asked
+	 * for.
+	 * 
+	 * @return the mask, or null if the sprite has no bitmap (for instance in
+	 *         a headless game)
+	 */
+	public final PixelMask getCurrentPixelMask() {
+		Bitmap bitmap = getSprite();
+		if (bitmap == null) {
+			return null;
+		}
+		PixelMask[] masks = pixelMasks;
+		if (masks == null || maskedBitmap != bitmap) {
+			masks = PixelMask.getMasks(getResourceName(), bitmap,
+					numberOfFrames);
+			pixelMasks = masks;
+			maskedBitmap = bitmap;
+		}
+		return masks[currentFrameNumber];
+	}
+
 	/**
 	 * Get the number of frames of the sprite
 	 * 
@@ -0,0 +1,237 @@
+package android.gameengine.icadroids.objects.graphics;
+
+import java.util.HashMap;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * PixelMask tells which pixels of one frame of a sprite are visible: every
+ * row of the frame is packed in longs, one bit per pixel. Two masks overlap
+ * when a row of one, ANDed with the same row of the other at the right
+ * offset, has a bit set. This takes a few operations per 64 pixels of a row,
+ * much less than comparing the pixels of the bitmaps.
+ * <br />
+ * The masks are made once per image and number of frames, the first time
+ * they are asked for, and are shared by all sprites with that image. A
+ * pixel is visible when its alpha is at least ALPHA_THRESHOLD.
+ * <br />
+ * <b>This is a utility class for the GameEngine. Game programmers will have no
+ * need of this class!</b> Use GameObject.setPixelCollision or
+ * GameObject.pixelsOverlap instead.
+ *
+ * @see android.gameengine.icadroids.objects.GameObject#setPixelCollision(boolean)
+ */
+public final class PixelMask {
+
+	/**
+	 * Pixels with an alpha of at least this value are part of the mask
+	 */
+	public static final int ALPHA_THRESHOLD = 128;
+
+	/**
+	 * The masks of all frames of every image, by image name and number of
+	 * frames
+	 */
+	private static HashMap<String, PixelMask[]> cache = new HashMap<String, PixelMask[]>();
+
+	/** Width of the frame in pixels */
+	private final int width;
+
+	/** Height of the frame in pixels */
+	private final int height;
+
+	/** Number of longs per row */
+	private final int wordsPerRow;
+
+	/**
+	 * The bits of all rows, row after row. Pixel x of a row is bit (x % 64)
+	 * of long (x / 64) of the row.
+	 */
+	private final long[] bits;
+
+	/**
+	 * Make the mask of a frame of a bitmap
+	 *
+	 * @param bitmap
+	 *            the image
+	 * @param frameX
+	 *            the x position of the frame in the image
+	 * @param width
+	 *            the width of the frame
+	 * @param height
+	 *            the height of the frame
+	 */
+	PixelMask(Bitmap bitmap, int frameX, int width, int height) {
+		this.width = width;
+		this.height = height;
+		wordsPerRow = (width + 63) >>> 6;
+		bits = new long[wordsPerRow * height];
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			bitmap.getPixels(row, 0, width, frameX, y, width, 1);
+			int start = y * wordsPerRow;
+			for (int x = 0; x < width; x++) {
+				if ((row[x] >>> 24) >= ALPHA_THRESHOLD) {
+					bits[start + (x >>> 6)] |= 1L << (x & 63);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the masks of all frames of an image. Masks of images with a name are
+	 * made once and shared; images without a name (set with
+	 * Sprite.setSprite(Bitmap)) get new masks.
+	 *
+	 * @param resourceName
+	 *            the name of the image, or null
+	 * @param bitmap
+	 *            the image
+	 * @param numberOfFrames
+	 *            the number of frames in the image
+	 * @return the masks, one for every frame
+	 */
+	static synchronized PixelMask[] getMasks(String resourceName,
+			Bitmap bitmap, int numberOfFrames) {
+		String key = null;
+		if (resourceName != null) {
+			key = resourceName + '/' + numberOfFrames;
+			PixelMask[] masks = cache.get(key);
+			if (masks != null) {
+				return masks;
+			}
+		}
+		int frameWidth = bitmap.getWidth() / numberOfFrames;
+		PixelMask[] masks = new PixelMask[numberOfFrames];
+		for (int i = 0; i < numberOfFrames; i++) {
+			masks[i] = new PixelMask(bitmap, i * frameWidth, frameWidth,
+					bitmap.getHeight());
+		}
+		if (key != null) {
+			cache.put(key, masks);
+		}
+		return masks;
+	}
+
+	/**
+	 * Forget all masks, for instance when a new game starts
+	 */
+	public static synchronized void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Get the width of the mask
+	 *
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the mask
+	 *
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Check if a pixel is part of the mask
+	 *
+	 * @param x
+	 *            the x position in the frame
+	 * @param y
+	 *            the y position in the frame
+	 * @return true if the pixel is visible, false if it is transparent or
+	 *         outside the frame
+	 */
+	public boolean isSet(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+	}
+
+	/**
+	 * Check if two masks at the given positions have a visible pixel in the
+	 * same place. A mask of null stands for a frame in which all pixels are
+	 * visible.
+	 *
+	 * @param a
+	 *            the first mask, or null
+	 * @param areaA
+	 *            the position of the first mask on the screen
+	 * @param b
+	 *            the second mask, or null
+	 * @param areaB
+	 *            the position of the second mask on the screen
+	 * @return true if the masks overlap
+	 */
+	public static boolean overlaps(PixelMask a, Rect areaA, PixelMask b,
+			Rect areaB) {
+		int left = Math.max(areaA.left, areaB.left);
+		int right = Math.min(areaA.right, areaB.right);
+		int top = Math.max(areaA.top, areaB.top);
+		int bottom = Math.min(areaA.bottom, areaB.bottom);
+		if (left >= right || top >= bottom) {
+			return false;
+		}
+		if (a == null && b == null) {
+			return true;
+		}
+		int overlapWidth = right - left;
+		int aX = left - areaA.left;
+		int bX = left - areaB.left;
+		for (int y = top; y < bottom; y++) {
+			int aY = y - areaA.top;
+			int bY = y - areaB.top;
+			for (int x = 0; x < overlapWidth; x += 64) {
+				long common = window(a, aX + x, aY) & window(b, bX + x, bY);
+				int count = overlapWidth - x;
+				if (count < 64) {
+					common &= (1L << count) - 1;
+				}
+				if (common != 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get 64 bits of a row of a mask, starting at any pixel
+	 *
+	 * @param mask
+	 *            the mask, null for a mask with all pixels visible
+	 * @param x
+	 *            the first pixel
+	 * @param y
+	 *            the row
+	 * @return the bits, pixel x in the lowest bit; pixels outside the frame
+	 *         are 0
+	 */
+	private static long window(PixelMask mask, int x, int y) {
+		if (mask == null) {
+			return -1L;
+		}
+		if (y < 0 || y >= mask.height) {
+			return 0;
+		}
+		int word = x >>> 6;
+		if (word >= mask.wordsPerRow) {
+			return 0;
+		}
+		int start = y * mask.wordsPerRow;
+		int shift = x & 63;
+		long result = mask.bits[start + word] >>> shift;
+		if (shift != 0 && word + 1 < mask.wordsPerRow) {
+			result |= mask.bits[start + word + 1] << (64 - shift);
+		}
+		return result;
+	}
+}
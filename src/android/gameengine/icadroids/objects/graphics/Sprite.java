@@ -2,10 +2,10 @@ package android.gameengine.icadroids.objects.graphics;
 
 import java.util.Vector;
 
-import android.gameengine.icadroids.engine.GameEngine;
 import android.gameengine.icadroids.engine.GameView;
+import android.gameengine.icadroids.platform.IBitmapLoader;
+import android.gameengine.icadroids.platform.Platform;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 
 /**
  * Sprite holds and handles correct loading of images (bitmaps), and includes
@@ -29,11 +29,20 @@ public class Sprite {
 	 * The height in pixels of the sprite
 	 */
 	protected int spriteHeight;
+	/**
+	 * True when the sprite has a size but no bitmap, in a headless game
+	 */
+	protected boolean sizeOnly = false;
 	/**
 	 * Save the resource location to load at a later time when the surface is
 	 * not created yet
 	 */
 	private String loadDelay;
+	/**
+	 * The name of the resource of the image, null if the image has been set
+	 * as a bitmap
+	 */
+	private String resourceName;
 
 	public static Vector<Sprite> loadDelayedSprites;
 
@@ -76,17 +85,19 @@ public class Sprite {
 	 *            'picture' .
 	 */
 	public void loadSprite(String resourceName) {
-		if (GameView.surfaceLoaded) {
-			int resID = GameEngine
-					.getAppContext()
-					.getResources()
-					.getIdentifier(resourceName, "drawable",
-							GameEngine.getAppContext().getPackageName());
-
-			spriteBitmap = BitmapFactory.decodeResource(GameEngine
-					.getAppContext().getResources(), resID);
-			calculateSize(spriteBitmap);
-
+		if (canLoadNow()) {
+			IBitmapLoader loader = Platform.getBitmapLoader();
+			spriteBitmap = loader.loadBitmap(resourceName);
+			this.resourceName = resourceName;
+			if (spriteBitmap != null) {
+				calculateSize(spriteBitmap);
+				sizeOnly = false;
+			} else {
+				// headless: no image, just its size
+				spriteWidth = loader.getWidth(resourceName);
+				spriteHeight = loader.getHeight(resourceName);
+				sizeOnly = true;
+			}
 		} else {
 			loadDelay = resourceName;
 			if (loadDelayedSprites != null) {
@@ -98,6 +109,16 @@ public class Sprite {
 		}
 	}
 
+	/**
+	 * Check if images can be loaded now. On a device this is when the surface
+	 * has been created, in a headless game it is always.
+	 * 
+	 * @return true if images can be loaded
+	 */
+	protected static boolean canLoadNow() {
+		return Platform.isHeadless() || GameView.surfaceLoaded;
+	}
+
 	/**
 	 * Initialize the sprite image.
 	 * <br />
@@ -141,7 +162,7 @@ public class Sprite {
 	 *         </b>
 	 */
 	public int getFrameWidth() {
-		if (spriteBitmap != null) {
+		if (hasImage()) {
 			return spriteWidth;
 		} else {
 			return 0;
@@ -155,7 +176,7 @@ public class Sprite {
 	 *         </b>
 	 */
 	public final int getFrameHeight() {
-		if (spriteBitmap != null) {
+		if (hasImage()) {
 			return spriteHeight;
 		} else {
 			return 0;
@@ -174,6 +195,28 @@ public class Sprite {
 	public final void setSprite(Bitmap sprite) {
 		calculateSize(sprite);
 		spriteBitmap = sprite;
+		resourceName = null;
+		sizeOnly = false;
+	}
+
+	/**
+	 * Get the name of the resource the image was loaded from
+	 * 
+	 * @return the name, or null if no image was loaded or the image was set
+	 *         as a bitmap
+	 */
+	public final String getResourceName() {
+		return resourceName;
+	}
+
+	/**
+	 * Check if an image has been loaded. In a headless game the sprite has
+	 * only the size of the image, which counts as loaded.
+	 * 
+	 * @return true if the sprite has an image (or its size)
+	 */
+	public final boolean hasImage() {
+		return spriteBitmap != null || sizeOnly;
 	}
 
 	/**
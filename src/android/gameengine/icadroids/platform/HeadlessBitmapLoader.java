@@ -0,0 +1,63 @@
+package android.gameengine.icadroids.platform;
+
+import java.util.HashMap;
+
+import android.graphics.Bitmap;
+
+/**
+ * Bitmap loader for headless games: it loads no images, it only knows their
+ * sizes. Tell it the size of every image your game uses with setSize; images
+ * it doesn't know get the default size.
+ */
+public class HeadlessBitmapLoader implements IBitmapLoader {
+
+	/**
+	 * The size of every known image: width, height
+	 */
+	private HashMap<String, int[]> sizes = new HashMap<String, int[]>();
+
+	private int defaultWidth;
+	private int defaultHeight;
+
+	/**
+	 * Make a loader that gives unknown images the given size
+	 * 
+	 * @param defaultWidth
+	 *            width in pixels of unknown images
+	 * @param defaultHeight
+	 *            height in pixels of unknown images
+	 */
+	public HeadlessBitmapLoader(int defaultWidth, int defaultHeight) {
+		this.defaultWidth = defaultWidth;
+		this.defaultHeight = defaultHeight;
+	}
+
+	/**
+	 * Set the size of an image
+	 * 
+	 * @param resourceName
+	 *            the name of the image
+	 * @param width
+	 *            width in pixels (of all frames together, for animated
+	 *            sprites)
+	 * @param height
+	 *            height in pixels
+	 */
+	public void setSize(String resourceName, int width, int height) {
+		sizes.put(resourceName, new int[] { width, height });
+	}
+
+	public Bitmap loadBitmap(String resourceName) {
+		return null;
+	}
+
+	public int getWidth(String resourceName) {
+		int[] size = sizes.get(resourceName);
+		return size != null ? size[0] : defaultWidth;
+	}
+
+	public int getHeight(String resourceName) {
+		int[] size = sizes.get(resourceName);
+		return size != null ? size[1] : defaultHeight;
+	}
+}
@@ -0,0 +1,42 @@
+package android.gameengine.icadroids.platform;
+
+import android.graphics.Bitmap;
+
+/**
+ * Loads the images of sprites and tiles. On a device the images are loaded
+ * from the resources of the app; a headless game doesn't draw, so it only
+ * needs the sizes of the images (for positions and collisions).
+ * 
+ * @see android.gameengine.icadroids.platform.Platform#setBitmapLoader(IBitmapLoader)
+ */
+public interface IBitmapLoader {
+
+	/**
+	 * Load an image
+	 * 
+	 * @param resourceName
+	 *            the name of the image in the /res/drawable folder, without
+	 *            extension
+	 * @return the image, or null if images are not drawn on this platform.
+	 *         The size is then given by getWidth and getHeight.
+	 */
+	Bitmap loadBitmap(String resourceName);
+
+	/**
+	 * Get the width of an image, used when loadBitmap returns null
+	 * 
+	 * @param resourceName
+	 *            the name of the image
+	 * @return the width in pixels
+	 */
+	int getWidth(String resourceName);
+
+	/**
+	 * Get the height of an image, used when loadBitmap returns null
+	 * 
+	 * @param resourceName
+	 *            the name of the image
+	 * @return the height in pixels
+	 */
+	int getHeight(String resourceName);
+}
@@ -0,0 +1,29 @@
+package android.gameengine.icadroids.platform;
+
+/**
+ * The clock used by the game loop to measure time and to wait for the next
+ * frame. On a device this is the real clock; a headless game (for instance a
+ * benchmark or a test) can use a ManualClock, so it runs much faster than
+ * real time.
+ * 
+ * @see android.gameengine.icadroids.platform.Platform#setClock(IClock)
+ */
+public interface IClock {
+
+	/**
+	 * Get the current time, like System.nanoTime()
+	 * 
+	 * @return the time in nanoseconds, only useful for measuring differences
+	 */
+	long nanoTime();
+
+	/**
+	 * Wait until the given time has passed
+	 * 
+	 * @param nanos
+	 *            the time to wait, in nanoseconds
+	 * @throws InterruptedException
+	 *             when the thread is interrupted while waiting
+	 */
+	void sleep(long nanos) throws InterruptedException;
+}
@@ -0,0 +1,34 @@
+package android.gameengine.icadroids.platform;
+
+/**
+ * A clock that only moves when it is told to. Sleeping doesn't wait, it just
+ * moves the clock forward. Use it to run a game headless, as fast as the
+ * processor allows.
+ */
+public class ManualClock implements IClock {
+
+	/**
+	 * The current time in nanoseconds
+	 */
+	private long now = 0;
+
+	public synchronized long nanoTime() {
+		return now;
+	}
+
+	public void sleep(long nanos) {
+		advance(nanos);
+	}
+
+	/**
+	 * Move the clock forward
+	 * 
+	 * @param nanos
+	 *            the time to add, in nanoseconds. Negative values are ignored.
+	 */
+	public synchronized void advance(long nanos) {
+		if (nanos > 0) {
+			now += nanos;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package android.gameengine.icadroids.platform;
+
+/**
+ * Platform holds the few services the core of the engine (the object lists,
+ * updates, collisions, alarms and the viewport) needs from its surroundings:
+ * a clock and a way to load images. On a device these are the real clock and
+ * the resources of the app. For a headless game on a plain JVM, for
+ * instance a benchmark or a soak test, set other implementations before the
+ * game starts, or use HeadlessRunner, which does this for you.
+ * <br />
+ * Drawing is not part of the core: only GameView and the render thread use a
+ * Canvas, and a headless game doesn't draw.
+ * 
+ * @see android.gameengine.icadroids.engine.HeadlessRunner
+ */
+public final class Platform {
+
+	private static IClock clock = new RealTimeClock();
+
+	private static IBitmapLoader bitmapLoader = new ResourceBitmapLoader();
+
+	private static boolean headless = false;
+
+	private Platform() {
+		// only static methods
+	}
+
+	/**
+	 * Get the clock
+	 * 
+	 * @return the clock used by the game loop
+	 */
+	public static IClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Set the clock used by the game loop
+	 * 
+	 * @param clock
+	 *            the clock
+	 */
+	public static void setClock(IClock clock) {
+		Platform.clock = clock;
+	}
+
+	/**
+	 * Get the bitmap loader
+	 * 
+	 * @return the loader used by sprites
+	 */
+	public static IBitmapLoader getBitmapLoader() {
+		return bitmapLoader;
+	}
+
+	/**
+	 * Set the loader used by sprites to load their images
+	 * 
+	 * @param bitmapLoader
+	 *            the loader
+	 */
+	public static void setBitmapLoader(IBitmapLoader bitmapLoader) {
+		Platform.bitmapLoader = bitmapLoader;
+	}
+
+	/**
+	 * Check if the game runs headless, without a screen
+	 * 
+	 * @return true when headless
+	 */
+	public static boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * Set whether the game runs headless. Sprites are then loaded immediately,
+	 * instead of waiting for the screen to be ready.
+	 * 
+	 * @param headless
+	 *            true for a headless game
+	 */
+	public static void setHeadless(boolean headless) {
+		Platform.headless = headless;
+	}
+}
@@ -0,0 +1,18 @@
+package android.gameengine.icadroids.platform;
+
+/**
+ * The real clock: System.nanoTime() and Thread.sleep(). This is the clock
+ * used by default.
+ */
+public class RealTimeClock implements IClock {
+
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	public void sleep(long nanos) throws InterruptedException {
+		if (nanos > 0) {
+			Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package android.gameengine.icadroids.platform;
+
+import android.gameengine.icadroids.engine.GameEngine;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+/**
+ * Loads images from the res/drawable folders of the app. This is the loader
+ * used by default.
+ */
+public class ResourceBitmapLoader implements IBitmapLoader {
+
+	public Bitmap loadBitmap(String resourceName) {
+		int resID = GameEngine
+				.getAppContext()
+				.getResources()
+				.getIdentifier(resourceName, "drawable",
+						GameEngine.getAppContext().getPackageName());
+		return BitmapFactory.decodeResource(GameEngine.getAppContext()
+				.getResources(), resID);
+	}
+
+	public int getWidth(String resourceName) {
+		return loadBitmap(resourceName).getWidth();
+	}
+
+	public int getHeight(String resourceName) {
+		return loadBitmap(resourceName).getHeight();
+	}
+}
@@ -5,7 +5,9 @@ package android.gameengine.icadroids.tiles;
 
 import java.util.Vector;
 import android.gameengine.icadroids.objects.graphics.Sprite;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Rect;
 
 /**
  * 
@@ -27,6 +29,26 @@ public class GameTiles {
 	 * Two dimensional array that holds the location of all tiles.
 	 */
 	private Tile tileArray[][];
+	/**
+	 * Tile types of all tiles in row-major order, used instead of tileArray
+	 * when the map is stored compactly. -1 means no tile.
+	 */
+	private short compactTiles[];
+	/**
+	 * Number of columns of the compact map
+	 */
+	private int compactColumns = 0;
+	/**
+	 * Number of rows of the compact map
+	 */
+	private int compactRows = 0;
+	/**
+	 * Tile objects handed out for the compact map, one for every position in
+	 * a block of TILE_VIEW_BLOCK x TILE_VIEW_BLOCK tiles. A Tile is moved to
+	 * another position of its slot when that position is looked up, so
+	 * looking up tiles doesn't create new Tiles.
+	 */
+	private Tile tileViews[];
 	/***
 	 * The width and height of every tile. Default value set to 50.
 	 */
@@ -40,6 +62,37 @@ public class GameTiles {
 	 * The height in pixels of the tilemap
 	 */
 	private int mapHeigth = 0;
+	/**
+	 * The number of columns of the tilemap, the length of the longest row
+	 */
+	private int mapColumns = 0;
+	/**
+	 * Number of times the map has been replaced
+	 */
+	private int mapVersion = 0;
+
+	/**
+	 * Cache of pre-drawn blocks of tiles, null when not used
+	 */
+	private TileChunkCache chunkCache = null;
+	/**
+	 * For every chunk of the map the number of times one of its tiles has
+	 * changed, when the chunk cache is used
+	 */
+	private int chunkVersions[];
+	/**
+	 * Number of chunk columns in chunkVersions
+	 */
+	private int chunkColumns = 0;
+	/**
+	 * The chunk cache that was drawn last. It is only used by the thread that
+	 * draws, which frees its chunks when the cache has been replaced.
+	 */
+	private TileChunkCache drawnCache = null;
+	/**
+	 * Snapshot used by drawTiles(Canvas, Rect)
+	 */
+	private TileSnapshot drawSnapshot = new TileSnapshot();
 
 	/**
 	 * Make a new tilemap object with the given tile resources, the tilemap and
@@ -63,6 +116,29 @@ public class GameTiles {
 		addTileMap(map, tileSize);
 	}
 
+	/**
+	 * Make a new tilemap object with the given tile resources, the tilemap and
+	 * the tile size, choosing how the map is stored.
+	 * 
+	 * @param tileResources
+	 *            a list of string with the names of the images you want to use
+	 *            in the tilemap, without the extension.
+	 * @param map
+	 *            An 2d Array of the overlay map. The numbers are the position
+	 *            of the tileResources, starting at 0. -1 means invisible Tile.
+	 * @param tileSize
+	 *            The size of a tile. This size is the width and height of a
+	 *            tile.
+	 * @param compact
+	 *            true to store the map compactly, see
+	 *            addTileMap(int[][], int, boolean)
+	 */
+	public GameTiles(String[] tileResources, int[][] map, int tileSize,
+			boolean compact) {
+		addTileResources(tileResources);
+		addTileMap(map, tileSize, compact);
+	}
+
 	/**
 	 * This overloaded constructor will make an GameTile object with an <b>
 	 * empty </b> tilemap.
@@ -86,6 +162,41 @@ public class GameTiles {
 	 *            tile.
 	 */
 	public void addTileMap(int[][] map, int tileSize) {
+		addTileMap(map, tileSize, false);
+	}
+
+	/**
+	 * Add / replace the current tile map, choosing how the map is stored.<br />
+	 * Normally there is a Tile object for every tile. When compact is true,
+	 * only the tile types are stored, in one array of shorts. This takes much
+	 * less memory for large maps. Tile objects are then only created when a
+	 * tile is asked for (getTileOnIndex, getTileOnPosition, collisions) and
+	 * getTileArray returns null.<br />
+	 * Note: the Tile objects of a compact map are reused. A Tile moves to
+	 * another position when a tile 32 rows or columns further is asked for,
+	 * so keep the index of a tile instead of the Tile. The Tiles passed to
+	 * collisionOccurred belong to the colliding object and stay in place
+	 * until its next move.
+	 * 
+	 * @param map
+	 *            An 2d Array of the overlay map. The numbers are the position
+	 *            of the tileResources, starting at 0. -1 means invisible Tile.
+	 *            Example: new Int[][] = {{0,-1,2,2,-1},{1,1,-1,2,-1}}
+	 * @param tileSize
+	 *            The size of a tile. This size is the width and height of a
+	 *            tile.
+	 * @param compact
+	 *            true to store only the tile types
+	 */
+	public void addTileMap(int[][] map, int tileSize, boolean compact) {
+		if (compact) {
+			addCompactTileMap(map, tileSize);
+			return;
+		}
+		compactTiles = null;
+		tileViews = null;
+		compactColumns = 0;
+		compactRows = 0;
 
 		tileArray = new Tile[map.length][];
 
@@ -107,7 +218,106 @@ public class GameTiles {
 
 		this.tileSize = tileSize;
 		calculateMapWidthHeigth(tileArray);
+		mapReplaced();
+
+	}
+
+	/**
+	 * Store the map as an array of tile types
+	 */
+	private void addCompactTileMap(int[][] map, int tileSize) {
+		int columns = 0;
+		for (int i = 0; i < map.length; i++) {
+			columns = Math.max(columns, map[i].length);
+		}
+		short[] tiles = new short[map.length * columns];
+		for (int i = 0; i < map.length; i++) {
+			int start = i * columns;
+			for (int j = 0; j < columns; j++) {
+				int tileIndex = j < map[i].length ? map[i][j] : -1;
+				tiles[start + j] = (short) (tileIndex > -1 ? tileIndex : -1);
+			}
+		}
+		tileArray = null;
+		compactTiles = tiles;
+		compactColumns = columns;
+		compactRows = map.length;
+		tileViews = new Tile[TILE_VIEW_BLOCK * TILE_VIEW_BLOCK];
+		this.tileSize = tileSize;
+		mapColumns = columns;
+		mapWidth = columns * tileSize;
+		mapHeigth = map.length * tileSize;
+		mapReplaced();
+	}
+
+	/**
+	 * Throw away the chunks of the old map
+	 */
+	private void mapReplaced() {
+		mapVersion++;
+		resetChunkVersions();
+	}
 
+	/**
+	 * Make the versions of the chunks for the current map and chunk cache
+	 */
+	private void resetChunkVersions() {
+		if (chunkCache == null) {
+			chunkVersions = null;
+			chunkColumns = 0;
+			return;
+		}
+		int n = chunkCache.getChunkTiles();
+		chunkColumns = (mapColumns + n - 1) / n;
+		chunkVersions = new int[chunkColumns * ((getRowCount() + n - 1) / n)];
+	}
+
+	/**
+	 * Width and height in tiles of the block of Tile objects kept for the
+	 * compact map, must be a power of two
+	 */
+	private static final int TILE_VIEW_BLOCK = 32;
+
+	/**
+	 * Check whether the map is stored compactly, as tile types only.
+	 * 
+	 * @return true if the map is compact
+	 * @see #addTileMap(int[][], int, boolean)
+	 */
+	public boolean isCompact() {
+		return compactTiles != null;
+	}
+
+	/**
+	 * Draw the tiles in blocks ('chunks') of chunkTiles x chunkTiles tiles.
+	 * Every chunk is drawn once into a bitmap of its own, after that drawing
+	 * the visible part of the map costs only a few drawBitmap calls per frame.
+	 * A chunk is drawn again when one of its tiles changes.<br />
+	 * This is useful for large maps with small tiles. It costs memory: a chunk
+	 * takes 4 bytes per pixel. When the chunks use more than the memory
+	 * budget, the chunks that haven't been visible for the longest time are
+	 * thrown away.<br />
+	 * Note: when you change the tile types (the images) after the chunks have
+	 * been drawn, call enableChunkCache again to clear the chunks. The chunks
+	 * of the old cache are freed the next time the tiles are drawn.
+	 * 
+	 * @param chunkTiles
+	 *            width and height of a chunk, in tiles (for example 16)
+	 * @param memoryBudget
+	 *            maximum number of bytes used by the chunks
+	 */
+	public void enableChunkCache(int chunkTiles, int memoryBudget) {
+		chunkCache = new TileChunkCache(chunkTiles, memoryBudget);
+		resetChunkVersions();
+	}
+
+	/**
+	 * Stop drawing the tiles in chunks. The memory used by the chunks is freed
+	 * the next time the tiles are drawn.
+	 */
+	public void disableChunkCache() {
+		chunkCache = null;
+		resetChunkVersions();
 	}
 
 	/***
@@ -115,15 +325,158 @@ public class GameTiles {
 	 * every loop so that the correct sprite is drawn.
 	 */
 	public void drawTiles(Canvas c) {
-		if (tileArray != null) {
-			for (int i = 0; i < tileArray.length; i++) {
-				for (int j = 0; j < tileArray[i].length; j++) {
-					if (tileArray[i][j] != null) {
-						c.drawBitmap(
-								tileTypes.get(tileArray[i][j].getTileType())
-										.getSprite(), j * tileSize, i
-										* tileSize, null);
-					}
+		int rows = getRowCount();
+		for (int i = 0; i < rows; i++) {
+			int columns = getColumnCount(i);
+			for (int j = 0; j < columns; j++) {
+				int type = getTileTypeOnIndex(j, i);
+				if (type > -1) {
+					c.drawBitmap(tileTypes.get(type).getSprite(), j * tileSize,
+							i * tileSize, null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draw only the tiles that are (partly) inside the given area of the game
+	 * world. The range of rows and columns is calculated directly from the
+	 * tile size, so the time needed depends on the size of the area and not
+	 * on the size of the map.<br />
+	 * When the chunk cache is enabled, the visible chunks are drawn instead.
+	 * <br />
+	 * Call this method on the game thread. When the game is drawn by a
+	 * separate thread, the GameView uses fillSnapshot instead.
+	 * 
+	 * @param c
+	 *            the canvas to draw on
+	 * @param visibleArea
+	 *            the visible part of the game world, in world coordinates
+	 *            (for instance the viewport, taking zooming into account)
+	 */
+	public void drawTiles(Canvas c, Rect visibleArea) {
+		fillSnapshot(drawSnapshot, visibleArea);
+		drawSnapshot(c, drawSnapshot);
+	}
+
+	/**
+	 * Copy the tiles that are (partly) inside the given area of the game
+	 * world into a snapshot, to be drawn by another thread. When the chunk
+	 * cache is enabled, the area is extended to whole chunks.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameView, on the game thread.
+	 * 
+	 * @param snapshot
+	 *            the snapshot to fill
+	 * @param visibleArea
+	 *            the visible part of the game world, in world coordinates
+	 */
+	public void fillSnapshot(TileSnapshot snapshot, Rect visibleArea) {
+		TileChunkCache cache = chunkCache;
+		int mapRows = getRowCount();
+		snapshot.gameTiles = this;
+		snapshot.tileSize = tileSize;
+		snapshot.mapColumns = mapColumns;
+		snapshot.mapRows = mapRows;
+		snapshot.chunkCache = cache;
+		snapshot.mapVersion = mapVersion;
+		int firstRow = Math.max(0, visibleArea.top / tileSize);
+		int lastRow = Math.min(mapRows - 1, (visibleArea.bottom - 1)
+				/ tileSize);
+		int firstColumn = Math.max(0, visibleArea.left / tileSize);
+		int lastColumn = Math.min(mapColumns - 1, (visibleArea.right - 1)
+				/ tileSize);
+		if (lastRow < firstRow || lastColumn < firstColumn) {
+			snapshot.rows = 0;
+			snapshot.columns = 0;
+			return;
+		}
+		if (cache != null) {
+			int n = cache.getChunkTiles();
+			firstRow -= firstRow % n;
+			lastRow = Math.min(mapRows - 1, lastRow - lastRow % n + n - 1);
+			firstColumn -= firstColumn % n;
+			lastColumn = Math.min(mapColumns - 1, lastColumn - lastColumn % n
+					+ n - 1);
+		}
+		int rows = lastRow - firstRow + 1;
+		int columns = lastColumn - firstColumn + 1;
+		snapshot.firstRow = firstRow;
+		snapshot.firstColumn = firstColumn;
+		snapshot.rows = rows;
+		snapshot.columns = columns;
+		if (snapshot.types.length < rows * columns) {
+			snapshot.types = new short[rows * columns];
+		}
+		short[] types = snapshot.types;
+		for (int i = 0; i < rows; i++) {
+			int y = firstRow + i;
+			int start = i * columns;
+			if (compactTiles != null) {
+				System.arraycopy(compactTiles, y * compactColumns
+						+ firstColumn, types, start, columns);
+			} else {
+				Tile[] row = tileArray[y];
+				for (int j = 0; j < columns; j++) {
+					int x = firstColumn + j;
+					Tile t = x < row.length ? row[x] : null;
+					types[start + j] = (short) (t == null ? -1 : t
+							.getTileType());
+				}
+			}
+		}
+		int typeCount = tileTypes.size();
+		if (snapshot.sprites.length < typeCount) {
+			snapshot.sprites = new Bitmap[typeCount];
+		}
+		for (int i = 0; i < typeCount; i++) {
+			snapshot.sprites[i] = tileTypes.get(i).getSprite();
+		}
+		if (cache != null) {
+			int n = cache.getChunkTiles();
+			int chunkRows = (rows - 1) / n + 1;
+			int chunks = (columns - 1) / n + 1;
+			if (snapshot.chunkVersions.length < chunkRows * chunks) {
+				snapshot.chunkVersions = new int[chunkRows * chunks];
+			}
+			for (int i = 0; i < chunkRows; i++) {
+				System.arraycopy(chunkVersions, (firstRow / n + i)
+						* chunkColumns + firstColumn / n,
+						snapshot.chunkVersions, i * chunks, chunks);
+			}
+		}
+	}
+
+	/**
+	 * Draw the tiles of a snapshot, on the thread that draws
+	 * 
+	 * @param c
+	 *            the canvas to draw on
+	 * @param snapshot
+	 *            the snapshot filled by fillSnapshot
+	 */
+	void drawSnapshot(Canvas c, TileSnapshot snapshot) {
+		TileChunkCache cache = snapshot.chunkCache;
+		if (cache != drawnCache) {
+			// the cache has been replaced or switched off
+			if (drawnCache != null) {
+				drawnCache.clear();
+			}
+			drawnCache = cache;
+		}
+		if (cache != null) {
+			cache.draw(c, snapshot);
+			return;
+		}
+		int size = snapshot.tileSize;
+		int columns = snapshot.columns;
+		for (int i = 0; i < snapshot.rows; i++) {
+			int y = (snapshot.firstRow + i) * size;
+			for (int j = 0; j < columns; j++) {
+				int type = snapshot.types[i * columns + j];
+				if (type > -1) {
+					c.drawBitmap(snapshot.sprites[type],
+							(snapshot.firstColumn + j) * size, y, null);
 				}
 			}
 		}
@@ -147,6 +500,12 @@ public class GameTiles {
 	 *            the new sprite type that should replace this tile
 	 */
 	public void changeTile(int xTile, int yTile, int tileType) {
+		if (compactTiles != null) {
+			compactTiles[yTile * compactColumns + xTile] = (short) (tileType < 0 ? -1
+					: tileType);
+			tileChanged(xTile, yTile);
+			return;
+		}
 		if(tileType < 0){
 			tileArray[yTile][xTile] = null;
 		}
@@ -154,8 +513,41 @@ public class GameTiles {
 			tileArray[yTile][xTile].setTileType(tileType);
 		} else {
 			tileArray[yTile][xTile] = new Tile(tileType, this);
+			tileArray[yTile][xTile].setTileIndex(yTile, xTile);
+		}
+		tileChanged(xTile, yTile);
+	}
+
+	/**
+	 * Notify the tile map that the tile at the given index has changed, so
+	 * the chunk holding it will be drawn again.
+	 * 
+	 * @param xTile
+	 *            the x index of the tile in the tile array
+	 * @param yTile
+	 *            the y index of the tile in the tile array
+	 */
+	void tileChanged(int xTile, int yTile) {
+		if (chunkCache != null) {
+			int n = chunkCache.getChunkTiles();
+			chunkVersions[yTile / n * chunkColumns + xTile / n]++;
 		}
-		
+	}
+
+	/**
+	 * Called by a Tile when its type has been changed
+	 * 
+	 * @param tile
+	 *            the changed Tile
+	 * @param tileType
+	 *            the new type of the tile
+	 */
+	void tileTypeChanged(Tile tile, int tileType) {
+		if (compactTiles != null) {
+			compactTiles[tile.getTileNumberY() * compactColumns
+					+ tile.getTileNumberX()] = (short) tileType;
+		}
+		tileChanged(tile.getTileNumberX(), tile.getTileNumberY());
 	}
 
 	/**
@@ -174,7 +566,9 @@ public class GameTiles {
 	}
 
 	/**
-	 * Get the list with all the Tile objects in it.
+	 * Get the list with all the Tile objects in it.<br />
+	 * Note: when the map is stored compactly, there is no such list and this
+	 * method returns null. Use getTileOnIndex or getTileTypeOnIndex instead.
 	 * @return the tileArray
 	 */
 	public Tile[][] getTileArray() {
@@ -228,6 +622,7 @@ public class GameTiles {
 			mapHeigth = tileArray.length * tileSize;
 
 		}
+		mapColumns = maxSizeX;
 	}
 	
 	/**
@@ -254,6 +649,24 @@ public class GameTiles {
 	 */
 	public Tile getTileOnIndex(int xIndex, int yIndex) {
 
+		if (compactTiles != null) {
+			if (getTileTypeOnIndex(xIndex, yIndex) < 0) {
+				return null;
+			}
+			// tiles less than a block apart never share a Tile, so all
+			// tiles of one collision are different objects
+			int slot = (yIndex & (TILE_VIEW_BLOCK - 1)) * TILE_VIEW_BLOCK
+					+ (xIndex & (TILE_VIEW_BLOCK - 1));
+			Tile view = tileViews[slot];
+			if (view == null) {
+				view = new Tile(this, yIndex, xIndex);
+				tileViews[slot] = view;
+			} else if (view.getTileNumberX() != xIndex
+					|| view.getTileNumberY() != yIndex) {
+				view.setTileIndex(yIndex, xIndex);
+			}
+			return view;
+		}
 		if (tileArray != null) {
 
 			if (yIndex >= 0 && yIndex < tileArray.length) {
@@ -264,7 +677,85 @@ public class GameTiles {
 		}
 		return null;
 	}
-	
-	
-	
+
+	/**
+	 * Get a Tile for the tile on a specified index, that is not shared with
+	 * other callers. On a compact map the given view is moved to the index,
+	 * or a new view is made when there is none yet; otherwise this is the
+	 * same as getTileOnIndex.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the collision detection, so the Tiles of the collisions of one object
+	 * are not moved when other objects look up tiles.
+	 * 
+	 * @param xIndex
+	 *            The x index of the list
+	 * @param yIndex
+	 *            The y index of the List
+	 * @param view
+	 *            a Tile returned earlier by this method, may be null
+	 * @return the tile Object at the given index position, null if there is
+	 *         no tile
+	 */
+	public Tile getTileView(int xIndex, int yIndex, Tile view) {
+		if (compactTiles == null) {
+			return getTileOnIndex(xIndex, yIndex);
+		}
+		if (getTileTypeOnIndex(xIndex, yIndex) < 0) {
+			return null;
+		}
+		if (view == null || view.getGameTiles() != this) {
+			return new Tile(this, yIndex, xIndex);
+		}
+		view.setTileIndex(yIndex, xIndex);
+		return view;
+	}
+
+	/**
+	 * Get the type of the tile on a specified index of the tile map, without
+	 * needing a Tile object.
+	 * 
+	 * @param xIndex
+	 *            The x index in the tile map
+	 * @param yIndex
+	 *            The y index in the tile map
+	 * @return the tile type, or -1 if there is no tile at that index
+	 */
+	public int getTileTypeOnIndex(int xIndex, int yIndex) {
+		if (compactTiles != null) {
+			if (xIndex >= 0 && xIndex < compactColumns && yIndex >= 0
+					&& yIndex < compactRows) {
+				return compactTiles[yIndex * compactColumns + xIndex];
+			}
+			return -1;
+		}
+		Tile t = getTileOnIndex(xIndex, yIndex);
+		return t == null ? -1 : t.getTileType();
+	}
+
+	/**
+	 * Get the number of rows of the tile map
+	 * 
+	 * @return number of rows
+	 */
+	int getRowCount() {
+		if (compactTiles != null) {
+			return compactRows;
+		}
+		return tileArray == null ? 0 : tileArray.length;
+	}
+
+	/**
+	 * Get the number of tiles in a row of the tile map
+	 * 
+	 * @param row
+	 *            the index of the row
+	 * @return number of tiles in that row
+	 */
+	int getColumnCount(int row) {
+		if (compactTiles != null) {
+			return compactColumns;
+		}
+		return tileArray[row].length;
+	}
+
 }
@@ -21,6 +21,11 @@ public class Tile {
 	 * This tile object is instance of this gameTiles object
 	 */
 	private GameTiles gameTiles;
+	/**
+	 * true if this tile is a view on a compact tile map, reading its type
+	 * from the map
+	 */
+	private boolean isView = false;
 
 	/**
 	 * Every tile has a tiletype and is a instance of an gameTiles object.
@@ -35,6 +40,24 @@ public class Tile {
 		this.gameTiles = gameTiles;
 	}
 
+	/**
+	 * Make a tile that is a view on a compactly stored tile map: its type is
+	 * read from and written to the map.
+	 * 
+	 * @param gameTiles
+	 *            the compact tile map
+	 * @param i
+	 *            the y-index of the tile
+	 * @param j
+	 *            the x-index of the tile
+	 */
+	Tile(GameTiles gameTiles, int i, int j) {
+		super();
+		this.gameTiles = gameTiles;
+		this.isView = true;
+		setTileIndex(i, j);
+	}
+
 	/**
 	 * Change the tile type<br />
 	 * <em>Important!</em> Use this method only when you want to change a tile
@@ -47,6 +70,7 @@ public class Tile {
 	 */
 	public void setTileType(int tileType) {
 		this.tileType = tileType;
+		gameTiles.tileTypeChanged(this, tileType);
 	}
 
 	/**
@@ -55,6 +79,9 @@ public class Tile {
 	 * @return the tiletype
 	 */
 	public int getTileType() {
+		if (isView) {
+			return gameTiles.getTileTypeOnIndex(tileNumberX, tileNumberY);
+		}
 		return tileType;
 	}
 
@@ -0,0 +1,285 @@
+package android.gameengine.icadroids.tiles;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+
+/**
+ * TileChunkCache draws a tile map in blocks ('chunks') of tiles. Every chunk
+ * is drawn once into a bitmap of its own; after that, drawing the map costs
+ * one drawBitmap per visible chunk instead of one per visible tile. A chunk is
+ * drawn again only when one of its tiles has changed.
+ * <br />
+ * The bitmaps are kept in a least recently used cache. When the memory of the
+ * bitmaps exceeds the budget, the chunks that have not been drawn for the
+ * longest time are thrown away. Chunks that are visible are always kept.
+ * <br />
+ * The cache is only used by the thread that draws, it takes the tiles from a
+ * TileSnapshot. Game programmers will not be accessing this class directly,
+ * switch it on with GameTiles.enableChunkCache.
+ *
+ * @see android.gameengine.icadroids.tiles.GameTiles#enableChunkCache(int, int)
+ */
+class TileChunkCache {
+
+	/**
+	 * Width and height of a chunk, in tiles
+	 */
+	private int chunkTiles;
+
+	/**
+	 * Maximum number of bytes used by the bitmaps of the chunks
+	 */
+	private long memoryBudget;
+
+	/**
+	 * Number of bytes used by the bitmaps of the chunks now
+	 */
+	private long memoryUsed = 0;
+
+	/**
+	 * Number of the current frame, to recognize chunks that are visible
+	 */
+	private int frame = 0;
+
+	/**
+	 * Version of the map the chunks have been drawn from
+	 */
+	private int mapVersion = 0;
+
+	/**
+	 * Tile size the chunks have been drawn with
+	 */
+	private int tileSize = 0;
+
+	/**
+	 * The chunks in the cache, on index row * gridColumns + column. Null for
+	 * chunks that are not in the cache.
+	 */
+	private Chunk[] grid = new Chunk[0];
+
+	/**
+	 * Number of chunk columns and rows of the grid
+	 */
+	private int gridColumns = 0;
+	private int gridRows = 0;
+
+	/**
+	 * The least recently drawn chunk in the cache, the chunks are linked
+	 * from least to most recently drawn
+	 */
+	private Chunk oldest = null;
+
+	/**
+	 * The most recently drawn chunk in the cache
+	 */
+	private Chunk newest = null;
+
+	/**
+	 * Canvas used to draw the tiles in the bitmap of a chunk
+	 */
+	private Canvas bakeCanvas = new Canvas();
+
+	/**
+	 * A block of tiles and the bitmap it has been drawn in
+	 */
+	private static class Chunk {
+		Bitmap bitmap;
+		int bytes;
+		/** version of the chunk when the bitmap was drawn */
+		int version;
+		/** frame in which the chunk was last drawn on screen */
+		int lastFrame;
+		/** index of the chunk in the grid */
+		int index;
+		/** the chunks drawn before and after this one */
+		Chunk older;
+		Chunk newer;
+	}
+
+	/**
+	 * Create a chunk cache
+	 *
+	 * @param chunkTiles
+	 *            width and height of a chunk, in tiles
+	 * @param memoryBudget
+	 *            maximum number of bytes used by the bitmaps
+	 */
+	TileChunkCache(int chunkTiles, long memoryBudget) {
+		this.chunkTiles = Math.max(1, chunkTiles);
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Get the width and height of a chunk
+	 *
+	 * @return width and height of a chunk, in tiles
+	 */
+	int getChunkTiles() {
+		return chunkTiles;
+	}
+
+	/**
+	 * Draw the chunks in the area of a snapshot. Chunks that are not in the
+	 * cache or have changed are drawn into their bitmap first.
+	 *
+	 * @param c
+	 *            the canvas to draw on
+	 * @param snapshot
+	 *            the visible tiles, the area starts and ends at chunk
+	 *            boundaries
+	 */
+	void draw(Canvas c, TileSnapshot snapshot) {
+		if (snapshot.columns == 0 || snapshot.rows == 0) {
+			return;
+		}
+		int columns = (snapshot.mapColumns - 1) / chunkTiles + 1;
+		int rows = (snapshot.mapRows - 1) / chunkTiles + 1;
+		if (snapshot.mapVersion != mapVersion || snapshot.tileSize != tileSize
+				|| columns != gridColumns || rows != gridRows) {
+			clear();
+			mapVersion = snapshot.mapVersion;
+			tileSize = snapshot.tileSize;
+			gridColumns = columns;
+			gridRows = rows;
+			grid = new Chunk[columns * rows];
+		}
+		frame++;
+		int chunkSize = chunkTiles * tileSize;
+		int firstRow = snapshot.firstRow / chunkTiles;
+		int firstColumn = snapshot.firstColumn / chunkTiles;
+		int chunkRows = (snapshot.rows - 1) / chunkTiles + 1;
+		int chunkColumns = (snapshot.columns - 1) / chunkTiles + 1;
+		for (int i = 0; i < chunkRows; i++) {
+			int row = firstRow + i;
+			for (int j = 0; j < chunkColumns; j++) {
+				int column = firstColumn + j;
+				int index = row * gridColumns + column;
+				Chunk chunk = grid[index];
+				if (chunk == null) {
+					chunk = new Chunk();
+					chunk.index = index;
+					grid[index] = chunk;
+				} else {
+					unlink(chunk);
+				}
+				link(chunk);
+				int version = snapshot.chunkVersions[i * chunkColumns + j];
+				if (chunk.bitmap == null || chunk.version != version) {
+					bake(chunk, column, row, snapshot);
+					chunk.version = version;
+				}
+				chunk.lastFrame = frame;
+				c.drawBitmap(chunk.bitmap, column * chunkSize, row
+						* chunkSize, null);
+			}
+		}
+		trim();
+	}
+
+	/**
+	 * Throw away all chunks, for instance when the tile map has been replaced
+	 */
+	void clear() {
+		for (Chunk chunk = oldest; chunk != null; chunk = chunk.newer) {
+			if (chunk.bitmap != null) {
+				chunk.bitmap.recycle();
+			}
+			grid[chunk.index] = null;
+		}
+		oldest = null;
+		newest = null;
+		memoryUsed = 0;
+	}
+
+	/**
+	 * Draw the tiles of a chunk into its bitmap, creating the bitmap when it
+	 * doesn't exist yet.
+	 */
+	private void bake(Chunk chunk, int column, int row,
+			TileSnapshot snapshot) {
+		int chunkSize = chunkTiles * tileSize;
+		int left = column * chunkSize;
+		int top = row * chunkSize;
+		if (chunk.bitmap == null) {
+			// chunks at the right and bottom edge of the map may be smaller
+			int width = Math.min(chunkSize, snapshot.mapColumns * tileSize
+					- left);
+			int height = Math.min(chunkSize, snapshot.mapRows * tileSize
+					- top);
+			chunk.bitmap = Bitmap.createBitmap(width, height,
+					Bitmap.Config.ARGB_8888);
+			chunk.bytes = width * height * 4;
+			memoryUsed += chunk.bytes;
+		} else {
+			chunk.bitmap.eraseColor(Color.TRANSPARENT);
+		}
+		bakeCanvas.setBitmap(chunk.bitmap);
+		int firstY = row * chunkTiles;
+		int lastY = Math.min(snapshot.mapRows, firstY + chunkTiles);
+		int firstX = column * chunkTiles;
+		int lastX = Math.min(snapshot.mapColumns, firstX + chunkTiles);
+		for (int i = firstY; i < lastY; i++) {
+			for (int j = firstX; j < lastX; j++) {
+				int type = snapshot.getTileType(j, i);
+				if (type > -1) {
+					bakeCanvas.drawBitmap(snapshot.sprites[type], j
+							* tileSize - left, i * tileSize - top, null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Throw away the least recently drawn chunks until the memory used is
+	 * within the budget. Chunks drawn in the current frame are kept.
+	 */
+	private void trim() {
+		while (memoryUsed > memoryBudget && oldest != null) {
+			Chunk chunk = oldest;
+			if (chunk.lastFrame == frame) {
+				// all remaining chunks are visible
+				break;
+			}
+			if (chunk.bitmap != null) {
+				chunk.bitmap.recycle();
+				memoryUsed -= chunk.bytes;
+			}
+			unlink(chunk);
+			grid[chunk.index] = null;
+		}
+	}
+
+	/**
+	 * Add a chunk at the most recently drawn end of the list
+	 */
+	private void link(Chunk chunk) {
+		chunk.older = newest;
+		chunk.newer = null;
+		if (newest == null) {
+			oldest = chunk;
+		} else {
+			newest.newer = chunk;
+		}
+		newest = chunk;
+	}
+
+	/**
+	 * Take a chunk out of the list
+	 */
+	private void unlink(Chunk chunk) {
+		if (chunk.older == null) {
+			oldest = chunk.newer;
+		} else {
+			chunk.older.newer = chunk.newer;
+		}
+		if (chunk.newer == null) {
+			newest = chunk.older;
+		} else {
+			chunk.newer.older = chunk.older;
+		}
+		chunk.older = null;
+		chunk.newer = null;
+	}
+}
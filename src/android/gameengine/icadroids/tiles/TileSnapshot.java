@@ -0,0 +1,114 @@
+package android.gameengine.icadroids.tiles;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * TileSnapshot holds the part of a tile map that is needed to draw one frame:
+ * the types of the visible tiles and the bitmaps of the tile types. When the
+ * game is drawn by a separate thread, the game thread fills a snapshot and the
+ * render thread draws it, so the render thread never reads the tile map while
+ * the game changes it.
+ * <br />
+ * Snapshots are reused; the arrays only grow.
+ * <br />
+ * Game programmers will not be accessing this class directly, it is used by
+ * the GameView.
+ *
+ * @see android.gameengine.icadroids.tiles.GameTiles#fillSnapshot(TileSnapshot,
+ *      android.graphics.Rect)
+ */
+public class TileSnapshot {
+
+	/**
+	 * The tile map the snapshot was taken from, null when there is nothing to
+	 * draw
+	 */
+	GameTiles gameTiles = null;
+
+	/**
+	 * Width and height of every tile
+	 */
+	int tileSize;
+
+	/**
+	 * Number of columns and rows of the whole map
+	 */
+	int mapColumns;
+	int mapRows;
+
+	/**
+	 * The area of the map in the snapshot, in tiles
+	 */
+	int firstColumn;
+	int firstRow;
+	int columns;
+	int rows;
+
+	/**
+	 * The types of the tiles in the area, in row-major order. -1 means no
+	 * tile.
+	 */
+	short[] types = new short[0];
+
+	/**
+	 * The bitmap of every tile type
+	 */
+	Bitmap[] sprites = new Bitmap[0];
+
+	/**
+	 * The chunk cache to draw with, null when the tiles are drawn one by one
+	 */
+	TileChunkCache chunkCache;
+
+	/**
+	 * Number of times the map has been replaced, chunks of an older map are
+	 * thrown away
+	 */
+	int mapVersion;
+
+	/**
+	 * For every chunk in the area, in row-major order: the number of times
+	 * one of its tiles has changed. A chunk drawn at an older version is drawn
+	 * again.
+	 */
+	int[] chunkVersions = new int[0];
+
+	/**
+	 * Empty the snapshot, keeping the allocated arrays
+	 */
+	public void clear() {
+		gameTiles = null;
+		chunkCache = null;
+		for (int i = 0; i < sprites.length; i++) {
+			sprites[i] = null;
+		}
+	}
+
+	/**
+	 * Draw the tiles in the snapshot.<br />
+	 * Note: this method should be invisible to game programmers. It is called
+	 * by the GameView, on the thread that draws.
+	 *
+	 * @param c
+	 *            the canvas to draw on
+	 */
+	public void draw(Canvas c) {
+		if (gameTiles != null) {
+			gameTiles.drawSnapshot(c, this);
+		}
+	}
+
+	/**
+	 * Get the type of a tile in the area of the snapshot
+	 *
+	 * @param xIndex
+	 *            x index of the tile in the tile map
+	 * @param yIndex
+	 *            y index of the tile in the tile map
+	 * @return the tile type, -1 if there is no tile
+	 */
+	int getTileType(int xIndex, int yIndex) {
+		return types[(yIndex - firstRow) * columns + xIndex - firstColumn];
+	}
+}